@@ -0,0 +1,89 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Build step (run by Maven in process-resources) that writes precompressed
+ * variants next to the static stylesheets and scripts, so that they are served
+ * as-is to clients accepting gzip or brotli instead of being compressed on every
+ * request. Brotli variants are written only if the brotli command is installed,
+ * as the JDK has no brotli encoder.
+ * <p>
+ * Usage: java src/build/PrecompressStaticAssets.java target/classes/static
+ */
+public class PrecompressStaticAssets {
+
+    private static final List<String> EXTENSIONS = List.of(".css", ".js");
+
+    // Variants that do not save at least this many bytes are not worth a second file
+    private static final int MIN_SAVING_BYTES = 128;
+
+    public static void main(String[] args) throws Exception {
+        Path root = Path.of(args[0]);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+
+        boolean brotli = brotliAvailable();
+        List<Path> assets;
+        try (Stream<Path> files = Files.walk(root)) {
+            assets = files.filter(Files::isRegularFile)
+                    .filter(file -> EXTENSIONS.stream().anyMatch(file.toString()::endsWith))
+                    .toList();
+        }
+
+        for (Path asset : assets) {
+            gzip(asset);
+            if (brotli) {
+                brotli(asset);
+            }
+        }
+        System.out.printf("Precompressed %d static assets (gzip%s)%n", assets.size(), brotli ? ", brotli" : "");
+    }
+
+    private static void gzip(Path asset) throws IOException {
+        Path target = asset.resolveSibling(asset.getFileName() + ".gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(target)) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            Files.copy(asset, out);
+        }
+        dropIfNotSmaller(asset, target);
+    }
+
+    private static void brotli(Path asset) throws IOException, InterruptedException {
+        Path target = asset.resolveSibling(asset.getFileName() + ".br");
+        Process process = new ProcessBuilder("brotli", "--force", "--best", "--output=" + target, asset.toString())
+                .inheritIO()
+                .start();
+        if (process.waitFor() == 0) {
+            dropIfNotSmaller(asset, target);
+        }
+    }
+
+    private static void dropIfNotSmaller(Path asset, Path variant) throws IOException {
+        if (Files.size(variant) + MIN_SAVING_BYTES > Files.size(asset)) {
+            Files.delete(variant);
+        }
+    }
+
+    private static boolean brotliAvailable() {
+        try {
+            Process process = new ProcessBuilder("brotli", "--version").start();
+            return process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
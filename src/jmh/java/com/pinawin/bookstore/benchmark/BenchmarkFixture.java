@@ -0,0 +1,157 @@
+package com.pinawin.bookstore.benchmark;
+
+import com.pinawin.bookstore.BookstoreApplication;
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.User;
+import com.pinawin.bookstore.repositories.BookRepository;
+import com.pinawin.bookstore.repositories.UserRepository;
+import com.pinawin.bookstore.services.BookSearchIndex;
+import com.pinawin.bookstore.services.CartService;
+import com.pinawin.bookstore.services.CategoryFacetIndex;
+import com.pinawin.bookstore.services.CheckoutService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Boots the whole application against an in-memory H2 database (MySQL mode)
+ * and seeds it with a catalog, shoppers and an order history, so that
+ * benchmarks run the same beans, queries and transactions as production.
+ */
+public final class BenchmarkFixture implements AutoCloseable {
+
+    public static final int BOOKS = 10_000;
+    public static final int USERS = 64;
+    public static final int ORDERS_PER_USER = 20;
+
+    /**
+     * Password of every seeded shopper ("shopper0" .. "shopper63").
+     */
+    public static final String PASSWORD = "benchmark";
+
+    /**
+     * Search terms spread over titles, authors and categories of the seeded catalog.
+     */
+    public static final String[] KEYWORDS = {"java", "spring", "history", "smith", "garden", "data", "novel", "science"};
+
+    private static final String[] CATEGORIES = {"Programming", "History", "Fiction", "Science", "Gardening"};
+    private static final String[] AUTHORS = {"Jane Smith", "John Doe", "Ada Lovelace", "Alan Turing", "Mary Shelley"};
+    private static final String[] SUBJECTS = {"Java", "Spring", "History", "Data", "Garden", "Novel", "Science", "Poetry"};
+
+    // Overrides application.properties: embedded database, no SQL logging, random port
+    private static final String[] DEFAULT_ARGS = {
+            "--spring.datasource.url=jdbc:h2:mem:bookstore-bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.jpa.show-sql=false",
+            "--server.port=0",
+            "--logging.level.root=WARN",
+            "--bookstore.cart.write-behind.journal=target/jmh/cart-journal.log"
+    };
+
+    private final ConfigurableApplicationContext context;
+    private final List<User> users;
+    private final List<Long> bookIds;
+    private final AtomicInteger nextUser = new AtomicInteger();
+
+    private BenchmarkFixture(ConfigurableApplicationContext context, List<User> users, List<Long> bookIds) {
+        this.context = context;
+        this.users = users;
+        this.bookIds = bookIds;
+    }
+
+    /**
+     * Starts the application and seeds the database.
+     * @param overrides Extra properties as "name=value", e.g. "bookstore.cart.store=write-behind".
+     * @return The running fixture; close it to stop the application.
+     */
+    public static BenchmarkFixture start(String... overrides) {
+        String[] args = Stream.concat(Stream.of(DEFAULT_ARGS), Stream.of(overrides).map(o -> "--" + o))
+                .toArray(String[]::new);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BookstoreApplication.class).run(args);
+
+        // 1. Catalog: plenty of stock so checkouts never run out during a run
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setTitle(SUBJECTS[i % SUBJECTS.length] + " Volume " + i);
+            book.setAuthor(AUTHORS[i % AUTHORS.length]);
+            book.setCategory(CATEGORIES[i % CATEGORIES.length]);
+            book.setDescription("Benchmark book " + i + " about " + SUBJECTS[(i / 7) % SUBJECTS.length].toLowerCase());
+            book.setPrice(new BigDecimal("9.99").add(BigDecimal.valueOf(i % 40)));
+            book.setStock(1_000_000);
+            books.add(book);
+        }
+        List<Long> bookIds = context.getBean(BookRepository.class).saveAll(books).stream().map(Book::getId).toList();
+        context.getBean(BookSearchIndex.class).rebuild();
+        context.getBean(CategoryFacetIndex.class).rebuild();
+
+        // 2. Shoppers, each with an order history placed through the real checkout
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        CartService cartService = context.getBean(CartService.class);
+        CheckoutService checkoutService = context.getBean(CheckoutService.class);
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+
+        List<User> users = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            User user = new User();
+            user.setUserName("shopper" + u);
+            user.setEmail("shopper" + u + "@example.com");
+            user.setPassword(passwordHash);
+            user = userRepository.save(user);
+            users.add(user);
+
+            for (int o = 0; o < ORDERS_PER_USER; o++) {
+                cartService.addToCart(user, bookIds.get((u * 31 + o) % BOOKS));
+                cartService.addToCart(user, bookIds.get((u * 31 + o * 7 + 1) % BOOKS));
+                checkoutService.checkout(user);
+            }
+        }
+
+        return new BenchmarkFixture(context, users, bookIds);
+    }
+
+    /**
+     * @return The port the embedded web server listens on.
+     */
+    public int port() {
+        return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+    }
+
+    /**
+     * @return A bean of the running application.
+     */
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Hands out the seeded shoppers in turn, so that each benchmark thread works on its own cart.
+     * @return The next shopper.
+     */
+    public User nextUser() {
+        return users.get(nextUser.getAndIncrement() % users.size());
+    }
+
+    /**
+     * @param index Any non-negative number; wraps around the catalog.
+     * @return The id of a seeded book.
+     */
+    public Long bookId(int index) {
+        return bookIds.get(index % bookIds.size());
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,104 @@
+package com.pinawin.bookstore.benchmark;
+
+import com.pinawin.bookstore.DTO.BookResponse;
+import com.pinawin.bookstore.DTO.OrderResponse;
+import com.pinawin.bookstore.DTO.PageResponse;
+import com.pinawin.bookstore.models.CartItem;
+import com.pinawin.bookstore.models.Order;
+import com.pinawin.bookstore.models.User;
+import com.pinawin.bookstore.services.BookService;
+import com.pinawin.bookstore.services.CartService;
+import com.pinawin.bookstore.services.CheckoutService;
+import com.pinawin.bookstore.services.OrderService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the code that runs on every shopper request: catalog search,
+ * adding to the cart, checkout and reading the order history.
+ * Each benchmark reports throughput and sampled latency percentiles; run with
+ * -prof gc (the default in the benchmark profile) for the allocation rate per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class HotPathBenchmark {
+
+    private BenchmarkFixture fixture;
+    private BookService bookService;
+    private CartService cartService;
+    private CheckoutService checkoutService;
+    private OrderService orderService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        fixture = BenchmarkFixture.start();
+        bookService = fixture.bean(BookService.class);
+        cartService = fixture.bean(CartService.class);
+        checkoutService = fixture.bean(CheckoutService.class);
+        orderService = fixture.bean(OrderService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        fixture.close();
+    }
+
+    /**
+     * One seeded shopper per benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Shopper {
+
+        User user;
+        int counter;
+
+        @Setup(Level.Trial)
+        public void login(HotPathBenchmark benchmark) {
+            user = benchmark.fixture.nextUser();
+        }
+    }
+
+    /**
+     * A shopper whose cart is filled with three books before every checkout.
+     * Filling happens outside the measured call; checkouts take long enough
+     * for per-invocation setup not to skew the timings.
+     */
+    @State(Scope.Thread)
+    public static class FullCart {
+
+        @Setup(Level.Invocation)
+        public void fill(HotPathBenchmark benchmark, Shopper shopper) {
+            for (int i = 0; i < 3; i++) {
+                benchmark.cartService.addToCart(shopper.user, benchmark.fixture.bookId(shopper.counter++ * 13));
+            }
+        }
+    }
+
+    @Benchmark
+    public PageResponse<BookResponse> searchBooks(Shopper shopper) {
+        String keyword = BenchmarkFixture.KEYWORDS[shopper.counter++ % BenchmarkFixture.KEYWORDS.length];
+        return bookService.searchBooks(keyword, 0, 12);
+    }
+
+    @Benchmark
+    public CartItem addToCart(Shopper shopper) {
+        // Cycle over 20 books so the cart stays a realistic size and most adds increment a line
+        return cartService.addToCart(shopper.user, fixture.bookId(shopper.counter++ % 20 * 97));
+    }
+
+    @Benchmark
+    public Order checkout(Shopper shopper, FullCart cart) {
+        return checkoutService.checkout(shopper.user);
+    }
+
+    @Benchmark
+    public List<OrderResponse> getOrdersForUser(Shopper shopper) {
+        return orderService.getOrdersForUser(shopper.user, null, 10);
+    }
+}
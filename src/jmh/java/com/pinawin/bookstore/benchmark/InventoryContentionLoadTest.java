@@ -0,0 +1,166 @@
+package com.pinawin.bookstore.benchmark;
+
+import com.pinawin.bookstore.models.User;
+import com.pinawin.bookstore.services.CartService;
+import com.pinawin.bookstore.services.CheckoutService;
+import com.pinawin.bookstore.services.StockLedger;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test comparing the inventory strategies (bookstore.inventory.strategy) under contention.
+ * For each strategy the application is started with a seeded database, a few "hot" books
+ * are given a limited stock, and concurrent shoppers check out carts that share those books
+ * back to back, calling the services directly so that the run measures the checkout
+ * transaction rather than HTTP handling.
+ * Prints orders/s, the share of checkouts aborted on a conflict (409 after the strategy's
+ * retries) and, per strategy, whether stock and sold units still add up: a lost update or
+ * an oversell shows as a stock mismatch.
+ * <p>
+ * Usage: ./mvnw -Pbenchmark test-compile exec:exec@contention-test
+ *        -Dcontention.args="[threads] [seconds] [hot books] [stock per hot book] [strategies]"
+ * Strategies are comma-separated, e.g. "optimistic,conditional"; all of them by default.
+ */
+public final class InventoryContentionLoadTest {
+
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final String STRATEGIES = "entity,optimistic,pessimistic,conditional,ledger";
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int hotBooks = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int stock = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+        String[] strategies = (args.length > 4 ? args[4] : STRATEGIES).split(",");
+
+        if (threads > BenchmarkFixture.USERS) {
+            throw new IllegalArgumentException("At most " + BenchmarkFixture.USERS + " threads, one per seeded shopper");
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (String strategy : strategies) {
+            try (BenchmarkFixture fixture = BenchmarkFixture.start("bookstore.inventory.strategy=" + strategy)) {
+                results.add(run(fixture, strategy, threads, hotBooks, stock, Duration.ofSeconds(seconds)));
+            }
+        }
+
+        System.out.printf("%n%d threads, %d s per strategy, %d hot books with %d units each%n",
+                threads, seconds, hotBooks, stock);
+        System.out.printf("%-12s %10s %10s %10s %10s %10s  %s%n",
+                "strategy", "orders/s", "orders", "aborted", "sold out", "errors", "stock check");
+        for (Result result : results) {
+            System.out.printf("%-12s %10.0f %10d %9.2f%% %10d %10d  %s%n", result.strategy(), result.throughput(),
+                    result.orders(), result.abortRate() * 100, result.soldOut(), result.errors(), result.stockCheck());
+        }
+    }
+
+    private static Result run(BenchmarkFixture fixture, String strategy, int threads, int hotBooks, int stock,
+                              Duration duration) throws Exception {
+        JdbcTemplate jdbcTemplate = fixture.bean(JdbcTemplate.class);
+        CartService cartService = fixture.bean(CartService.class);
+        CheckoutService checkoutService = fixture.bean(CheckoutService.class);
+
+        // 1. Give the hot books a limited stock. They are taken from the end of the catalog, which the
+        //    fixture's order history never bought, so the ledger (if active) has not read their stock yet
+        List<Long> hot = new ArrayList<>();
+        for (int i = 0; i < hotBooks; i++) {
+            hot.add(fixture.bookId(BenchmarkFixture.BOOKS - 1 - i * 13));
+            jdbcTemplate.update("UPDATE books SET stock = ? WHERE id = ?", stock, hot.get(i));
+        }
+        long[] soldBefore = sold(jdbcTemplate, hot);
+
+        // 2. Every thread is one shopper, checking out carts of two hot books and one other book
+        LongAdder orders = new LongAdder();
+        LongAdder aborted = new LongAdder();
+        LongAdder soldOut = new LongAdder();
+        LongAdder errors = new LongAdder();
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+
+        try (ExecutorService shoppers = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                User user = fixture.nextUser();
+                shoppers.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (!stopped.get()) {
+                        LongAdder outcome;
+                        try {
+                            cartService.clearCart(user);
+                            cartService.addToCart(user, hot.get(random.nextInt(hot.size())));
+                            cartService.addToCart(user, hot.get(random.nextInt(hot.size())));
+                            cartService.addToCart(user, fixture.bookId(1_000 + random.nextInt(4_000)));
+                            checkoutService.checkout(user);
+                            outcome = orders;
+                        } catch (ResponseStatusException e) {
+                            outcome = e.getStatusCode() == HttpStatus.CONFLICT ? aborted : errors;
+                        } catch (RuntimeException e) {
+                            // Refused at checkout ("Not enough stock ...") or when adding to the cart ("... out of stock.")
+                            String message = String.valueOf(e.getMessage());
+                            outcome = message.startsWith("Not enough stock") || message.contains("out of stock") ? soldOut : errors;
+                        }
+                        if (measuring.get()) {
+                            outcome.increment();
+                        }
+                    }
+                });
+            }
+
+            System.out.printf("[%s] warming up %d threads for %d s%n", strategy, threads, WARMUP.toSeconds());
+            Thread.sleep(WARMUP);
+            measuring.set(true);
+            long started = System.nanoTime();
+            Thread.sleep(duration);
+            measuring.set(false);
+            double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+            stopped.set(true);
+            shoppers.shutdown();
+            shoppers.awaitTermination(1, TimeUnit.MINUTES);
+
+            // 3. Units sold must equal units taken from stock, and stock must never go negative
+            if (strategy.equals("ledger")) {
+                fixture.bean(StockLedger.class).flush();
+            }
+            long[] soldAfter = sold(jdbcTemplate, hot);
+            String stockCheck = "ok";
+            for (int i = 0; i < hot.size(); i++) {
+                int remaining = jdbcTemplate.queryForObject("SELECT stock FROM books WHERE id = ?", Integer.class, hot.get(i));
+                long unitsSold = soldAfter[i] - soldBefore[i];
+                if (remaining < 0 || stock - remaining != unitsSold) {
+                    stockCheck = "MISMATCH book " + hot.get(i) + ": " + unitsSold + " sold, stock " + stock + " -> " + remaining;
+                    break;
+                }
+            }
+
+            long attempts = orders.sum() + aborted.sum();
+            return new Result(strategy, orders.sum() / elapsedSeconds, orders.sum(),
+                    attempts == 0 ? 0 : (double) aborted.sum() / attempts, soldOut.sum(), errors.sum(), stockCheck);
+        }
+    }
+
+    /**
+     * @return Units of each book in all placed orders.
+     */
+    private static long[] sold(JdbcTemplate jdbcTemplate, List<Long> bookIds) {
+        long[] sold = new long[bookIds.size()];
+        for (int i = 0; i < sold.length; i++) {
+            sold[i] = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(quantity), 0) FROM order_items WHERE book_id = ?", Long.class, bookIds.get(i));
+        }
+        return sold;
+    }
+
+    private record Result(String strategy, double throughput, long orders, double abortRate,
+                          long soldOut, long errors, String stockCheck) {
+    }
+}
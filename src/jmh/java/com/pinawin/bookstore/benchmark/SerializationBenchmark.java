@@ -0,0 +1,127 @@
+package com.pinawin.bookstore.benchmark;
+
+import com.pinawin.bookstore.DTO.BookResponse;
+import com.pinawin.bookstore.DTO.CartItemResponse;
+import com.pinawin.bookstore.DTO.PageResponse;
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+import com.pinawin.bookstore.models.User;
+import com.pinawin.bookstore.repositories.BookRepository;
+import com.pinawin.bookstore.services.BookService;
+import com.pinawin.bookstore.services.CartService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing API responses as JSON from the JPA entities (as the controllers
+ * used to return them) with writing the purpose-built response records.
+ * Catalog pages are compared as served from the catalog cache, which now holds
+ * converted pages. Cart benchmarks cover the whole view-cart response: loading the
+ * lines in a fresh persistence context (as a request does) and writing them, since
+ * serializing the entities lazily loads each line's book.
+ * JSON is written to a reused buffer, like the servlet response buffer, so -prof gc
+ * (the default in the benchmark profile) reports the allocation of building the
+ * response body. Payload sizes are printed once at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private static final int PAGE_SIZE = 24;
+    private static final int CART_LINES = 10;
+
+    // The cart query before and after the book association was fetched with the lines
+    private static final String CART_QUERY = "select c from CartItem c where c.user.id = :userId";
+    private static final String CART_FETCH_QUERY = "select c from CartItem c join fetch c.book where c.user.id = :userId";
+
+    private BenchmarkFixture fixture;
+    private JsonMapper jsonMapper;
+    private Page<Book> catalogEntityPage;
+    private PageResponse<BookResponse> catalogPage;
+    private EntityManagerFactory entityManagerFactory;
+    private Long cartOwnerId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        fixture = BenchmarkFixture.start();
+        jsonMapper = fixture.bean(JsonMapper.class);
+        catalogEntityPage = fixture.bean(BookRepository.class).findAll(PageRequest.of(0, PAGE_SIZE));
+        catalogPage = fixture.bean(BookService.class).getAllBooks(0, PAGE_SIZE);
+
+        CartService cartService = fixture.bean(CartService.class);
+        User user = fixture.nextUser();
+        for (int i = 0; i < CART_LINES; i++) {
+            cartService.addToCart(user, fixture.bookId(i * 101));
+        }
+        cartOwnerId = user.getId();
+        entityManagerFactory = fixture.bean(EntityManagerFactory.class);
+
+        Sink sink = new Sink();
+        System.out.printf("%nPayload bytes: catalog page %d -> %d, cart %d -> %d%n",
+                catalogPageEntity(sink), catalogPageResponse(sink), cartEntity(sink), cartResponse(sink));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        fixture.close();
+    }
+
+    /**
+     * Output buffer of one benchmark thread, reused across operations.
+     */
+    @State(Scope.Thread)
+    public static class Sink {
+
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(16 * 1024);
+
+        int write(JsonMapper jsonMapper, Object value) {
+            buffer.reset();
+            jsonMapper.writeValue(buffer, value);
+            return buffer.size();
+        }
+    }
+
+    @Benchmark
+    public int catalogPageEntity(Sink sink) {
+        return sink.write(jsonMapper, catalogEntityPage);
+    }
+
+    @Benchmark
+    public int catalogPageResponse(Sink sink) {
+        return sink.write(jsonMapper, catalogPage);
+    }
+
+    @Benchmark
+    public int cartEntity(Sink sink) {
+        try (EntityManager entityManager = entityManagerFactory.createEntityManager()) {
+            return sink.write(jsonMapper, loadCart(entityManager, CART_QUERY));
+        }
+    }
+
+    @Benchmark
+    public int cartResponse(Sink sink) {
+        try (EntityManager entityManager = entityManagerFactory.createEntityManager()) {
+            return sink.write(jsonMapper, loadCart(entityManager, CART_FETCH_QUERY).stream()
+                    .map(CartItemResponse::from)
+                    .toList());
+        }
+    }
+
+    private List<CartItem> loadCart(EntityManager entityManager, String query) {
+        return entityManager.createQuery(query, CartItem.class)
+                .setParameter("userId", cartOwnerId)
+                .getResultList();
+    }
+}
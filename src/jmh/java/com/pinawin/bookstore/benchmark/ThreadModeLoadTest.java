@@ -0,0 +1,174 @@
+package com.pinawin.bookstore.benchmark;
+
+import com.pinawin.bookstore.models.User;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test comparing request handling on platform threads and on virtual threads
+ * (spring.threads.virtual.enabled). For each mode the application is started with a
+ * seeded database, then a fixed number of concurrent client sessions send requests
+ * back to back: catalog pages, searches, order history and add-to-cart.
+ * Prints throughput, latency percentiles and errors per mode.
+ * <p>
+ * Usage: ./mvnw -Pbenchmark test-compile exec:exec@load-test -Dload.args="[sessions] [seconds] [session|token]"
+ * The optional third argument selects bookstore.auth.mode, to compare session and token authentication.
+ */
+public final class ThreadModeLoadTest {
+
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        String authMode = args.length > 2 ? args[2] : "session";
+
+        List<Result> results = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (BenchmarkFixture fixture = BenchmarkFixture.start(
+                    "spring.threads.virtual.enabled=" + virtual, "bookstore.auth.mode=" + authMode)) {
+                results.add(run(fixture, virtual ? "virtual" : "platform", sessions, Duration.ofSeconds(seconds)));
+            }
+        }
+
+        System.out.printf("%n%d concurrent sessions, %d s per mode, %s auth%n", sessions, seconds, authMode);
+        System.out.printf("%-10s %12s %10s %10s %10s %10s%n", "mode", "requests/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (Result result : results) {
+            System.out.printf("%-10s %12.0f %10.1f %10.1f %10.1f %10d%n", result.mode(), result.throughput(),
+                    result.p50Millis(), result.p99Millis(), result.maxMillis(), result.errors());
+        }
+    }
+
+    private static Result run(BenchmarkFixture fixture, String mode, int sessions, Duration duration) throws Exception {
+        String baseUrl = "http://localhost:" + fixture.port();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder()
+                    .executor(clients)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            // 1. Log every seeded shopper in once; sessions share these logins so that
+            //    the run measures shopping requests rather than password hashing
+            List<String> cookies = new ArrayList<>();
+            for (int i = 0; i < BenchmarkFixture.USERS; i++) {
+                cookies.add(login(http, baseUrl, fixture.nextUser()));
+            }
+
+            // 2. Keep every session busy: warm up, then measure
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            Timer latency = Timer.builder("load.request")
+                    .publishPercentiles(0.5, 0.99)
+                    .distributionStatisticExpiry(duration.plus(WARMUP).multipliedBy(2))
+                    .register(registry);
+            LongAdder completed = new LongAdder();
+            LongAdder errors = new LongAdder();
+            AtomicBoolean measuring = new AtomicBoolean();
+            AtomicBoolean stopped = new AtomicBoolean();
+
+            for (int s = 0; s < sessions; s++) {
+                String cookie = cookies.get(s % cookies.size());
+                int session = s;
+                clients.submit(() -> {
+                    for (int n = session; !stopped.get(); n++) {
+                        long start = System.nanoTime();
+                        boolean ok = send(http, request(fixture, baseUrl, cookie, n));
+                        if (measuring.get()) {
+                            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                            completed.increment();
+                            if (!ok) {
+                                errors.increment();
+                            }
+                        }
+                    }
+                });
+            }
+
+            System.out.printf("[%s] warming up %d sessions for %d s%n", mode, sessions, WARMUP.toSeconds());
+            Thread.sleep(WARMUP);
+            measuring.set(true);
+            long started = System.nanoTime();
+            Thread.sleep(duration);
+            measuring.set(false);
+            double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+            stopped.set(true);
+
+            HistogramSnapshot snapshot = latency.takeSnapshot();
+            return new Result(mode, completed.sum() / elapsedSeconds,
+                    percentileMillis(snapshot, 0.5), percentileMillis(snapshot, 0.99),
+                    snapshot.max(TimeUnit.MILLISECONDS), errors.sum());
+        }
+    }
+
+    /**
+     * The request mix of one session: mostly reads, with one cart write in four requests.
+     */
+    private static HttpRequest request(BenchmarkFixture fixture, String baseUrl, String cookie, int n) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().header("Cookie", cookie).timeout(Duration.ofSeconds(60));
+        return switch (n % 4) {
+            case 0 -> builder.uri(URI.create(baseUrl + "/api/books?page=" + (n % 50) + "&size=8")).build();
+            case 1 -> builder.uri(URI.create(baseUrl + "/api/books/search?keyword="
+                    + BenchmarkFixture.KEYWORDS[n % BenchmarkFixture.KEYWORDS.length])).build();
+            case 2 -> builder.uri(URI.create(baseUrl + "/api/orders")).build();
+            default -> builder.uri(URI.create(baseUrl + "/api/cart/add?bookId=" + fixture.bookId(n % 20 * 97)))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+        };
+    }
+
+    private static boolean send(HttpClient http, HttpRequest request) {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String login(HttpClient http, String baseUrl, User user) throws Exception {
+        String body = "{\"userName\":\"" + user.getUsername() + "\",\"password\":\"" + BenchmarkFixture.PASSWORD + "\"}";
+        HttpResponse<Void> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+
+        return response.headers().allValues("Set-Cookie").stream()
+                .filter(cookie -> cookie.startsWith("JSESSIONID=") || cookie.startsWith("AUTH_TOKEN="))
+                .map(cookie -> cookie.substring(0, cookie.indexOf(';')))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Login failed for " + user.getUsername()
+                        + " with status " + response.statusCode()));
+    }
+
+    private static double percentileMillis(HistogramSnapshot snapshot, double percentile) {
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    private record Result(String mode, double throughput, double p50Millis, double p99Millis,
+                          double maxMillis, long errors) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.pinawin.bookstore.DTO;
+
+/**
+ * Projection of the book fields needed to build the category facets,
+ * so the facet index can be loaded without materializing Book entities.
+ * @param id Primary key of the book.
+ * @param category Free-text category of the book.
+ * @param stock Units in stock.
+ */
+public record BookFacetRow(Long id, String category, int stock) {
+}
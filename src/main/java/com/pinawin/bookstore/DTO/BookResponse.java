@@ -0,0 +1,41 @@
+package com.pinawin.bookstore.DTO;
+
+import com.pinawin.bookstore.models.Book;
+
+import java.math.BigDecimal;
+
+/**
+ * Catalog view of a book as sent to the frontend.
+ * Carries only the fields the catalog shows, so serializing it never touches
+ * the entity's order or cart associations.
+ * @param id Primary key of the book.
+ * @param title Full title.
+ * @param author Name of the author.
+ * @param description Summary of the book (may be null).
+ * @param price Unit price.
+ * @param category Genre or category.
+ * @param stock Copies currently available.
+ */
+public record BookResponse(Long id,
+                           String title,
+                           String author,
+                           String description,
+                           BigDecimal price,
+                           String category,
+                           int stock) {
+
+    /**
+     * @param book The book entity.
+     * @return The response for the book.
+     */
+    public static BookResponse from(Book book) {
+        return new BookResponse(
+                book.getId(),
+                book.getTitle(),
+                book.getAuthor(),
+                book.getDescription(),
+                book.getPrice(),
+                book.getCategory(),
+                book.getStock());
+    }
+}
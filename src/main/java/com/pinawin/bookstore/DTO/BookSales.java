@@ -0,0 +1,13 @@
+package com.pinawin.bookstore.DTO;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales of one book over a period, as ranked in the bestseller list.
+ * @param bookId Primary key of the book.
+ * @param category Category of the book when it was sold.
+ * @param units Number of units sold.
+ * @param revenue Revenue of those units, at the prices paid.
+ */
+public record BookSales(Long bookId, String category, long units, BigDecimal revenue) {
+}
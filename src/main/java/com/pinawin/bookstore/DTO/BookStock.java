@@ -0,0 +1,9 @@
+package com.pinawin.bookstore.DTO;
+
+/**
+ * Current stock level of one book, read without loading the entity.
+ * @param id Primary key of the book.
+ * @param stock Copies currently available.
+ */
+public record BookStock(Long id, int stock) {
+}
@@ -0,0 +1,30 @@
+package com.pinawin.bookstore.DTO;
+
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of a user's shopping cart, flattened with the book details the cart page shows.
+ * @param bookId Primary key of the book.
+ * @param title Title of the book.
+ * @param price Current unit price of the book.
+ * @param stock Copies of the book currently available.
+ * @param quantity Number of copies in the cart.
+ */
+public record CartItemResponse(Long bookId,
+                               String title,
+                               BigDecimal price,
+                               int stock,
+                               int quantity) {
+
+    /**
+     * @param item The cart line; its book must already be loaded.
+     * @return The response for the cart line.
+     */
+    public static CartItemResponse from(CartItem item) {
+        Book book = item.getBook();
+        return new CartItemResponse(book.getId(), book.getTitle(), book.getPrice(), book.getStock(), item.getQuantity());
+    }
+}
@@ -0,0 +1,24 @@
+package com.pinawin.bookstore.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Data Transfer Object for one line of a batch cart update.
+ * A list of these is sent to POST /api/cart/batch to change several
+ * cart lines in a single request.
+ */
+@Getter
+@Setter
+public class CartLineRequest {
+    /**
+     * The ID of the book whose cart line changes.
+     */
+    private Long bookId;
+
+    /**
+     * The change in quantity: positive adds copies, negative removes them.
+     * A line whose quantity drops to zero or below is removed from the cart.
+     */
+    private int delta;
+}
@@ -0,0 +1,11 @@
+package com.pinawin.bookstore.DTO;
+
+/**
+ * One entry of the category navigation: a normalized category with its book counts.
+ * @param key Normalized category used for exact filtering (lower-case, accents and extra spaces removed).
+ * @param label Category name as written on the first book indexed under it.
+ * @param count Number of books in the category.
+ * @param inStock Number of those books with stock left.
+ */
+public record CategoryFacet(String key, String label, int count, int inStock) {
+}
@@ -0,0 +1,12 @@
+package com.pinawin.bookstore.DTO;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales of one category over a period.
+ * @param category Category name as recorded at the time of sale.
+ * @param units Number of units sold.
+ * @param revenue Revenue of those units, at the prices paid.
+ */
+public record CategorySales(String category, long units, BigDecimal revenue) {
+}
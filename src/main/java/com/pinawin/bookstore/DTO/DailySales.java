@@ -0,0 +1,13 @@
+package com.pinawin.bookstore.DTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales of the whole store on one day (UTC).
+ * @param day The day.
+ * @param units Number of units sold.
+ * @param revenue Revenue of those units, at the prices paid.
+ */
+public record DailySales(LocalDate day, long units, BigDecimal revenue) {
+}
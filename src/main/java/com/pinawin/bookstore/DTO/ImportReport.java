@@ -0,0 +1,72 @@
+package com.pinawin.bookstore.DTO;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object describing the progress or outcome of a bulk catalog import.
+ */
+@Getter
+public class ImportReport {
+
+    /**
+     * True while the import is still reading rows.
+     */
+    private final boolean running;
+
+    /**
+     * Number of data rows read so far (valid or not).
+     */
+    private final long processed;
+
+    /**
+     * Number of books created.
+     */
+    private final long inserted;
+
+    /**
+     * Number of existing books (matched by ISBN) that were overwritten.
+     */
+    private final long updated;
+
+    /**
+     * Number of rows rejected by validation or by the database.
+     */
+    private final long failed;
+
+    /**
+     * Time spent on the import so far.
+     */
+    private final long elapsedMillis;
+
+    /**
+     * Average number of rows processed per second.
+     */
+    private final long rowsPerSecond;
+
+    /**
+     * The first rejected rows and why they were rejected (capped; see {@link #failed} for the total).
+     */
+    private final List<RowError> errors;
+
+    public ImportReport(boolean running, long processed, long inserted, long updated, long failed,
+                        long elapsedMillis, List<RowError> errors) {
+        this.running = running;
+        this.processed = processed;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.failed = failed;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = elapsedMillis == 0 ? processed : processed * 1000 / elapsedMillis;
+        this.errors = errors;
+    }
+
+    /**
+     * A rejected row.
+     * @param row The 1-based data row (CSV record or NDJSON line) that was rejected.
+     * @param message Why it was rejected.
+     */
+    public record RowError(long row, String message) {
+    }
+}
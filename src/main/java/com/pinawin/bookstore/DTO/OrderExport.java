@@ -0,0 +1,31 @@
+package com.pinawin.bookstore.DTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One order of the admin order export, written as one NDJSON line.
+ * @param orderId Primary key of the order.
+ * @param userId Primary key of the customer.
+ * @param userName User name of the customer.
+ * @param status Current status of the order.
+ * @param totalAmount Total cost of the order.
+ * @param items The order's line items.
+ */
+public record OrderExport(Long orderId,
+                          Long userId,
+                          String userName,
+                          String status,
+                          BigDecimal totalAmount,
+                          List<Item> items) {
+
+    /**
+     * One line item of an exported order.
+     * @param bookId Primary key of the ordered book.
+     * @param bookTitle Current title of the book.
+     * @param quantity Number of units ordered.
+     * @param price Price per unit at the time of purchase.
+     */
+    public record Item(Long bookId, String bookTitle, int quantity, BigDecimal price) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.pinawin.bookstore.DTO;
+
+import com.pinawin.bookstore.models.OrderStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * Flat projection of one order item joined with its order and book title.
+ * Rows are grouped by order id in the service layer to build OrderResponse DTOs
+ * without loading any entities.
+ * @param orderId Primary key of the order.
+ * @param status Current status of the order.
+ * @param totalAmount Total cost of the order.
+ * @param bookTitle Title of the ordered book.
+ * @param quantity Number of units ordered.
+ * @param price Price per unit at the time of purchase.
+ */
+public record OrderLine(Long orderId,
+                        OrderStatus status,
+                        BigDecimal totalAmount,
+                        String bookTitle,
+                        int quantity,
+                        BigDecimal price) {
+}
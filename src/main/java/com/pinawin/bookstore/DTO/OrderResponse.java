@@ -1,5 +1,6 @@
 package com.pinawin.bookstore.DTO;
 
+import com.pinawin.bookstore.models.Order;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -51,5 +52,17 @@ public class OrderResponse {
         this.totalAmount = totalAmount;
         this.items = items;
     }
-}
 
+    /**
+     * Builds the response for an order whose items and books are already loaded,
+     * such as the order just placed by a checkout.
+     * @param order The order entity.
+     * @return The response with one item per order line.
+     */
+    public static OrderResponse from(Order order) {
+        List<OrderItemResponse> items = order.getOrderItems().stream()
+                .map(item -> new OrderItemResponse(item.getBook().getTitle(), item.getQuantity(), item.getPrice()))
+                .toList();
+        return new OrderResponse(order.getId(), order.getStatus().name(), order.getTotalAmount(), items);
+    }
+}
@@ -0,0 +1,45 @@
+package com.pinawin.bookstore.DTO;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Data Transfer Object for offset-based pagination.
+ * Keeps the fields of a Spring Data Page that the frontend reads and drops the
+ * nested pageable and sort structures that would otherwise be serialized with every page.
+ * @param content The items contained in this page.
+ * @param number Zero-based index of this page.
+ * @param size Requested page size.
+ * @param totalElements Number of items across all pages.
+ * @param totalPages Number of pages.
+ * @param first Whether this is the first page.
+ * @param last Whether this is the last page.
+ * @param <T> The type of the items in the page.
+ */
+public record PageResponse<T>(List<T> content,
+                              int number,
+                              int size,
+                              long totalElements,
+                              int totalPages,
+                              boolean first,
+                              boolean last) {
+
+    /**
+     * Converts a page, mapping each of its items.
+     * @param page The page to convert.
+     * @param mapper Converts one item to its response.
+     * @return The page response.
+     */
+    public static <S, T> PageResponse<T> of(Page<S> page, Function<? super S, ? extends T> mapper) {
+        return new PageResponse<>(
+                page.getContent().stream().<T>map(mapper).toList(),
+                page.getNumber(),
+                page.getSize(),
+                page.getTotalElements(),
+                page.getTotalPages(),
+                page.isFirst(),
+                page.isLast());
+    }
+}
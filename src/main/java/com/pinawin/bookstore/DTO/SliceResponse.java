@@ -0,0 +1,52 @@
+package com.pinawin.bookstore.DTO;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Data Transfer Object for cursor-based (keyset) pagination.
+ * Unlike a Spring Data Page, it carries no total count; instead it exposes an
+ * opaque continuation token that the client sends back to fetch the next slice.
+ * @param <T> The type of the items in the slice.
+ */
+@Getter
+public class SliceResponse<T> {
+
+    /**
+     * The items contained in this slice.
+     */
+    private final List<T> content;
+
+    /**
+     * Whether more items exist after this slice.
+     */
+    private final boolean hasNext;
+
+    /**
+     * Opaque token identifying the position after the last item, or null when this is the last slice.
+     */
+    private final String nextCursor;
+
+    /**
+     * Constructs a new SliceResponse.
+     * @param content Items in this slice.
+     * @param hasNext True if another slice follows.
+     * @param nextCursor Continuation token for the next slice (null if none).
+     */
+    public SliceResponse(List<T> content, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Converts the items of this slice, keeping its position.
+     * @param mapper Converts one item to its response.
+     * @return A slice of the converted items with the same continuation token.
+     */
+    public <R> SliceResponse<R> map(Function<? super T, ? extends R> mapper) {
+        return new SliceResponse<>(content.stream().<R>map(mapper).toList(), hasNext, nextCursor);
+    }
+}
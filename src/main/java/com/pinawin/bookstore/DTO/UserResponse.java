@@ -0,0 +1,22 @@
+package com.pinawin.bookstore.DTO;
+
+import com.pinawin.bookstore.models.User;
+
+/**
+ * Public view of a user account, returned after registration.
+ * Leaves out the password hash and the order and cart associations.
+ * @param id Primary key of the user.
+ * @param userName Login name.
+ * @param email Email address.
+ * @param role Granted role (e.g. ROLE_USER).
+ */
+public record UserResponse(Long id, String userName, String email, String role) {
+
+    /**
+     * @param user The user entity.
+     * @return The response for the user.
+     */
+    public static UserResponse from(User user) {
+        return new UserResponse(user.getId(), user.getUsername(), user.getEmail(), user.getRole());
+    }
+}
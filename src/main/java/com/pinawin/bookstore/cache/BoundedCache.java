@@ -0,0 +1,203 @@
+package com.pinawin.bookstore.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Small in-process read-through cache with LRU eviction.
+ * Entries are bounded by count, by an estimated memory weight and by a time-to-live.
+ * Loading happens outside the lock; a load that overlaps an invalidation is
+ * returned to its caller but not stored, so invalidations are never undone by a stale load.
+ * @param <K> The key type.
+ * @param <V> The value type (null values are never cached).
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final ToLongFunction<V> weigher;
+    private final Clock clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+
+    // Bumped on every invalidation to discard loads that started before it
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache using the system clock.
+     * @param maxEntries Maximum number of entries.
+     * @param maxWeight Maximum total weight (estimated bytes) of all entries.
+     * @param ttl Time after which an entry expires.
+     * @param weigher Estimates the memory footprint of a value.
+     */
+    public BoundedCache(int maxEntries, long maxWeight, Duration ttl, ToLongFunction<V> weigher) {
+        this(maxEntries, maxWeight, ttl, weigher, Clock.systemUTC());
+    }
+
+    BoundedCache(int maxEntries, long maxWeight, Duration ttl, ToLongFunction<V> weigher, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttl.toMillis();
+        this.weigher = weigher;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the cached value for a key, loading and caching it on a miss.
+     * @param key The key to look up.
+     * @param loader Computes the value on a miss; may return null (not cached).
+     * @return The cached or freshly loaded value, or null if the loader returned null.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long observedGeneration;
+
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now()) {
+                    hits.increment();
+                    return entry.value;
+                }
+                remove(key, entry);
+                evictions.increment();
+            }
+            observedGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        misses.increment();
+        V value = loader.apply(key);
+
+        if (value != null) {
+            put(key, value, observedGeneration);
+        }
+        return value;
+    }
+
+    /**
+     * Removes a single entry.
+     * @param key The key to invalidate.
+     */
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            generation++;
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                remove(key, entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every entry matching a predicate.
+     * @param predicate Receives each key and value; returns true to remove the entry.
+     */
+    public void invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        lock.lock();
+        try {
+            generation++;
+            Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, Entry<V>> next = iterator.next();
+                if (predicate.test(next.getKey(), next.getValue().value)) {
+                    weight -= next.getValue().weight;
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generation++;
+            entries.clear();
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return A snapshot of the hit, miss and eviction counters and the current size.
+     */
+    public CacheStats stats() {
+        lock.lock();
+        try {
+            return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), weight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(K key, V value, long observedGeneration) {
+        long entryWeight = weigher.applyAsLong(value);
+
+        lock.lock();
+        try {
+            // An invalidation ran while we were loading: the value may already be stale
+            if (generation != observedGeneration || entryWeight > maxWeight) {
+                return;
+            }
+
+            Entry<V> previous = entries.get(key);
+            if (previous != null) {
+                remove(key, previous);
+            }
+
+            entries.put(key, new Entry<>(value, entryWeight, now() + ttlMillis));
+            weight += entryWeight;
+
+            // Evict least recently used entries until both limits hold again
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+                Map.Entry<K, Entry<V>> victim = eldest.next();
+                weight -= victim.getValue().weight;
+                eldest.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(K key, Entry<V> entry) {
+        entries.remove(key);
+        weight -= entry.weight;
+    }
+
+    private long now() {
+        return clock.millis();
+    }
+
+    private record Entry<V>(V value, long weight, long expiresAt) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.pinawin.bookstore.cache;
+
+/**
+ * Point-in-time statistics of a {@link BoundedCache}.
+ * @param hits Number of lookups served from the cache.
+ * @param misses Number of lookups that had to call the loader.
+ * @param evictions Number of entries removed because of size, weight or TTL limits.
+ * @param size Current number of entries.
+ * @param weight Current estimated memory footprint of the entries, in bytes.
+ */
+public record CacheStats(long hits, long misses, long evictions, int size, long weight) {
+
+    /**
+     * @return The fraction of lookups served from the cache (0 when there were none).
+     */
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
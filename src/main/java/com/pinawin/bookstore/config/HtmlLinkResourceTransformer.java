@@ -0,0 +1,49 @@
+package com.pinawin.bookstore.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.Resource;
+import org.springframework.web.servlet.resource.ResourceTransformerChain;
+import org.springframework.web.servlet.resource.ResourceTransformerSupport;
+import org.springframework.web.servlet.resource.TransformedResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rewrites the stylesheet and script links of the static HTML pages to their
+ * content-hashed URLs (e.g. js/book.js -> js/book-5f1c...e2.js), the HTML
+ * counterpart of Spring's CssLinkResourceTransformer. Because a changed file
+ * gets a new URL, the assets themselves can be cached by browsers indefinitely.
+ */
+public class HtmlLinkResourceTransformer extends ResourceTransformerSupport {
+
+    private static final Pattern LINK = Pattern.compile("(href|src)=\"([^\":]+\\.(?:css|js))\"");
+
+    @Override
+    public Resource transform(HttpServletRequest request, Resource resource, ResourceTransformerChain chain)
+            throws IOException {
+
+        resource = chain.transform(request, resource);
+
+        String filename = resource.getFilename();
+        if (filename == null || !filename.endsWith(".html")) {
+            return resource;
+        }
+
+        String html = resource.getContentAsString(StandardCharsets.UTF_8);
+        Matcher matcher = LINK.matcher(html);
+        StringBuilder result = new StringBuilder(html.length());
+
+        while (matcher.find()) {
+            // Links that cannot be resolved (e.g. missing files) are left untouched
+            String versioned = resolveUrlPath(matcher.group(2), request, resource, chain);
+            String link = versioned != null ? versioned : matcher.group(2);
+            matcher.appendReplacement(result, Matcher.quoteReplacement(matcher.group(1) + "=\"" + link + "\""));
+        }
+        matcher.appendTail(result);
+
+        return new TransformedResource(resource, result.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,6 +1,10 @@
 package com.pinawin.bookstore.config;
 
+import com.pinawin.bookstore.services.AuthTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -12,6 +16,9 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.time.Duration;
 
 /**
  * Configuration class for Spring Security.
@@ -25,11 +32,30 @@ public class SecurityConfig {
      /**
      * Defines the password hashing algorithm.
      * BCrypt is used to securely hash passwords before storing them in the database.
-     * @return a BCryptPasswordEncoder instance.
+     * Unless a cost is configured, it is calibrated at startup to the target hashing time,
+     * and hashing runs on a bounded pool of threads rather than on the request threads.
+     * Stored hashes with a lower cost are rehashed on the user's next successful login
+     * (see CustomUserDetailsService.updatePassword).
+     * @param strength Fixed BCrypt cost (bookstore.security.bcrypt.strength); 0 to calibrate.
+     * @param targetTime Hashing time to calibrate for (bookstore.security.bcrypt.target-time).
+     * @param minStrength Lowest calibrated cost (bookstore.security.bcrypt.min-strength).
+     * @param maxStrength Highest calibrated cost (bookstore.security.bcrypt.max-strength).
+     * @param threads Hashing threads (bookstore.security.hashing.threads); 0 for half the cores.
+     * @param queueCapacity Hashes allowed to wait before logins get 503 (bookstore.security.hashing.queue-capacity).
+     * @param meterRegistry Registry for the hashing queue metrics.
+     * @return a BoundedPasswordEncoder wrapping a BCryptPasswordEncoder.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${bookstore.security.bcrypt.strength:0}") int strength,
+                                           @Value("${bookstore.security.bcrypt.target-time:100ms}") Duration targetTime,
+                                           @Value("${bookstore.security.bcrypt.min-strength:10}") int minStrength,
+                                           @Value("${bookstore.security.bcrypt.max-strength:14}") int maxStrength,
+                                           @Value("${bookstore.security.hashing.threads:0}") int threads,
+                                           @Value("${bookstore.security.hashing.queue-capacity:64}") int queueCapacity,
+                                           MeterRegistry meterRegistry) {
+        int cost = strength > 0 ? strength : BoundedPasswordEncoder.calibrateStrength(targetTime, minStrength, maxStrength);
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(cost), poolSize, queueCapacity, meterRegistry);
     }
 
     /**
@@ -50,12 +76,21 @@ public class SecurityConfig {
      * Configures the Security Filter Chain.
      * Defines which URLs are protected, manages session policies, 
      * handles CSRF, and customizes the logout behavior.
+     * In token mode (bookstore.auth.mode=token) no session is created: every request
+     * is authenticated from its signed token by the TokenAuthenticationFilter.
      * @param http the HttpSecurity object to configure.
+     * @param authTokenService Present only in token mode.
+     * @param managementPort The actuator port (management.server.port); the Prometheus scrape
+     *                       is only served without a login on that port.
      * @return the built SecurityFilterChain.
      * @throws Exception if configuration fails.
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   ObjectProvider<AuthTokenService> authTokenService,
+                                                   @Value("${management.server.port:-1}") int managementPort) throws Exception {
+        AuthTokenService tokens = authTokenService.getIfAvailable();
+
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
@@ -63,6 +98,11 @@ public class SecurityConfig {
                         .requestMatchers("/", "/index.html", "/books.html", "/login.html", "/register.html").permitAll()
                         .requestMatchers("/css/**", "/js/**").permitAll()
                         .requestMatchers("/api/books/**", "/api/auth/**").permitAll()
+                        // Health checks do not log in
+                        .requestMatchers("/actuator/health").permitAll()
+                        // Neither does the Prometheus scraper, but only on the internal management port
+                        .requestMatchers(request -> request.getLocalPort() == managementPort
+                                && "/actuator/prometheus".equals(request.getRequestURI())).permitAll()
 
                         // 2. ADMIN ENDPOINTS: Strictly restricted to the ADMIN role
                         .requestMatchers("/admin.html").hasRole("ADMIN")
@@ -108,17 +148,25 @@ public class SecurityConfig {
                         })
                         // Destroys the server-side session
                         .invalidateHttpSession(true)
-                        // Clears the browser session cookie
-                        .deleteCookies("JSESSIONID")
+                        // Clears the browser session cookie, or the token cookie in token mode
+                        .deleteCookies("JSESSIONID", AuthTokenService.COOKIE_NAME)
                         // Wipes the security context
                         .clearAuthentication(true)
-                )
-                
-                .sessionManagement(session -> session
-                        .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED) // Create session if needed
-                        .maximumSessions(1)
                 );
 
+        if (tokens == null) {
+            http.sessionManagement(session -> session
+                    .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED) // Create session if needed
+                    .maximumSessions(1)
+            );
+        } else {
+            // Stateless: any node can verify the token, so no session store is shared between nodes
+            http.sessionManagement(session -> session
+                            .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                    )
+                    .addFilterBefore(new TokenAuthenticationFilter(tokens), UsernamePasswordAuthenticationFilter.class);
+        }
+
         return http.build();
     }
 }
@@ -0,0 +1,63 @@
+package com.pinawin.bookstore.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
+
+/**
+ * Serves the static frontend (replacing Spring Boot's default resource mapping,
+ * see spring.web.resources.add-mappings).
+ * Stylesheets and scripts are addressed by content-hashed URLs and served with
+ * immutable, long-lived cache headers, using the gzip/brotli variants written at
+ * build time when the client accepts them. HTML pages are always revalidated so
+ * that they pick up new asset URLs after a deployment.
+ */
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    private static final String STATIC_LOCATION = "classpath:/static/";
+
+    private final Duration assetMaxAge;
+
+    /**
+     * @param assetMaxAge Cache lifetime of content-hashed assets (bookstore.http.assets.max-age).
+     */
+    public StaticResourceConfig(@Value("${bookstore.http.assets.max-age:365d}") Duration assetMaxAge) {
+        this.assetMaxAge = assetMaxAge;
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // 1. ASSETS: /css/style-<md5>.css and /js/book-<md5>.js never change, so they are cached for good
+        // Each directory gets its own handler, so /css/** never resolves a file from js/ or the reverse
+        addAssetHandler(registry, "css");
+        addAssetHandler(registry, "js");
+
+        // 2. PAGES: revalidated on every load, with their asset links rewritten to the hashed URLs
+        registry.addResourceHandler("/**")
+                .addResourceLocations(STATIC_LOCATION)
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(true)
+                .addResolver(versionResolver())
+                .addTransformer(new HtmlLinkResourceTransformer());
+    }
+
+    private void addAssetHandler(ResourceHandlerRegistry registry, String directory) {
+        registry.addResourceHandler("/" + directory + "/**")
+                .addResourceLocations(STATIC_LOCATION + directory + "/")
+                .setCacheControl(CacheControl.maxAge(assetMaxAge).cachePublic().immutable())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(versionResolver());
+    }
+
+    private static VersionResourceResolver versionResolver() {
+        return new VersionResourceResolver().addContentVersionStrategy("/**");
+    }
+}
@@ -1,13 +1,34 @@
 package com.pinawin.bookstore.controller;
 
+import com.pinawin.bookstore.DTO.BookResponse;
+import com.pinawin.bookstore.DTO.ImportReport;
 import com.pinawin.bookstore.DTO.RegisterRequest;
+import com.pinawin.bookstore.DTO.UserResponse;
+import com.pinawin.bookstore.cache.CacheStats;
 import com.pinawin.bookstore.models.Book;
 import com.pinawin.bookstore.models.User;
-import com.pinawin.bookstore.repositories.BookRepository;
+import com.pinawin.bookstore.services.BookCatalogCache;
+import com.pinawin.bookstore.services.BookImportService;
+import com.pinawin.bookstore.services.BookService;
+import com.pinawin.bookstore.services.OrderExportService;
 import com.pinawin.bookstore.services.UserService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 
 /**
@@ -20,24 +41,37 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/admin")
 public class AdminController {
 
-    private final BookRepository bookRepository;
+    private final BookService bookService;
     private final UserService userService;
+    private final BookCatalogCache bookCatalogCache;
+    private final BookImportService bookImportService;
+    private final OrderExportService orderExportService;
 
     /**
-     * Constructor-based dependency injection for required repositories and services.
-     * @param bookRepository The data access object for Book entities.
+     * Constructor-based dependency injection for required services.
+     * @param bookService The service handling catalog persistence and indexing.
      * @param userService The service handling user logic and role assignment.
+     * @param bookCatalogCache The catalog cache whose statistics are exposed to admins.
+     * @param bookImportService The service handling bulk catalog imports.
+     * @param orderExportService The service streaming the order export.
      */
-    public AdminController(BookRepository bookRepository, UserService userService) {
-        this.bookRepository = bookRepository;
+    public AdminController(BookService bookService,
+                           UserService userService,
+                           BookCatalogCache bookCatalogCache,
+                           BookImportService bookImportService,
+                           OrderExportService orderExportService) {
+        this.bookService = bookService;
         this.userService = userService;
+        this.bookCatalogCache = bookCatalogCache;
+        this.bookImportService = bookImportService;
+        this.orderExportService = orderExportService;
     }
 
     /**
      * Persists a new book entity to the catalog.
      * Maps to POST /api/admin/books.
      * @param book The Book model containing title, author, price, and stock data.
-     * @return A ResponseEntity containing the successfully persisted Book.
+     * @return A ResponseEntity containing the successfully persisted book.
      */
     @PostMapping("/books")
     public ResponseEntity<?> addBook(@RequestBody Book book) {
@@ -52,23 +86,94 @@ public class AdminController {
 
         try {
             // 2. Persistence
-            Book savedBook = bookRepository.save(book);
-            return ResponseEntity.ok(savedBook); // Returns <Book>
+            Book savedBook = bookService.saveBook(book);
+            return ResponseEntity.ok(BookResponse.from(savedBook)); // Returns <BookResponse>
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error saving book: " + e.getMessage()); // Returns <String>
         }
     }
 
+    /**
+     * Imports a supplier feed of books, creating new books and updating the supplied columns of existing ones matched by ISBN.
+     * The body is streamed, so feeds of any size can be sent in one request.
+     * Maps to POST /api/admin/books/import with Content-Type text/csv or application/x-ndjson.
+     * @param contentType Selects the parser (and the charset, UTF-8 by default).
+     * @param body The raw request body.
+     * @return A ResponseEntity containing the ImportReport with counts and rejected rows.
+     */
+    @PostMapping(value = "/books/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                         InputStream body) throws IOException {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        Reader reader = new InputStreamReader(body, mediaType.getCharset() != null
+                ? mediaType.getCharset()
+                : StandardCharsets.UTF_8);
+
+        try {
+            ImportReport report = mediaType.isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                    ? bookImportService.importCsv(reader)
+                    : bookImportService.importNdjson(reader);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Reports the progress of the running bulk import, or the outcome of the last one.
+     * Maps to GET /api/admin/books/import.
+     * @return A ResponseEntity containing the ImportReport, or 204 if no import has run yet.
+     */
+    @GetMapping("/books/import")
+    public ResponseEntity<ImportReport> importProgress() {
+        return bookImportService.latestReport()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    /**
+     * Streams every order with its line items as a file download, for accounting.
+     * Rows are written to the response as they are read from the database, so the
+     * export runs in constant memory whatever the number of orders.
+     * Maps to GET /api/admin/orders/export?format=ndjson (one order per line, the default)
+     * or ?format=csv (one record per line item).
+     * @param format "ndjson" or "csv".
+     * @param response The response the export is written to.
+     * @throws ResponseStatusException 400 Bad Request for an unknown format.
+     */
+    @GetMapping("/orders/export")
+    public void exportOrders(@RequestParam(defaultValue = "ndjson") String format,
+                             HttpServletResponse response) throws IOException {
+        boolean csv = format.equalsIgnoreCase("csv");
+        if (!csv && !format.equalsIgnoreCase("ndjson")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format: " + format);
+        }
+
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(csv ? "orders.csv" : "orders.ndjson").build().toString());
+
+        Writer writer = new BufferedWriter(response.getWriter(), 64 * 1024);
+        if (csv) {
+            orderExportService.exportCsv(writer);
+        } else {
+            orderExportService.exportNdjson(writer);
+        }
+    }
+
     /**
      * Facilitates the creation of new user accounts from an administrative context,
      * allowing for explicit role assignment (e.g., creating additional admins).
      * Maps to POST /api/admin/users.
      * @param request The DTO containing username, email, password, and the target role.
-     * @return A ResponseEntity containing the newly created User entity.
+     * @return A ResponseEntity containing the newly created account, without its password hash.
      */
     @PostMapping("/users")
-    public ResponseEntity<User> registerUserByAdmin(@RequestBody RegisterRequest request) {
+    public ResponseEntity<UserResponse> registerUserByAdmin(@RequestBody RegisterRequest request) {
         // Maps DTO fields to the specialized UserService registration logic
         User newUser = userService.register(
                 request.getUserName(),
@@ -77,6 +182,19 @@ public class AdminController {
                 request.getRole()
         );
 
-        return ResponseEntity.ok(newUser);
+        return ResponseEntity.ok(UserResponse.from(newUser));
+    }
+
+    /**
+     * Reports hit, miss and eviction statistics of the catalog cache regions.
+     * Maps to GET /api/admin/cache/stats.
+     * @return A map of region name ("books", "pages") to its statistics.
+     */
+    @GetMapping("/cache/stats")
+    public Map<String, CacheStats> cacheStats() {
+        return Map.of(
+                "books", bookCatalogCache.bookStats(),
+                "pages", bookCatalogCache.pageStats()
+        );
     }
-}
\ No newline at end of file
+}
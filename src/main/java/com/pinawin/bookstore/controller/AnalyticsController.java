@@ -0,0 +1,78 @@
+package com.pinawin.bookstore.controller;
+
+import com.pinawin.bookstore.services.SalesRollup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Sales analytics for administrators, restricted to ROLE_ADMIN through the /api/admin/** rule
+ * in SecurityConfig. Every answer is read from the in-memory SalesRollup, so none of these
+ * endpoints touches the order tables.
+ * Periods are given as a number of days ending today (UTC); omitting them means all time
+ * where supported.
+ */
+@RestController
+@RequestMapping("/api/admin/analytics")
+public class AnalyticsController {
+
+    private final SalesRollup salesRollup;
+
+    /**
+     * Constructor-based dependency injection.
+     * @param salesRollup The in-memory sales aggregates.
+     */
+    public AnalyticsController(SalesRollup salesRollup) {
+        this.salesRollup = salesRollup;
+    }
+
+    /**
+     * Lists the best-selling books by units sold.
+     * Maps to GET /api/admin/analytics/bestsellers?days=7&limit=20.
+     * @param days The period in days, or all time if omitted.
+     * @param limit The maximum number of books (1 to 100).
+     * @return A ResponseEntity containing the BookSales list, or 400 for an invalid period or limit.
+     */
+    @GetMapping("/bestsellers")
+    public ResponseEntity<?> bestsellers(@RequestParam(required = false) Integer days,
+                                         @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(salesRollup.bestsellers(days, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Breaks units and revenue down by category, highest revenue first.
+     * Maps to GET /api/admin/analytics/categories?days=30.
+     * @param days The period in days, or all time if omitted.
+     * @return A ResponseEntity containing the CategorySales list, or 400 for an invalid period.
+     */
+    @GetMapping("/categories")
+    public ResponseEntity<?> categories(@RequestParam(required = false) Integer days) {
+        try {
+            return ResponseEntity.ok(salesRollup.categories(days));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Reports units and revenue per day, oldest first.
+     * Maps to GET /api/admin/analytics/daily?days=30.
+     * @param days The number of days, ending today.
+     * @return A ResponseEntity containing the DailySales list, or 400 for an invalid period.
+     */
+    @GetMapping("/daily")
+    public ResponseEntity<?> daily(@RequestParam(defaultValue = "30") int days) {
+        try {
+            return ResponseEntity.ok(salesRollup.daily(days));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
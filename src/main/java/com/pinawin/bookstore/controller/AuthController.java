@@ -2,10 +2,16 @@ package com.pinawin.bookstore.controller;
 
 import com.pinawin.bookstore.DTO.LoginRequest;
 import com.pinawin.bookstore.DTO.RegisterRequest;
-import com.pinawin.bookstore.models.User;
+import com.pinawin.bookstore.DTO.UserResponse;
+import com.pinawin.bookstore.models.UserPrincipal;
+import com.pinawin.bookstore.services.AuthTokenService;
 import com.pinawin.bookstore.services.UserService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -24,37 +30,47 @@ public class AuthController {
 
     private final UserService userService;
     private final AuthenticationManager authenticationManager;
+    private final AuthTokenService authTokenService;
 
-    public AuthController(UserService userService, AuthenticationManager authenticationManager) {
+    /**
+     * @param authTokenService Provides the token service in token mode; empty in session mode.
+     */
+    public AuthController(UserService userService, AuthenticationManager authenticationManager,
+                          ObjectProvider<AuthTokenService> authTokenService) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
+        this.authTokenService = authTokenService.getIfAvailable();
     }
 
     /**
      * Registers a new user account in the system.
      * @param request Data Transfer Object containing username, email, and password.
-     * @return The newly created User entity.
+     * @return The newly created account, without its password hash.
      */
     @PostMapping("/register")
-    public User register(@RequestBody RegisterRequest request) {
-        return userService.register(
+    public UserResponse register(@RequestBody RegisterRequest request) {
+        return UserResponse.from(userService.register(
                 request.getUserName(),
                 request.getEmail(),
                 request.getPassword(),
                 request.getRole()
-        );
+        ));
     }
 
     /**
      * Authenticates a user and establishes a server-side session.
      * This method manually triggers the Spring Security authentication provider.
+     * In token mode no session is created; instead a signed token is returned in an
+     * HttpOnly cookie for browsers and in the X-Auth-Token header for API clients.
      * @param request DTO containing login credentials.
      * @param httpRequest The servlet request used to initialize the HTTP session.
-     * @return The authenticated User principal.
+     * @param httpResponse The servlet response receiving the token in token mode.
+     * @return The authenticated user's principal (id, user name and role).
      */
     @PostMapping("/login")
-    public User login(@RequestBody LoginRequest request,
-                      HttpServletRequest httpRequest) {
+    public UserPrincipal login(@RequestBody LoginRequest request,
+                               HttpServletRequest httpRequest,
+                               HttpServletResponse httpResponse) {
 
         // Create an unauthenticated token with the provided credentials
         UsernamePasswordAuthenticationToken token =
@@ -65,14 +81,33 @@ public class AuthController {
 
         // Authenticate the user against the CustomUserDetailsService and PasswordEncoder
         Authentication auth = authenticationManager.authenticate(token);
-        
+
+        // Keep only the lightweight principal, without its password hash, in the session
+        UserPrincipal principal = ((UserPrincipal) auth.getPrincipal()).withoutPassword();
+
+        // Token mode: hand the client a signed token instead of a session
+        if (authTokenService != null) {
+            String signed = authTokenService.issue(principal);
+            ResponseCookie cookie = ResponseCookie.from(AuthTokenService.COOKIE_NAME, signed)
+                    .httpOnly(true)
+                    .secure(httpRequest.isSecure())
+                    .sameSite("Lax")
+                    .path("/")
+                    .maxAge(authTokenService.ttl())
+                    .build();
+            httpResponse.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+            httpResponse.setHeader(AuthTokenService.HEADER_NAME, signed);
+            return principal;
+        }
+
         // Store the authentication object in the SecurityContext for the current thread
-        SecurityContextHolder.getContext().setAuthentication(auth);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
 
         // Explicitly create a new session to persist the authentication between requests
         httpRequest.getSession(true); 
 
-        return (User) auth.getPrincipal();
+        return principal;
     }
 
     /**
@@ -1,15 +1,29 @@
 package com.pinawin.bookstore.controller;
 
-import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.DTO.BookResponse;
+import com.pinawin.bookstore.DTO.CategoryFacet;
+import com.pinawin.bookstore.DTO.PageResponse;
+import com.pinawin.bookstore.DTO.SliceResponse;
 import com.pinawin.bookstore.services.BookService;
-import org.springframework.data.domain.Page;
+import com.pinawin.bookstore.services.CatalogVersion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
 
 
 /**
  * REST Controller for managing book-related operations.
  * This controller provides the entry points for browsing the catalog, 
  * searching by title, and filtering by category. 
+ * Every response carries the catalog version as a weak ETag, so clients can
+ * revalidate with If-None-Match and get 304 Not Modified while nothing changed.
  */
 @RestController
 @RequestMapping("/api/books")
@@ -17,13 +31,22 @@ import org.springframework.web.bind.annotation.*;
 public class BookController {
 
     private final BookService bookService;
+    private final CatalogVersion catalogVersion;
+    private final CacheControl cacheControl;
 
     /**
      * Constructor-based dependency injection for BookService.
      * @param bookService The service layer handling book business logic.
+     * @param catalogVersion The catalog version used as the ETag of every response.
+     * @param maxAge How long clients may reuse a response without revalidating
+     *               (bookstore.http.catalog.max-age); zero means revalidate every time.
      */
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService,
+                          CatalogVersion catalogVersion,
+                          @Value("${bookstore.http.catalog.max-age:0s}") Duration maxAge) {
         this.bookService = bookService;
+        this.catalogVersion = catalogVersion;
+        this.cacheControl = maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge).mustRevalidate();
     }
 
     /**
@@ -31,12 +54,14 @@ public class BookController {
      * Maps to GET /api/books.
      * @param page The zero-based page index to retrieve (defaults to 0).
      * @param size The number of records per page (defaults to 8).
-     * @return A Page object containing a subset of Book entities and pagination metadata.
+     * @param request The current request, used to answer conditional GETs.
+     * @return A page of books and pagination metadata.
      */
     @GetMapping
-    public Page<Book> getAllBooks(@RequestParam(defaultValue = "0") int page,
-                                  @RequestParam(defaultValue = "8") int size) {
-        return bookService.getAllBooks(page, size);
+    public ResponseEntity<PageResponse<BookResponse>> getAllBooks(@RequestParam(defaultValue = "0") int page,
+                                                                  @RequestParam(defaultValue = "8") int size,
+                                                                  WebRequest request) {
+        return conditional(request, () -> bookService.getAllBooks(page, size));
     }
 
     /**
@@ -45,13 +70,15 @@ public class BookController {
      * @param keyword The search term provided by the user.
      * @param page The zero-based page index to retrieve (defaults to 0).
      * @param size The number of records per page (defaults to 8).
-     * @return A Page object of Book entities matching the title search.
+     * @param request The current request, used to answer conditional GETs.
+     * @return A page of books matching the title search.
      */
     @GetMapping("/search")
-    public Page<Book> searchBooks(@RequestParam String keyword,
-                                  @RequestParam(defaultValue = "0") int page,
-                                  @RequestParam(defaultValue = "8") int size) {
-        return bookService.searchBooks(keyword, page, size);
+    public ResponseEntity<PageResponse<BookResponse>> searchBooks(@RequestParam String keyword,
+                                                                  @RequestParam(defaultValue = "0") int page,
+                                                                  @RequestParam(defaultValue = "8") int size,
+                                                                  WebRequest request) {
+        return conditional(request, () -> bookService.searchBooks(keyword, page, size));
     }
 
     /**
@@ -60,14 +87,123 @@ public class BookController {
      * @param category The category name to filter by.
      * @param page The zero-based page index to retrieve (defaults to 0).
      * @param size The number of records per page (defaults to 8).
-     * @return A Page object of Book entities belonging to the specified category.
+     * @param request The current request, used to answer conditional GETs.
+     * @return A page of books belonging to the specified category.
      */
     @GetMapping("/category")
-    public Page<Book> byCategory(@RequestParam("category") String category,
-                                 @RequestParam(defaultValue = "0") int page,
-                                 @RequestParam(defaultValue = "8") int size) {
-        return bookService.filterByCategory(category, page, size);
+    public ResponseEntity<PageResponse<BookResponse>> byCategory(@RequestParam("category") String category,
+                                                                 @RequestParam(defaultValue = "0") int page,
+                                                                 @RequestParam(defaultValue = "8") int size,
+                                                                 WebRequest request) {
+        return conditional(request, () -> bookService.filterByCategory(category, page, size));
     }
 
-}
+    /**
+     * Lists every category with the number of books it holds and how many are in stock.
+     * Maps to GET /api/books/facets.
+     * @param request The current request, used to answer conditional GETs.
+     * @return The category facets, each with the key to use for exact filtering.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<List<CategoryFacet>> getCategoryFacets(WebRequest request) {
+        return conditional(request, () -> bookService.getCategoryFacets());
+    }
+
+    /**
+     * Filters the catalog to exactly one category (case, accents and spacing ignored).
+     * Maps to GET /api/books/category?category=...&exact=true&page=...&size=...
+     * @param category The category name or facet key.
+     * @param page The zero-based page index to retrieve (defaults to 0).
+     * @param size The number of records per page (defaults to 8).
+     * @param request The current request, used to answer conditional GETs.
+     * @return A page of books in the category, ordered by id.
+     */
+    @GetMapping(value = "/category", params = {"exact=true", "!cursor"})
+    public ResponseEntity<PageResponse<BookResponse>> byExactCategory(@RequestParam("category") String category,
+                                                                      @RequestParam(defaultValue = "0") int page,
+                                                                      @RequestParam(defaultValue = "8") int size,
+                                                                      WebRequest request) {
+        return conditional(request, () -> bookService.filterByExactCategory(category, page, size));
+    }
+
+    // --- Cursor (keyset) pagination mode ---
+    // Selected by the presence of the 'cursor' parameter (send it empty for the first slice).
+    // These variants skip the COUNT query and never scan rows of earlier pages.
+
+    /**
+     * Retrieves a slice of all books using keyset pagination.
+     * Maps to GET /api/books?cursor=...&size=...
+     * @param cursor The nextCursor token from the previous slice (empty for the first slice).
+     * @param size The number of records per slice (defaults to 8).
+     * @param request The current request, used to answer conditional GETs.
+     * @return A SliceResponse of books ordered by id.
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<SliceResponse<BookResponse>> getAllBooksSlice(@RequestParam(defaultValue = "") String cursor,
+                                                                        @RequestParam(defaultValue = "8") int size,
+                                                                        WebRequest request) {
+        return conditional(request, () -> bookService.getAllBooksSlice(cursor, size));
+    }
 
+    /**
+     * Searches the catalog using keyset pagination over the relevance ranking.
+     * Maps to GET /api/books/search?keyword=...&cursor=...&size=...
+     * @param keyword The search term provided by the user.
+     * @param cursor The nextCursor token from the previous slice (empty for the first slice).
+     * @param size The number of records per slice (defaults to 8).
+     * @param request The current request, used to answer conditional GETs.
+     * @return A SliceResponse of books ranked by relevance.
+     */
+    @GetMapping(value = "/search", params = "cursor")
+    public ResponseEntity<SliceResponse<BookResponse>> searchBooksSlice(@RequestParam String keyword,
+                                                                        @RequestParam(defaultValue = "") String cursor,
+                                                                        @RequestParam(defaultValue = "8") int size,
+                                                                        WebRequest request) {
+        return conditional(request, () -> bookService.searchBooksSlice(keyword, cursor, size));
+    }
+
+    /**
+     * Filters the catalog by category using keyset pagination on (category, id).
+     * Maps to GET /api/books/category?category=...&cursor=...&size=...
+     * @param category The category name to filter by.
+     * @param cursor The nextCursor token from the previous slice (empty for the first slice).
+     * @param size The number of records per slice (defaults to 8).
+     * @param request The current request, used to answer conditional GETs.
+     * @return A SliceResponse of books belonging to the specified category.
+     */
+    @GetMapping(value = "/category", params = "cursor")
+    public ResponseEntity<SliceResponse<BookResponse>> byCategorySlice(@RequestParam("category") String category,
+                                                                       @RequestParam(defaultValue = "") String cursor,
+                                                                       @RequestParam(defaultValue = "8") int size,
+                                                                       WebRequest request) {
+        return conditional(request, () -> bookService.filterByCategorySlice(category, cursor, size));
+    }
+
+    /**
+     * Answers 304 Not Modified when the client already holds the current catalog version,
+     * before any service or repository call; otherwise builds the response with its validators.
+     * The version is read before the body is built, so a concurrent change can only make the
+     * tag older than the data, never newer. Only the ETag is used to validate: Last-Modified
+     * has one-second resolution and would miss a second change within the same second.
+     * @param request The current request, carrying If-None-Match.
+     * @param body Builds the response body.
+     * @return A 304 response, or a 200 response with ETag, Last-Modified and Cache-Control.
+     */
+    private <T> ResponseEntity<T> conditional(WebRequest request, Supplier<T> body) {
+        String etag = catalogVersion.etag();
+        long lastModified = catalogVersion.lastModified().toEpochMilli();
+
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(lastModified)
+                .cacheControl(cacheControl)
+                .body(body.get());
+    }
+}
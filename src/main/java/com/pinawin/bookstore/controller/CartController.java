@@ -1,12 +1,17 @@
 package com.pinawin.bookstore.controller;
 
+import com.pinawin.bookstore.DTO.CartItemResponse;
+import com.pinawin.bookstore.DTO.CartLineRequest;
 import com.pinawin.bookstore.models.CartItem;
 import com.pinawin.bookstore.models.User;
+import com.pinawin.bookstore.models.UserPrincipal;
 import com.pinawin.bookstore.services.CartService;
+import com.pinawin.bookstore.services.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -20,13 +25,16 @@ import java.util.List;
 public class CartController {
 
     private final CartService cartService;
+    private final UserService userService;
 
     /**
      * Constructor-based dependency injection for CartService.
      * @param cartService The service layer handling cart business logic.
+     * @param userService Resolves the session principal to a User reference.
      */
-    public CartController(CartService cartService) {
+    public CartController(CartService cartService, UserService userService) {
         this.cartService = cartService;
+        this.userService = userService;
     }
 
     /**
@@ -34,7 +42,7 @@ public class CartController {
      * Requires the user to be logged in to access the security principal.
      * @param bookId The ID of the book to be added.
      * @param authentication The current security context injected by Spring Security.
-     * @return ResponseEntity with the saved CartItem or an unauthorized/error status.
+     * @return ResponseEntity with the updated cart line or an unauthorized/error status.
      */
     @PostMapping("/add")
     public ResponseEntity<?> addToCart(
@@ -47,27 +55,53 @@ public class CartController {
         }
 
         try {
-            // 2. Cast the authenticated principal to the User model to associate with the cart item
-            User user = (User) authentication.getPrincipal();
+            // 2. Resolve the authenticated principal to the User model to associate with the cart item
+            User user = userService.getReference((UserPrincipal) authentication.getPrincipal());
             CartItem savedItem = cartService.addToCart(user, bookId);
-            return ResponseEntity.ok(savedItem);
+            return ResponseEntity.ok(CartItemResponse.from(savedItem));
         } catch (Exception e) {
             // Returns a 500 status if the book is not found or a database error occurs
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Could not add to cart");
         }
     }
 
+    /**
+     * Changes several lines of the authenticated user's cart in one request, e.g.
+     * [{"bookId": 1, "delta": 5}, {"bookId": 2, "delta": -1}].
+     * All changes are applied together or not at all.
+     * @param lines The (bookId, delta) pairs to apply.
+     * @param authentication The current security context injected by Spring Security.
+     * @return The resulting cart, 400 Bad Request for an invalid request, or
+     *         409 Conflict if a book lacks the stock for its new quantity.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> updateCart(@RequestBody List<CartLineRequest> lines, Authentication authentication) {
+        User user = userService.getReference((UserPrincipal) authentication.getPrincipal());
+
+        try {
+            return ResponseEntity.ok(cartService.updateCart(user, lines).stream()
+                    .map(CartItemResponse::from)
+                    .toList());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
+        }
+    }
+
     /**
      * Retrieves the list of items currently in the authenticated user's shopping cart.
      * @param authentication The current security context.
-     * @return A list of CartItem entities belonging to the user.
+     * @return The lines of the user's cart with their book details.
      */
     @GetMapping
-    public List<CartItem> viewCart(Authentication authentication) {
+    public List<CartItemResponse> viewCart(Authentication authentication) {
         // Extract the User principal from the security context
-        User user = (User) authentication.getPrincipal();
+        User user = userService.getReference((UserPrincipal) authentication.getPrincipal());
         
-        return cartService.getCart(user);
+        return cartService.getCart(user).stream()
+                .map(CartItemResponse::from)
+                .toList();
     }
 
     /**
@@ -78,7 +112,7 @@ public class CartController {
     @PostMapping("/clear")
     public ResponseEntity<Void> clearCart(Authentication authentication) {
         // 1. Identify the user from the session principal
-        User user = (User) authentication.getPrincipal();
+        User user = userService.getReference((UserPrincipal) authentication.getPrincipal());
 
         // 2. Execute the clear logic in the service layer
         cartService.clearCart(user);
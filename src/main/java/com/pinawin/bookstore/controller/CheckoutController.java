@@ -1,8 +1,11 @@
 package com.pinawin.bookstore.controller;
 
-import com.pinawin.bookstore.models.Order;
+import com.pinawin.bookstore.DTO.OrderResponse;
 import com.pinawin.bookstore.models.User;
+import com.pinawin.bookstore.models.UserPrincipal;
 import com.pinawin.bookstore.services.CheckoutService;
+import com.pinawin.bookstore.services.UserService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -20,28 +23,31 @@ import org.springframework.web.bind.annotation.RestController;
 public class CheckoutController {
 
     private final CheckoutService checkoutService;
+    private final UserService userService;
 
     /**
      * Constructor-based dependency injection for CheckoutService.
      * @param checkoutService The service layer containing the transactional checkout logic.
+     * @param userService Resolves the session principal to a User reference.
      */
-    public CheckoutController(CheckoutService checkoutService) {
+    public CheckoutController(CheckoutService checkoutService, UserService userService) {
         this.checkoutService = checkoutService;
+        this.userService = userService;
     }
 
     /**
      * Processes the checkout for the currently authenticated user.
      * Retrieves the user principal from the security context to identify the cart owner.
      * @param authentication The current security context injected by Spring Security.
-     * @return The finalized Order entity containing order items and total amount.
+     * @return 202 Accepted with the PLACED order; payment and shipping continue in the background.
      */
     @PostMapping
-    public Order checkout(Authentication authentication) {
+    public ResponseEntity<OrderResponse> checkout(Authentication authentication) {
         // Extracts the User object from the session's authentication principal
-        User user = (User) authentication.getPrincipal();
+        User user = userService.getReference((UserPrincipal) authentication.getPrincipal());
 
         // Delegates the transactional business logic to the CheckoutService
-        return checkoutService.checkout(user);
+        return ResponseEntity.accepted().body(OrderResponse.from(checkoutService.checkout(user)));
     }
 }
 
@@ -2,11 +2,15 @@ package com.pinawin.bookstore.controller;
 
 import com.pinawin.bookstore.DTO.OrderResponse;
 import com.pinawin.bookstore.models.User;
+import com.pinawin.bookstore.models.UserPrincipal;
 import com.pinawin.bookstore.services.OrderService;
+import com.pinawin.bookstore.services.UserService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -21,28 +25,42 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final UserService userService;
 
     /**
      * Constructor-based dependency injection for OrderService.
      * @param orderService The service layer handling order data retrieval and mapping.
+     * @param userService Resolves the session principal to a User reference.
      */
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, UserService userService) {
         this.orderService = orderService;
+        this.userService = userService;
     }
 
     /**
-     * Retrieves a list of orders belonging specifically to the currently logged-in user.
+     * Retrieves a page of orders belonging specifically to the currently logged-in user, newest first.
      * Uses the Authentication object to ensure users can only see their own history.
+     * Maps to GET /api/orders?beforeId=...&size=...
      * @param authentication The current security context injected by Spring Security.
-     * @return A list of OrderResponse DTOs containing order details and itemized lists.
+     * @param beforeId The smallest order id already shown; omit for the most recent orders.
+     * @param size The maximum number of orders to return (defaults to 10, at most 100).
+     * @return A ResponseEntity containing the OrderResponse DTOs with order details and itemized lists,
+     *         or 400 Bad Request for a size below one.
      */
     @GetMapping
-    public List<OrderResponse> getMyOrders(Authentication authentication) {
+    public ResponseEntity<?> getMyOrders(Authentication authentication,
+                                         @RequestParam(required = false) Long beforeId,
+                                         @RequestParam(defaultValue = "10") int size) {
         // Extract the User principal from the security context
-        User user = (User) authentication.getPrincipal();
-        
+        User user = userService.getReference((UserPrincipal) authentication.getPrincipal());
+
         // Delegate to the service layer to fetch and map order data
-        return orderService.getOrdersForUser(user);
+        try {
+            List<OrderResponse> orders = orderService.getOrdersForUser(user, beforeId, size);
+            return ResponseEntity.ok(orders);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 }
 
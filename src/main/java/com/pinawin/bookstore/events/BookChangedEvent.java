@@ -0,0 +1,33 @@
+package com.pinawin.bookstore.events;
+
+import com.pinawin.bookstore.models.Book;
+
+import java.util.List;
+
+/**
+ * Application event published whenever one or more catalog entries are
+ * created or modified (e.g., a book added by an admin or stock reduced at checkout).
+ * In-memory catalog structures listen for it to stay consistent with the database.
+ * @param books The books whose persisted state has changed.
+ * @param stockOnly True if only stock levels changed, so no book moved between listings.
+ */
+public record BookChangedEvent(List<Book> books, boolean stockOnly) {
+
+    /**
+     * Creates an event for books created or edited through the catalog.
+     * @param books The saved books.
+     * @return A new BookChangedEvent.
+     */
+    public static BookChangedEvent saved(List<Book> books) {
+        return new BookChangedEvent(books, false);
+    }
+
+    /**
+     * Creates an event for books whose stock level changed.
+     * @param books The books with updated stock.
+     * @return A new BookChangedEvent.
+     */
+    public static BookChangedEvent stockChanged(List<Book> books) {
+        return new BookChangedEvent(books, true);
+    }
+}
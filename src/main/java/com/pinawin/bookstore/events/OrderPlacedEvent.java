@@ -0,0 +1,39 @@
+package com.pinawin.bookstore.events;
+
+import com.pinawin.bookstore.models.Order;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Application event published when checkout has created an order.
+ * The order pipeline listens for it to take the order through payment and shipping
+ * once the checkout transaction has committed, and the sales rollup adds its lines
+ * to the analytics aggregates.
+ * @param orderId The id of the new order, in status PLACED.
+ * @param lines The books sold, captured while the order entities are still loaded.
+ */
+public record OrderPlacedEvent(Long orderId, List<Line> lines) {
+
+    /**
+     * Creates the event for a saved order.
+     * @param order The persisted order, with its items and their books.
+     * @return A new OrderPlacedEvent.
+     */
+    public static OrderPlacedEvent of(Order order) {
+        return new OrderPlacedEvent(order.getId(), order.getOrderItems().stream()
+                .map(item -> new Line(item.getBook().getId(), item.getBook().getCategory(),
+                        item.getQuantity(), item.getPrice()))
+                .toList());
+    }
+
+    /**
+     * One line of the placed order.
+     * @param bookId Primary key of the book.
+     * @param category Category of the book at the time of purchase.
+     * @param quantity Number of units sold.
+     * @param price Price per unit at the time of purchase.
+     */
+    public record Line(Long bookId, String category, int quantity, BigDecimal price) {
+    }
+}
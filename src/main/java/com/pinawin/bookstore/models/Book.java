@@ -16,19 +16,33 @@ import java.util.List;
  * serves as the primary data model for the catalog.
  */
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        // Supports keyset pagination of category listings ordered by (category, id)
+        @Index(name = "idx_books_category_id", columnList = "category, id")
+}, uniqueConstraints = {
+        // Natural key used to upsert supplier feeds in bulk imports
+        @UniqueConstraint(name = "uk_books_isbn", columnNames = "isbn")
+})
 @Getter
 @Setter
 public class Book {
 
     /**
      * Unique identifier for the book.
-     * Automatically generated using the identity strategy.
+     * Drawn from a pooled sequence so that bulk catalog writes can be batched.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
 
+    /**
+     * The International Standard Book Number, without hyphens or spaces.
+     * Optional for books added by hand; required (and used to match existing books) by bulk imports.
+     */
+    @Column(length = 20)
+    private String isbn;
+
     /**
      * The full title of the book.
      */
@@ -64,6 +78,15 @@ public class Book {
     @Min(value = 0, message = "Stock cannot be less than zero")
     private int stock;
 
+    /**
+     * Row version for optimistic locking, incremented on every update of the book.
+     * A checkout that decremented stock from an outdated copy fails at flush instead
+     * of overwriting a concurrent decrement. Statements that change stock in SQL bump it as well.
+     */
+    @Version
+    @JsonIgnore
+    private long version;
+
     /**
      * Relationship to the order items containing this book.
      * JsonIgnore is used to prevent infinite recursion during JSON serialization.
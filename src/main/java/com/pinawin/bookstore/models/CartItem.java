@@ -1,5 +1,6 @@
 package com.pinawin.bookstore.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -10,7 +11,10 @@ import lombok.Setter;
  * specific quantity of a title selected for purchase.
  */
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = {
+        // One line per book and user, so concurrent adds of the same book update a single row
+        @UniqueConstraint(name = "uk_cart_items_user_book", columnNames = {"user_id", "book_id"})
+})
 @Getter
 @Setter
 public class CartItem {
@@ -29,6 +33,7 @@ public class CartItem {
      */
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
+    @JsonIgnore
     private User user;
 
     /**
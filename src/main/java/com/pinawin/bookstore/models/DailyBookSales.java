@@ -0,0 +1,63 @@
+package com.pinawin.bookstore.models;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Entity holding the persisted sales rollup: units and revenue of one book on one day (UTC).
+ * Rows are written in batches by the SalesRollup, which adds its accumulated deltas
+ * with an upsert, and read back when the application starts. Category totals are
+ * derived from these rows, so the category is recorded as it was at the time of sale.
+ */
+@Entity
+@Table(name = "daily_book_sales", indexes = {
+        @Index(name = "idx_daily_book_sales_book", columnList = "book_id")
+})
+@Getter
+@Setter
+public class DailyBookSales {
+
+    /**
+     * Composite primary key (sales date, book), the target of the rollup's upsert.
+     */
+    @EmbeddedId
+    private Key id;
+
+    /**
+     * Category of the book when it was sold.
+     */
+    private String category;
+
+    /**
+     * Number of units sold.
+     */
+    private long units;
+
+    /**
+     * Revenue of those units, at the prices paid.
+     */
+    @Column(precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    /**
+     * Primary key of a DailyBookSales row.
+     */
+    @Embeddable
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        @Column(name = "sales_date")
+        private LocalDate salesDate;
+
+        @Column(name = "book_id")
+        private Long bookId;
+    }
+}
@@ -17,7 +17,11 @@ import java.util.List;
  * authentication and authorization framework.
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        // Named so that a failed insert can be mapped back to the duplicated field
+        @UniqueConstraint(name = "uk_users_user_name", columnNames = "user_name"),
+        @UniqueConstraint(name = "uk_users_email", columnNames = "email")
+})
 @Getter
 @Setter
 public class User implements UserDetails {
@@ -38,7 +42,7 @@ public class User implements UserDetails {
     /**
      * Unique email address associated with the user account.
      */
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
     /**
@@ -0,0 +1,56 @@
+package com.pinawin.bookstore.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable security principal for an authenticated user.
+ * Stored in the HTTP session instead of the User entity, so the session holds
+ * only a few fields rather than a detached entity with lazy collections.
+ * Controllers turn it back into a User reference by id when calling services.
+ * @param id The id of the user.
+ * @param userName The login name.
+ * @param role The granted role ("ROLE_USER" or "ROLE_ADMIN").
+ * @param password The password hash, present only while authenticating (see {@link #withoutPassword()}).
+ */
+public record UserPrincipal(Long id, String userName, String role, @JsonIgnore String password) implements UserDetails {
+
+    /**
+     * Creates a principal from a user entity, including its password hash for authentication.
+     * @param user The persisted user.
+     * @return A new UserPrincipal.
+     */
+    public static UserPrincipal of(User user) {
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getRole(), user.getPassword());
+    }
+
+    /**
+     * @return A copy without the password hash, suitable for keeping in the session.
+     */
+    public UserPrincipal withoutPassword() {
+        return new UserPrincipal(id, userName, role, null);
+    }
+
+    @Override
+    @JsonIgnore
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role));
+    }
+
+    @Override
+    @JsonIgnore
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    @JsonIgnore
+    public String getUsername() {
+        return userName;
+    }
+}
@@ -1,9 +1,19 @@
 package com.pinawin.bookstore.repositories;
 
+import com.pinawin.bookstore.DTO.BookFacetRow;
+import com.pinawin.bookstore.DTO.BookStock;
 import com.pinawin.bookstore.models.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 
 /**
@@ -24,13 +34,85 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     Page<Book> findByCategoryContainingIgnoreCase(String category, Pageable pageable);
 
     /**
-     * Searches for books based on a keyword in the title with pagination support.
-     * Enables partial title matching to power the search bar functionality.
-     * @param keyword The title keyword to search for.
-     * @param pageable The pagination information (page number, size, and sorting).
-     * @return A Page of books whose titles contain the keyword.
+     * Keyset pagination over the full catalog, ordered by id.
+     * Returning a Slice skips the COUNT query; seeking past the last seen id
+     * avoids scanning and discarding the rows of previous pages.
+     * @param id The id of the last book already returned (0 for the first slice).
+     * @param pageable Carries only the slice size; the page number must be 0.
+     * @return A Slice of books with ids greater than the given one.
      */
-    Page<Book> findByTitleContainingIgnoreCase (String keyword, Pageable pageable);
+    Slice<Book> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 
-}
+    /**
+     * First slice of a keyset-paginated category listing, ordered by (category, id).
+     * @param category The category string to search for.
+     * @param pageable Carries only the slice size; the page number must be 0.
+     * @return A Slice of matching books.
+     */
+    @Query("select b from Book b where lower(b.category) like lower(concat('%', :category, '%')) "
+            + "order by b.category, b.id")
+    Slice<Book> findCategorySlice(@Param("category") String category, Pageable pageable);
+
+    /**
+     * Subsequent slices of a keyset-paginated category listing.
+     * Seeks past the (category, id) pair of the last book already returned.
+     * @param category The category string to search for.
+     * @param lastCategory The category of the last book already returned.
+     * @param lastId The id of the last book already returned.
+     * @param pageable Carries only the slice size; the page number must be 0.
+     * @return A Slice of matching books following the given position.
+     */
+    @Query("select b from Book b where lower(b.category) like lower(concat('%', :category, '%')) "
+            + "and (b.category > :lastCategory or (b.category = :lastCategory and b.id > :lastId)) "
+            + "order by b.category, b.id")
+    Slice<Book> findCategorySliceAfter(@Param("category") String category,
+                                       @Param("lastCategory") String lastCategory,
+                                       @Param("lastId") Long lastId,
+                                       Pageable pageable);
+
+    /**
+     * Reads only the current stock level of a book, without loading the entity.
+     * @param id The book id.
+     * @return The stock level, or empty if the book does not exist.
+     */
+    @Query("select b.stock from Book b where b.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
 
+    /**
+     * Loads the id, category and stock of every book to build the category facets.
+     * @return One row per book.
+     */
+    @Query("select new com.pinawin.bookstore.DTO.BookFacetRow(b.id, b.category, b.stock) from Book b")
+    List<BookFacetRow> findFacetRows();
+
+    /**
+     * Reads the current stock of several books and locks their rows until the transaction ends
+     * (SELECT ... FOR UPDATE). Rows are locked in id order, so two checkouts sharing books
+     * always wait for each other instead of deadlocking.
+     * @param ids The book ids.
+     * @return The id and stock of every book found, ordered by id.
+     */
+    @Query(value = "select id, stock from books where id in (:ids) order by id for update", nativeQuery = true)
+    List<BookStock> lockStock(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Reads the current stock of several books without loading the entities.
+     * @param ids The book ids.
+     * @return The id and stock of every book found.
+     */
+    @Query("select new com.pinawin.bookstore.DTO.BookStock(b.id, b.stock) from Book b where b.id in :ids")
+    List<BookStock> findStockByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Takes copies of a book out of stock in a single statement, only if enough remain.
+     * The check and the decrement happen atomically in the database, so concurrent
+     * checkouts can never take the stock below zero.
+     * @param id The book id.
+     * @param quantity The number of copies to take.
+     * @return 1 if the stock was decremented, 0 if not enough copies remain (or the book does not exist).
+     */
+    @Modifying
+    @Query("update Book b set b.stock = b.stock - :quantity, b.version = b.version + 1 "
+            + "where b.id = :id and b.stock >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+}
@@ -1,11 +1,13 @@
 package com.pinawin.bookstore.repositories;
 
-import com.pinawin.bookstore.models.Book;
 import com.pinawin.bookstore.models.CartItem;
 import com.pinawin.bookstore.models.User;
 import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,21 +20,39 @@ import java.util.Optional;
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
     /**
-     * Retrieves a specific cart item based on the user and the book.
-     * Used by the CartService to determine if a quantity should be 
-     * incremented or a new record should be created.
-     * @param user The owner of the cart.
-     * @param book The book being added to the cart.
-     * @return An Optional containing the CartItem if found.
+     * Adds copies of a book to a user's cart in one statement: inserts the line, or adds to
+     * its quantity if the user already has one (relies on uk_cart_items_user_book).
+     * Nothing is written unless the book has at least that many copies in stock, so
+     * concurrent adds of the same book neither create duplicate lines nor lose an increment.
+     * @param userId The owner of the cart.
+     * @param bookId The book being added.
+     * @param quantity The number of copies to add.
+     * @return 1 if a line was inserted, 2 if an existing line was updated (MySQL's count for
+     *         ON DUPLICATE KEY UPDATE), 0 if the book is unknown or lacks the stock.
      */
-    Optional<CartItem> findByUserAndBook(User user, Book book);
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO cart_items (user_id, book_id, quantity) "
+            + "SELECT :userId, b.id, :quantity FROM books b WHERE b.id = :bookId AND b.stock >= :quantity "
+            + "ON DUPLICATE KEY UPDATE quantity = quantity + :quantity", nativeQuery = true)
+    int upsertQuantity(@Param("userId") Long userId, @Param("bookId") Long bookId, @Param("quantity") int quantity);
+
+    /**
+     * @param userId The owner of the cart.
+     * @param bookId The book of the line.
+     * @return The quantity of the user's line for the book, if there is one.
+     */
+    @Query("select c.quantity from CartItem c where c.user.id = :userId and c.book.id = :bookId")
+    Optional<Integer> findQuantity(@Param("userId") Long userId, @Param("bookId") Long bookId);
 
     /**
      * Retrieves all cart items belonging to a specific user.
-     * Supports the "View Cart" and "Checkout" features.
+     * Supports the "View Cart" and "Checkout" features, both of which read every
+     * line's book, so the books are fetched in the same query.
      * @param user The user whose cart is being retrieved.
-     * @return A list of CartItem entities associated with the user.
+     * @return A list of CartItem entities associated with the user, with their books loaded.
      */
+    @EntityGraph(attributePaths = "book")
     List<CartItem> findByUser(User user);
 
     /**
@@ -1,8 +1,15 @@
 package com.pinawin.bookstore.repositories;
 
+import com.pinawin.bookstore.DTO.OrderLine;
 import com.pinawin.bookstore.models.Order;
+import com.pinawin.bookstore.models.OrderStatus;
 import com.pinawin.bookstore.models.User;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -21,5 +28,57 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      * @return A list of Order entities placed by the specified user.
      */
     List<Order> findByUser(User user);
-}
 
+    /**
+     * Retrieves one page of a user's order ids, newest first, using the
+     * previous page's smallest id as the seek position.
+     * @param user The user whose order history is being requested.
+     * @param beforeId Only ids strictly below this value are returned.
+     * @param pageable Limits the number of ids returned (sorting is fixed by the query).
+     * @return Order ids in descending order.
+     */
+    @Query("select o.id from Order o where o.user = :user and o.id < :beforeId order by o.id desc")
+    List<Long> findIdsByUserBefore(@Param("user") User user,
+                                   @Param("beforeId") Long beforeId,
+                                   Pageable pageable);
+
+    /**
+     * Loads the items of several orders in a single joined query, projected
+     * straight into rows so that no Order, OrderItem or Book entities are loaded.
+     * @param orderIds The orders to load.
+     * @return One row per order item, newest order first, items in insertion order.
+     */
+    @Query("select new com.pinawin.bookstore.DTO.OrderLine(o.id, o.status, o.totalAmount, b.title, i.quantity, i.price) " +
+            "from OrderItem i join i.order o join i.book b " +
+            "where o.id in :orderIds order by o.id desc, i.id")
+    List<OrderLine> findLinesByOrderIds(@Param("orderIds") List<Long> orderIds);
+
+    /**
+     * Retrieves the ids of orders in any of the given states, oldest first,
+     * using the previous page's largest id as the seek position.
+     * @param statuses The states to look for.
+     * @param afterId Only ids strictly above this value are returned.
+     * @param pageable Limits the number of ids returned (sorting is fixed by the query).
+     * @return Order ids in ascending order.
+     */
+    @Query("select o.id from Order o where o.status in :statuses and o.id > :afterId order by o.id")
+    List<Long> findIdsByStatusIn(@Param("statuses") List<OrderStatus> statuses,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
+
+    /**
+     * Moves an order to a new state only if it is still in the expected one,
+     * so that each transition is applied exactly once even if several workers
+     * or nodes process the same order.
+     * @param id The order to update.
+     * @param from The state the order must currently be in.
+     * @param to The new state.
+     * @return 1 if the order was moved, 0 if it was no longer in the expected state.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Order o set o.status = :to where o.id = :id and o.status = :from")
+    int updateStatus(@Param("id") Long id,
+                     @Param("from") OrderStatus from,
+                     @Param("to") OrderStatus to);
+}
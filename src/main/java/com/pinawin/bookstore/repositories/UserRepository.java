@@ -1,8 +1,13 @@
 package com.pinawin.bookstore.repositories;
 
 import com.pinawin.bookstore.models.User;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -28,5 +33,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return An Optional containing the User if found.
      */
     Optional<User> findByuserName(String username);
-}
 
+    /**
+     * Finds accounts that clash with a registration in a single query.
+     * The email of each match tells whether the email or the user name is taken.
+     * @param email The email address to look up.
+     * @param username The username to look up.
+     * @return The emails of existing users with the same email or username; empty if both are free.
+     */
+    @Query("select u.email from User u where u.email = :email or u.userName = :username")
+    List<String> findConflictingEmails(@Param("email") String email, @Param("username") String username);
+
+    /**
+     * Replaces a user's password hash without loading the entity.
+     * Used to upgrade hashes made with an outdated BCrypt cost after a successful login.
+     * @param id The user to update.
+     * @param password The new password hash.
+     * @return 1 if the user was updated, 0 if it no longer exists.
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+}
@@ -0,0 +1,141 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.models.UserPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and verifies signed authentication tokens for the stateless auth mode
+ * (bookstore.auth.mode=token).
+ * A token is "payload.signature": the payload carries the user's id, role, name and
+ * expiry, and the signature is an HMAC-SHA256 over it with a key shared by all nodes.
+ * Verification needs neither the database nor a session store. Tokens cannot be
+ * revoked individually; a changed role or a logout takes effect on the server only
+ * once the token expires, so keep the TTL short.
+ */
+@Service
+@ConditionalOnProperty(name = "bookstore.auth.mode", havingValue = "token")
+public class AuthTokenService {
+
+    /**
+     * Name of the HttpOnly cookie holding the token for browser clients.
+     */
+    public static final String COOKIE_NAME = "AUTH_TOKEN";
+
+    /**
+     * Response header carrying the token for API clients, which send it back as "Authorization: Bearer ...".
+     */
+    public static final String HEADER_NAME = "X-Auth-Token";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final Clock clock;
+
+    /**
+     * Creates the service from the bookstore.auth.token.* properties.
+     * @param secret Base64-encoded HMAC key of at least 32 bytes, identical on every node.
+     *               Startup fails if it is blank or shorter.
+     * @param ttl Lifetime of an issued token.
+     */
+    @Autowired
+    public AuthTokenService(@Value("${bookstore.auth.token.secret:}") String secret,
+                            @Value("${bookstore.auth.token.ttl:1h}") Duration ttl) {
+        this(secret, ttl, Clock.systemUTC());
+    }
+
+    AuthTokenService(String secret, Duration ttl, Clock clock) {
+        // A per-process random key would make tokens fail on every other node and after a restart
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("bookstore.auth.token.secret must be set when bookstore.auth.mode=token");
+        }
+        byte[] keyBytes = Base64.getDecoder().decode(secret.trim());
+        if (keyBytes.length < MIN_KEY_BYTES) {
+            throw new IllegalArgumentException("bookstore.auth.token.secret must be at least " + MIN_KEY_BYTES + " bytes");
+        }
+
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Issues a token for an authenticated user.
+     * @param principal The authenticated user.
+     * @return The signed token.
+     */
+    public String issue(UserPrincipal principal) {
+        long expiresAt = clock.instant().plus(ttl).getEpochSecond();
+
+        // The name goes last because it is the only field that may contain the separator
+        String payload = principal.id() + ":" + expiresAt + ":" + principal.role() + ":" + principal.userName();
+        String encoded = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encoded + "." + ENCODER.encodeToString(sign(encoded));
+    }
+
+    /**
+     * Checks a token's signature and expiry.
+     * @param token The token sent by the client.
+     * @return The principal it was issued for, or empty if the token is malformed, forged or expired.
+     */
+    public Optional<UserPrincipal> verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+
+        try {
+            // 1. Signature, compared in constant time
+            String encoded = token.substring(0, dot);
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(encoded))) {
+                return Optional.empty();
+            }
+
+            // 2. Expiry
+            String[] fields = new String(DECODER.decode(encoded), StandardCharsets.UTF_8).split(":", 4);
+            if (fields.length != 4 || Long.parseLong(fields[1]) <= clock.instant().getEpochSecond()) {
+                return Optional.empty();
+            }
+
+            return Optional.of(new UserPrincipal(Long.valueOf(fields[0]), fields[3], fields[2], null));
+        } catch (IllegalArgumentException e) {
+            // Bad Base64 or number
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return Lifetime of an issued token, used as the cookie max-age.
+     */
+    public Duration ttl() {
+        return ttl;
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.BookResponse;
+import com.pinawin.bookstore.DTO.PageResponse;
+import com.pinawin.bookstore.cache.BoundedCache;
+import com.pinawin.bookstore.cache.CacheStats;
+import com.pinawin.bookstore.events.BookChangedEvent;
+import com.pinawin.bookstore.models.Book;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache for hot catalog data: individual books by id and
+ * rendered catalog list pages. Pages are kept as response records, converted once
+ * when loaded rather than on every request. Both regions are bounded by entry count,
+ * estimated memory and TTL, and are invalidated after catalog changes commit.
+ */
+@Component
+public class BookCatalogCache {
+
+    // Rough per-object overhead used when estimating memory footprint
+    private static final long BOOK_OVERHEAD_BYTES = 160;
+    private static final long PAGE_OVERHEAD_BYTES = 120;
+
+    private final BoundedCache<Long, Book> books;
+    private final BoundedCache<String, PageResponse<BookResponse>> pages;
+
+    /**
+     * Creates the cache regions from the bookstore.cache.* properties.
+     * @param bookMaxEntries Maximum number of cached books.
+     * @param bookTtl Time-to-live of a cached book.
+     * @param pageMaxEntries Maximum number of cached list pages.
+     * @param pageTtl Time-to-live of a cached list page.
+     * @param maxMemoryBytes Memory cap applied to each region.
+     */
+    public BookCatalogCache(@Value("${bookstore.cache.books.max-entries:10000}") int bookMaxEntries,
+                            @Value("${bookstore.cache.books.ttl:10m}") Duration bookTtl,
+                            @Value("${bookstore.cache.pages.max-entries:1000}") int pageMaxEntries,
+                            @Value("${bookstore.cache.pages.ttl:1m}") Duration pageTtl,
+                            @Value("${bookstore.cache.max-memory-bytes:33554432}") long maxMemoryBytes) {
+        this.books = new BoundedCache<>(bookMaxEntries, maxMemoryBytes, bookTtl, BookCatalogCache::weigh);
+        this.pages = new BoundedCache<>(pageMaxEntries, maxMemoryBytes, pageTtl,
+                page -> PAGE_OVERHEAD_BYTES + page.content().stream().mapToLong(BookCatalogCache::weigh).sum());
+    }
+
+    /**
+     * Looks up a book by id, loading it on a miss.
+     * @param id The book id.
+     * @param loader Loads the book from the database (e.g., bookRepository::findById).
+     * @return The book, or empty if it does not exist.
+     */
+    public Optional<Book> getBook(Long id, Function<Long, Optional<Book>> loader) {
+        return Optional.ofNullable(books.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Looks up a catalog list page, loading it on a miss.
+     * @param key Identifies the listing and its parameters (e.g., "all:0:8").
+     * @param loader Loads the page from the database.
+     * @return The cached or freshly loaded page, as sent to clients.
+     */
+    public PageResponse<BookResponse> getPage(String key, Supplier<Page<Book>> loader) {
+        return pages.get(key, k -> PageResponse.of(loader.get(), BookResponse::from));
+    }
+
+    /**
+     * Invalidates cached data affected by a committed catalog change.
+     * Stock-only changes evict just the pages showing those books; other saves
+     * may add books or move them between listings, so every page is dropped.
+     * @param event The event carrying the modified books.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE) // Before CatalogVersion issues a new ETag
+    public void onBooksChanged(BookChangedEvent event) {
+        Set<Long> changedIds = event.books().stream()
+                .map(Book::getId)
+                .collect(Collectors.toSet());
+
+        changedIds.forEach(books::invalidate);
+
+        if (event.stockOnly()) {
+            pages.invalidateIf((key, page) -> page.content().stream()
+                    .anyMatch(book -> changedIds.contains(book.id())));
+        } else {
+            pages.invalidateAll();
+        }
+    }
+
+    /**
+     * @return Hit/miss/eviction statistics of the book-by-id region.
+     */
+    public CacheStats bookStats() {
+        return books.stats();
+    }
+
+    /**
+     * @return Hit/miss/eviction statistics of the list-page region.
+     */
+    public CacheStats pageStats() {
+        return pages.stats();
+    }
+
+    private static long weigh(Book book) {
+        return weigh(book.getTitle(), book.getAuthor(), book.getCategory(), book.getDescription());
+    }
+
+    private static long weigh(BookResponse book) {
+        return weigh(book.title(), book.author(), book.category(), book.description());
+    }
+
+    private static long weigh(String title, String author, String category, String description) {
+        // Java strings are stored at up to two bytes per character
+        return BOOK_OVERHEAD_BYTES + 2L * (length(title) + length(author) + length(category) + length(description));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
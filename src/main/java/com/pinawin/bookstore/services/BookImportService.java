@@ -0,0 +1,423 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.ImportReport;
+import com.pinawin.bookstore.events.BookChangedEvent;
+import com.pinawin.bookstore.models.Book;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Service for bulk catalog imports from supplier feeds.
+ * Rows are streamed from a CSV or NDJSON body one at a time, validated like
+ * single books added by an admin, and upserted by ISBN in chunks: one query
+ * loads the existing books of a chunk, then new and existing books are written
+ * as JDBC batches through a stateless Hibernate session (no persistence context,
+ * ids still drawn from the pooled book sequence).
+ * An existing book is only changed in the columns the feed supplies, so a feed of
+ * prices alone keeps the stored titles and stock.
+ */
+@Service
+public class BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    // Rejected rows listed in a report; the total is always counted
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final int MAX_ISBN_LENGTH = 20;
+
+    // Columns a feed may supply besides isbn
+    private static final List<String> BOOK_COLUMNS = List.of("title", "author", "description", "price", "category", "stock");
+
+    private final SessionFactory sessionFactory;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    // Only one import runs at a time so that its progress can be reported
+    private final ReentrantLock importLock = new ReentrantLock();
+    private final AtomicReference<Progress> latest = new AtomicReference<>();
+
+    /**
+     * Constructor-based dependency injection.
+     * @param entityManagerFactory Provides the Hibernate SessionFactory used for stateless batch writes.
+     * @param objectMapper Parses NDJSON lines.
+     * @param eventPublisher Announces imported books to catalog caches and indexes.
+     * @param chunkSize Rows written per transaction (bookstore.import.chunk-size).
+     */
+    public BookImportService(EntityManagerFactory entityManagerFactory,
+                             ObjectMapper objectMapper,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${bookstore.import.chunk-size:1000}") int chunkSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports a CSV feed. The first record is a header naming the columns
+     * (isbn, title, author, description, price, category, stock) in any order;
+     * only isbn is required, and unknown columns are ignored. Columns missing from the
+     * header are left unchanged on existing books; a new book needs at least a price.
+     * @param body The CSV text.
+     * @return The outcome of the import.
+     * @throws IllegalArgumentException if the header has no isbn column.
+     * @throws IllegalStateException if another import is running.
+     * @throws IOException if the body cannot be read.
+     */
+    public ImportReport importCsv(Reader body) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(buffered(body));
+
+        List<String> header = csv.next();
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; header != null && i < header.size(); i++) {
+            // Ignore a byte order mark some spreadsheet tools put in front of the first column
+            columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+
+        if (!columns.containsKey("isbn")) {
+            throw new IllegalArgumentException("CSV header must include an isbn column");
+        }
+
+        return run(() -> {
+            List<String> fields = csv.next();
+            // Skip blank lines
+            while (fields != null && fields.size() == 1 && fields.getFirst().isBlank()) {
+                fields = csv.next();
+            }
+            if (fields == null) {
+                return null;
+            }
+
+            // A column in the header is supplied even where a short record leaves it out
+            List<String> record = fields;
+            return column -> {
+                Integer index = columns.get(column);
+                if (index == null) {
+                    return null;
+                }
+                return index >= record.size() ? "" : record.get(index);
+            };
+        });
+    }
+
+    /**
+     * Imports an NDJSON feed: one JSON object per line with the same fields as the CSV columns.
+     * Fields missing from an object are left unchanged on an existing book.
+     * @param body The NDJSON text.
+     * @return The outcome of the import.
+     * @throws IllegalStateException if another import is running.
+     * @throws IOException if the body cannot be read.
+     */
+    public ImportReport importNdjson(Reader body) throws IOException {
+        BufferedReader lines = buffered(body);
+
+        return run(() -> {
+            String line = lines.readLine();
+            // Skip blank lines
+            while (line != null && line.isBlank()) {
+                line = lines.readLine();
+            }
+            if (line == null) {
+                return null;
+            }
+
+            Map<?, ?> json;
+            try {
+                json = objectMapper.readValue(line, Map.class);
+            } catch (RuntimeException e) {
+                return column -> {
+                    throw new IllegalArgumentException("Malformed JSON.");
+                };
+            }
+            return column -> {
+                if (!json.containsKey(column)) {
+                    return null;
+                }
+                return json.get(column) == null ? "" : json.get(column).toString();
+            };
+        });
+    }
+
+    /**
+     * @return The progress of the running import, or the outcome of the last one.
+     */
+    public Optional<ImportReport> latestReport() {
+        return Optional.ofNullable(latest.get()).map(Progress::report);
+    }
+
+    private ImportReport run(RowSource rows) throws IOException {
+        if (!importLock.tryLock()) {
+            throw new IllegalStateException("An import is already running.");
+        }
+
+        Progress progress = new Progress();
+        latest.set(progress);
+
+        try {
+            // ISBN -> row, so a feed listing a book twice keeps only the last row of a chunk
+            Map<String, BookRow> chunk = new LinkedHashMap<>();
+            Map<String, Long> chunkRows = new HashMap<>();
+
+            Function<String, String> row;
+            while ((row = rows.next()) != null) {
+                long number = progress.rowRead();
+                try {
+                    BookRow book = toBookRow(row);
+                    chunk.put(book.isbn(), book);
+                    chunkRows.put(book.isbn(), number);
+                } catch (IllegalArgumentException e) {
+                    progress.rejected(number, e.getMessage());
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk, chunkRows, progress);
+                }
+            }
+            writeChunk(chunk, chunkRows, progress);
+        } finally {
+            progress.finish();
+            importLock.unlock();
+        }
+
+        ImportReport report = progress.report();
+        log.info("Imported {} rows in {} ms ({} rows/s): {} inserted, {} updated, {} failed",
+                report.getProcessed(), report.getElapsedMillis(), report.getRowsPerSecond(),
+                report.getInserted(), report.getUpdated(), report.getFailed());
+        return report;
+    }
+
+    /**
+     * Upserts one chunk in its own transaction, then clears it.
+     * A database error fails the whole chunk; later chunks are still imported.
+     */
+    private void writeChunk(Map<String, BookRow> chunk, Map<String, Long> chunkRows, Progress progress) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<Book> inserts = new ArrayList<>();
+        List<Book> updates = new ArrayList<>();
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(chunkSize);
+            Transaction transaction = session.beginTransaction();
+
+            try {
+                // 1. Load the books of this chunk that already exist, and change only the supplied columns
+                Map<String, Book> existing = new HashMap<>();
+                session.createSelectionQuery("select b from Book b where b.isbn in :isbns", Book.class)
+                        .setParameterList("isbns", chunk.keySet())
+                        .getResultList()
+                        .forEach(found -> existing.put(found.getIsbn(), found));
+
+                chunk.forEach((isbn, row) -> {
+                    Book book = existing.get(isbn);
+                    if (book != null) {
+                        row.applyTo(book);
+                        updates.add(book);
+                    } else if (row.values().getPrice() == null) {
+                        progress.rejected(chunkRows.remove(isbn), "Price is required for a new book.");
+                    } else {
+                        book = new Book();
+                        book.setIsbn(isbn);
+                        row.applyTo(book);
+                        inserts.add(book);
+                    }
+                });
+
+                // 2. Write both groups as JDBC batches
+                session.insertMultiple(inserts);
+                session.updateMultiple(updates);
+
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+
+            progress.written(inserts.size(), updates.size());
+
+            // 3. Refresh catalog caches and indexes; listeners run immediately as the chunk is committed
+            List<Book> saved = new ArrayList<>(inserts);
+            saved.addAll(updates);
+            eventPublisher.publishEvent(BookChangedEvent.saved(saved));
+        } catch (RuntimeException e) {
+            log.warn("Import chunk of {} rows failed", chunk.size(), e);
+            chunkRows.values().forEach(number -> progress.rejected(number, "Could not save row: " + e.getMessage()));
+        } finally {
+            chunk.clear();
+            chunkRows.clear();
+        }
+    }
+
+    /**
+     * Parses one row, applying the same rules as a book added by an admin to the columns it supplies.
+     * @param field Returns the text of a column, empty if the row supplies it empty, or null if the
+     *              feed does not supply it.
+     * @throws IllegalArgumentException with a message suitable for the report if the row is invalid.
+     */
+    private BookRow toBookRow(Function<String, String> field) {
+        String isbn = blankToNull(field.apply("isbn"));
+        if (isbn == null) {
+            throw new IllegalArgumentException("ISBN is required.");
+        }
+        isbn = isbn.replaceAll("[\\s-]", "");
+        if (isbn.length() > MAX_ISBN_LENGTH) {
+            throw new IllegalArgumentException("ISBN is too long.");
+        }
+
+        Book values = new Book();
+        values.setTitle(blankToNull(field.apply("title")));
+        values.setAuthor(blankToNull(field.apply("author")));
+        values.setDescription(blankToNull(field.apply("description")));
+        values.setCategory(blankToNull(field.apply("category")));
+
+        String priceText = field.apply("price");
+        if (priceText != null) {
+            if (priceText.isBlank()) {
+                throw new IllegalArgumentException("Price is required.");
+            }
+            try {
+                values.setPrice(new BigDecimal(priceText.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Price must be a number.");
+            }
+            if (values.getPrice().compareTo(BigDecimal.ZERO) < 0) {
+                throw new IllegalArgumentException("Price cannot be negative.");
+            }
+        }
+
+        try {
+            String text = blankToNull(field.apply("stock"));
+            values.setStock(text == null ? 0 : Integer.parseInt(text.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Stock must be a whole number.");
+        }
+        if (values.getStock() < 0) {
+            throw new IllegalArgumentException("Stock cannot be negative.");
+        }
+
+        Set<String> columns = new HashSet<>();
+        for (String column : BOOK_COLUMNS) {
+            if (field.apply(column) != null) {
+                columns.add(column);
+            }
+        }
+        return new BookRow(isbn, values, columns);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static BufferedReader buffered(Reader reader) {
+        return reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, 64 * 1024);
+    }
+
+    /**
+     * A validated row: its ISBN, the parsed values, and the columns the feed supplied.
+     */
+    private record BookRow(String isbn, Book values, Set<String> columns) {
+
+        /**
+         * Copies the supplied columns onto a book, leaving the others as they are.
+         */
+        void applyTo(Book book) {
+            if (columns.contains("title")) {
+                book.setTitle(values.getTitle());
+            }
+            if (columns.contains("author")) {
+                book.setAuthor(values.getAuthor());
+            }
+            if (columns.contains("description")) {
+                book.setDescription(values.getDescription());
+            }
+            if (columns.contains("price")) {
+                book.setPrice(values.getPrice());
+            }
+            if (columns.contains("category")) {
+                book.setCategory(values.getCategory());
+            }
+            if (columns.contains("stock")) {
+                book.setStock(values.getStock());
+            }
+        }
+    }
+
+    /**
+     * Supplies rows one at a time.
+     */
+    @FunctionalInterface
+    private interface RowSource {
+
+        /**
+         * @return The next row as a column lookup (see toBookRow), or null at the end of the input.
+         */
+        Function<String, String> next() throws IOException;
+    }
+
+    /**
+     * Counters of a running or finished import. Written by the importing thread,
+     * read by progress requests.
+     */
+    private static final class Progress {
+
+        private final long startedAt = System.currentTimeMillis();
+        private volatile long finishedAt;
+        private volatile long processed;
+        private volatile long inserted;
+        private volatile long updated;
+        private volatile long failed;
+        private final List<ImportReport.RowError> errors = Collections.synchronizedList(new ArrayList<>());
+
+        long rowRead() {
+            return ++processed;
+        }
+
+        void written(int insertedRows, int updatedRows) {
+            inserted += insertedRows;
+            updated += updatedRows;
+        }
+
+        void rejected(long row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportReport.RowError(row, message));
+            }
+        }
+
+        void finish() {
+            finishedAt = System.currentTimeMillis();
+        }
+
+        ImportReport report() {
+            long end = finishedAt == 0 ? System.currentTimeMillis() : finishedAt;
+            List<ImportReport.RowError> sorted;
+            synchronized (errors) {
+                sorted = errors.stream().sorted(Comparator.comparingLong(ImportReport.RowError::row)).toList();
+            }
+            return new ImportReport(finishedAt == 0, processed, inserted, updated, failed, end - startedAt, sorted);
+        }
+    }
+}
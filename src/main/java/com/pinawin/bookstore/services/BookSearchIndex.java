@@ -0,0 +1,317 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.SliceResponse;
+import com.pinawin.bookstore.events.BookChangedEvent;
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.repositories.BookRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the book catalog.
+ * Titles, authors, categories and descriptions are tokenized and case-folded
+ * into posting lists, allowing catalog searches to be answered from memory
+ * with relevance ranking instead of a LIKE scan on the books table.
+ */
+@Component
+public class BookSearchIndex {
+
+    // Relevance weights: a match in the title counts more than one in the description
+    private static final int TITLE_WEIGHT = 8;
+    private static final int AUTHOR_WEIGHT = 4;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    // Highest score first, then ascending id for a stable order among equal scores
+    private static final Comparator<Hit> RANKING =
+            Comparator.<Hit>comparingInt(Hit::score).reversed().thenComparingLong(Hit::id);
+
+    private final BookRepository bookRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Term -> (book id -> accumulated field weight). Sorted to support prefix lookups.
+     */
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+    /**
+     * Book id -> detached snapshot returned in search results.
+     */
+    private final Map<Long, Book> books = new HashMap<>();
+
+    /**
+     * Book id -> terms it was indexed under, used to unlink a book on re-index.
+     */
+    private final Map<Long, Set<String>> termsByBook = new HashMap<>();
+
+    /**
+     * Constructor-based dependency injection for BookRepository.
+     * @param bookRepository The repository used to load the catalog on startup.
+     */
+    public BookSearchIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Builds the index from the full catalog once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Book> catalog = bookRepository.findAll();
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            books.clear();
+            termsByBook.clear();
+            catalog.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Keeps the index in sync after books are saved or their stock changes.
+     * Runs after the surrounding transaction commits, so rolled-back changes are never indexed.
+     * @param event The event carrying the modified books.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE) // Before CatalogVersion issues a new ETag
+    public void onBooksChanged(BookChangedEvent event) {
+        event.books().forEach(this::index);
+    }
+
+    /**
+     * Adds a book to the index, replacing any previously indexed version of it.
+     * @param book The persisted book (must have an id).
+     */
+    public void index(Book book) {
+        lock.writeLock().lock();
+        try {
+            unlink(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the catalog for books matching every term of the keyword.
+     * The last term is matched as a prefix so that results update on every keystroke.
+     * Results are ordered by relevance, then by id for a stable pagination order.
+     * @param keyword The raw search text entered by the user.
+     * @param page The zero-based page index to retrieve.
+     * @param size The number of items per page.
+     * @return A Page of matching books ranked by relevance.
+     */
+    public Page<Book> search(String keyword, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+
+        lock.readLock().lock();
+        try {
+            List<Hit> ranked = rank(keyword);
+
+            int from = (int) Math.min(pageable.getOffset(), ranked.size());
+            int to = Math.min(from + size, ranked.size());
+
+            return new PageImpl<>(resolve(ranked.subList(from, to)), pageable, ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cursor-based variant of {@link #search(String, int, int)}.
+     * The continuation token encodes the (score, id) of the last hit returned,
+     * so a slice never depends on how many results precede it.
+     * @param keyword The raw search text entered by the user.
+     * @param cursor The token from the previous slice, or blank for the first slice.
+     * @param size The number of items per slice.
+     * @return A slice of matching books ranked by relevance.
+     */
+    public SliceResponse<Book> searchSlice(String keyword, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Hit> ranked = rank(keyword);
+
+            int from = 0;
+            if (cursor != null && !cursor.isBlank()) {
+                String[] keys = CatalogCursor.decode(cursor, 2);
+                Hit last = new Hit(CatalogCursor.toLong(keys[1]), (int) CatalogCursor.toLong(keys[0]));
+                // First hit ranked strictly after the last one returned
+                int position = Collections.binarySearch(ranked, last, RANKING);
+                from = position >= 0 ? position + 1 : -position - 1;
+            }
+
+            int to = Math.min(from + size, ranked.size());
+            List<Hit> slice = ranked.subList(from, to);
+            boolean hasNext = to < ranked.size();
+            String nextCursor = hasNext
+                    ? CatalogCursor.encode(slice.getLast().score(), slice.getLast().id())
+                    : null;
+
+            return new SliceResponse<>(resolve(slice), hasNext, nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into lower-cased, accent-free alphanumeric terms.
+     * @param text The text to tokenize (may be null).
+     * @return The list of terms in their original order.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+
+        return Arrays.stream(TOKEN_SEPARATOR.split(folded))
+                .filter(term -> !term.isEmpty())
+                .toList();
+    }
+
+    // --- Internal helpers (callers must hold the write or read lock) ---
+
+    private List<Hit> rank(String keyword) {
+        List<String> terms = tokenize(keyword);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Integer> scores = null;
+
+        for (int i = 0; i < terms.size(); i++) {
+            boolean prefix = i == terms.size() - 1;
+            Map<Long, Integer> matches = prefix
+                    ? prefixMatches(terms.get(i))
+                    : postings.getOrDefault(terms.get(i), Map.of());
+
+            scores = scores == null ? new HashMap<>(matches) : intersect(scores, matches);
+
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> ranked.add(new Hit(id, score)));
+        ranked.sort(RANKING);
+        return ranked;
+    }
+
+    private List<Book> resolve(List<Hit> hits) {
+        return hits.stream().map(hit -> books.get(hit.id())).toList();
+    }
+
+    private void add(Book book) {
+        Map<String, Integer> weights = new HashMap<>();
+        addField(weights, book.getTitle(), TITLE_WEIGHT);
+        addField(weights, book.getAuthor(), AUTHOR_WEIGHT);
+        addField(weights, book.getCategory(), CATEGORY_WEIGHT);
+        addField(weights, book.getDescription(), DESCRIPTION_WEIGHT);
+
+        weights.forEach((term, weight) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(book.getId(), weight));
+
+        books.put(book.getId(), snapshot(book));
+        termsByBook.put(book.getId(), weights.keySet());
+    }
+
+    private void addField(Map<String, Integer> weights, String value, int weight) {
+        // Each field contributes its weight once per distinct term
+        new HashSet<>(tokenize(value)).forEach(term -> weights.merge(term, weight, Integer::sum));
+    }
+
+    private void unlink(Long bookId) {
+        Set<String> terms = termsByBook.remove(bookId);
+        books.remove(bookId);
+
+        if (terms == null) {
+            return;
+        }
+
+        for (String term : terms) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(bookId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private Map<Long, Integer> prefixMatches(String prefix) {
+        Map<Long, Integer> matches = new HashMap<>();
+
+        // Every term starting with the prefix sorts between the prefix and prefix + MAX_VALUE
+        postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                .values()
+                .forEach(posting -> posting.forEach((id, weight) -> matches.merge(id, weight, Math::max)));
+
+        return matches;
+    }
+
+    private Map<Long, Integer> intersect(Map<Long, Integer> scores, Map<Long, Integer> matches) {
+        Map<Long, Integer> result = new HashMap<>();
+
+        scores.forEach((id, score) -> {
+            Integer weight = matches.get(id);
+            if (weight != null) {
+                result.put(id, score + weight);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Copies the catalog fields of a book so that results never share state
+     * with entities managed by a persistence context.
+     */
+    private Book snapshot(Book book) {
+        Book copy = new Book();
+        copy.setId(book.getId());
+        copy.setIsbn(book.getIsbn());
+        copy.setTitle(book.getTitle());
+        copy.setAuthor(book.getAuthor());
+        copy.setDescription(book.getDescription());
+        copy.setPrice(book.getPrice());
+        copy.setCategory(book.getCategory());
+        copy.setStock(book.getStock());
+        return copy;
+    }
+
+    /**
+     * A matching book id together with its relevance score.
+     */
+    private record Hit(long id, int score) {
+    }
+}
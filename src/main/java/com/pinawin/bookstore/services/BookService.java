@@ -1,65 +1,188 @@
 package com.pinawin.bookstore.services;
 
+import com.pinawin.bookstore.DTO.BookResponse;
+import com.pinawin.bookstore.DTO.CategoryFacet;
+import com.pinawin.bookstore.DTO.PageResponse;
+import com.pinawin.bookstore.DTO.SliceResponse;
+import com.pinawin.bookstore.events.BookChangedEvent;
 import com.pinawin.bookstore.models.Book;
 import com.pinawin.bookstore.repositories.BookRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Service class for managing book-related business logic.
  * This class serves as an intermediary between the BookController 
- * and the BookRepository.
+ * and the BookRepository. Catalog reads return BookResponse records rather
+ * than entities, so responses never serialize JPA state.
  */
 @Service
 public class BookService {
 
     private final BookRepository bookRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookCatalogCache bookCatalogCache;
+    private final CategoryFacetIndex categoryFacetIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * Constructor-based dependency injection for BookRepository.
+     * Constructor-based dependency injection.
      * @param bookRepository The repository used for database interactions.
+     * @param bookSearchIndex The in-memory index serving catalog searches.
+     * @param bookCatalogCache The read-through cache for catalog list pages.
+     * @param categoryFacetIndex The in-memory index of books by normalized category.
+     * @param eventPublisher Publisher used to announce catalog changes.
      */
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository,
+                       BookSearchIndex bookSearchIndex,
+                       BookCatalogCache bookCatalogCache,
+                       CategoryFacetIndex categoryFacetIndex,
+                       ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookCatalogCache = bookCatalogCache;
+        this.categoryFacetIndex = categoryFacetIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Retrieves a paginated slice of all available books from the database.
+     * Persists a book and notifies in-memory catalog structures of the change.
+     * @param book The book to create or update.
+     * @return The persisted Book entity.
+     */
+    public Book saveBook(Book book) {
+        Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.saved(List.of(savedBook)));
+        return savedBook;
+    }
+
+    /**
+     * Retrieves a paginated slice of all available books.
+     * Pages are served from the catalog cache and loaded from the database on a miss.
      * @param page The zero-based page index to retrieve.
      * @param size The number of items per page.
-     * @return A Page object containing the requested slice of Book entities and metadata.
+     * @return A page of books and pagination metadata.
      */
-    public Page<Book> getAllBooks(int page, int size) {
+    public PageResponse<BookResponse> getAllBooks(int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        return bookRepository.findAll(pageable);
+        return bookCatalogCache.getPage("all:" + page + ":" + size,
+                () -> bookRepository.findAll(pageable));
     }
 
     /**
-     * Searches for books based on a keyword in the title.
-     * @param keyword The title snippet to search for.
+     * Searches for books matching a keyword in the title, author, category or description.
+     * Served entirely from the in-memory search index, ranked by relevance.
+     * @param keyword The search text entered by the user.
      * @param page The zero-based page index to retrieve.
      * @param size The number of items per page.
-     * @return A Page object containing books matching the search criteria.
+     * @return A page of books matching the search criteria.
      */
-    public Page<Book> searchBooks(String keyword, int page, int size) {
-        Pageable  pageable = PageRequest.of(page, size);
-        return bookRepository.findByTitleContainingIgnoreCase(keyword,  pageable);
+    public PageResponse<BookResponse> searchBooks(String keyword, int page, int size) {
+        return PageResponse.of(bookSearchIndex.search(keyword, page, size), BookResponse::from);
     }
 
     /**
      * Filters the catalog by a specific book category with pagination support.
+     * Pages are served from the catalog cache and loaded from the database on a miss.
      * @param category The category name (e.g., "Fiction", "Science").
      * @param page The zero-based page index to retrieve.
      * @param size The number of items per page.
-     * @return A Page object containing books belonging to the specified category.
+     * @return A page of books belonging to the specified category.
      */
-    public Page<Book> filterByCategory(String category, int page, int size) {
+    public PageResponse<BookResponse> filterByCategory(String category, int page, int size) {
         Pageable  pageable = PageRequest.of(page, size);
-        return bookRepository.findByCategoryContainingIgnoreCase(category,  pageable);
+        return bookCatalogCache.getPage("category:" + category.toLowerCase(Locale.ROOT) + ":" + page + ":" + size,
+                () -> bookRepository.findByCategoryContainingIgnoreCase(category,  pageable));
     }
 
-}
+    /**
+     * Lists every category with its book and in-stock counts for category navigation.
+     * Served from the facet index without querying the database.
+     * @return The category facets ordered by key.
+     */
+    public List<CategoryFacet> getCategoryFacets() {
+        return categoryFacetIndex.facets();
+    }
+
+    /**
+     * Filters the catalog to one category, matched exactly after normalization
+     * rather than as a substring. The facet index supplies the ids of the page,
+     * which are then loaded by primary key.
+     * @param category The category name or facet key.
+     * @param page The zero-based page index to retrieve.
+     * @param size The number of items per page.
+     * @return A page of the category's books ordered by id.
+     */
+    public PageResponse<BookResponse> filterByExactCategory(String category, int page, int size) {
+        Page<Long> ids = categoryFacetIndex.bookIds(category, page, size);
+        List<Book> books = ids.isEmpty() ? List.of() : bookRepository.findAllById(ids.getContent()).stream()
+                .sorted(Comparator.comparing(Book::getId))
+                .toList();
+        return PageResponse.of(new PageImpl<>(books, ids.getPageable(), ids.getTotalElements()), BookResponse::from);
+    }
 
+    /**
+     * Retrieves a slice of the catalog using keyset pagination on the book id.
+     * No COUNT query is issued and deep slices cost the same as the first one.
+     * @param cursor The continuation token from the previous slice, or blank for the first slice.
+     * @param size The number of items per slice.
+     * @return A SliceResponse with the books and the token for the next slice.
+     */
+    public SliceResponse<BookResponse> getAllBooksSlice(String cursor, int size) {
+        long lastId = cursor == null || cursor.isBlank() ? 0L : CatalogCursor.decodeId(cursor);
+        Slice<Book> slice = bookRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, size));
+
+        String nextCursor = slice.hasNext()
+                ? CatalogCursor.encode(slice.getContent().getLast().getId())
+                : null;
+        return new SliceResponse<>(slice.map(BookResponse::from).getContent(), slice.hasNext(), nextCursor);
+    }
+
+    /**
+     * Cursor-based variant of {@link #searchBooks(String, int, int)}.
+     * @param keyword The search text entered by the user.
+     * @param cursor The continuation token from the previous slice, or blank for the first slice.
+     * @param size The number of items per slice.
+     * @return A SliceResponse with the ranked books and the token for the next slice.
+     */
+    public SliceResponse<BookResponse> searchBooksSlice(String keyword, String cursor, int size) {
+        return bookSearchIndex.searchSlice(keyword, cursor, size).map(BookResponse::from);
+    }
+
+    /**
+     * Cursor-based variant of {@link #filterByCategory(String, int, int)},
+     * ordered and seeked by (category, id).
+     * @param category The category name to filter by.
+     * @param cursor The continuation token from the previous slice, or blank for the first slice.
+     * @param size The number of items per slice.
+     * @return A SliceResponse with the books and the token for the next slice.
+     */
+    public SliceResponse<BookResponse> filterByCategorySlice(String category, String cursor, int size) {
+        Pageable pageable = PageRequest.of(0, size);
+        Slice<Book> slice;
+
+        if (cursor == null || cursor.isBlank()) {
+            slice = bookRepository.findCategorySlice(category, pageable);
+        } else {
+            String[] keys = CatalogCursor.decode(cursor, 2);
+            slice = bookRepository.findCategorySliceAfter(
+                    category, keys[0], CatalogCursor.toLong(keys[1]), pageable);
+        }
+
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            Book last = slice.getContent().getLast();
+            nextCursor = CatalogCursor.encode(last.getCategory(), last.getId());
+        }
+        return new SliceResponse<>(slice.map(BookResponse::from).getContent(), slice.hasNext(), nextCursor);
+    }
+}
@@ -0,0 +1,272 @@
+package com.pinawin.bookstore.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of cart changes that have not been written to the database yet.
+ * Records are appended to the active file; each flush rotates it into a numbered
+ * segment (cart-journal.log.1, .2, ...) that is deleted once the flush succeeds.
+ * After a crash, the remaining segments and the active file are replayed in order.
+ * <p>
+ * Appending only queues a record in memory and returns its sequence number, so it can
+ * be done while holding a cart's lock. {@link #sync(long)} then makes the record durable
+ * outside that lock with group commit: one caller writes every queued record in a single
+ * write and flush, and callers whose records were in that group return without any I/O.
+ * Rotation and syncs take turns on the file; the discard and recovery methods are only
+ * called by the periodic flush and at startup.
+ */
+final class CartJournal {
+
+    /**
+     * Work done on the file by the single thread currently allowed to write.
+     */
+    private interface FileWork<T> {
+        T run(List<String> group) throws IOException;
+    }
+
+    private final Path file;
+
+    // Guards the queue and the sequence numbers; never held during I/O
+    private final Object monitor = new Object();
+    private List<String> queued = new ArrayList<>();
+    private long appended;
+    private long written;
+    private boolean writing;
+
+    // Only used by the thread that set writing
+    private BufferedWriter writer;
+
+    CartJournal(Path file) {
+        this.file = file.toAbsolutePath();
+        try {
+            Files.createDirectories(this.file.getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create cart journal directory", e);
+        }
+    }
+
+    /**
+     * Queues one record for the next group write.
+     * @param record A single-line record.
+     * @return The sequence number of the record, to pass to {@link #sync(long)}.
+     */
+    long append(String record) {
+        synchronized (monitor) {
+            queued.add(record);
+            return ++appended;
+        }
+    }
+
+    /**
+     * @return The sequence number of the last queued record.
+     */
+    long lastSequence() {
+        synchronized (monitor) {
+            return appended;
+        }
+    }
+
+    /**
+     * Waits until every record up to the given sequence number has been written and
+     * flushed to the operating system, writing the queued group itself if no other
+     * caller is doing so.
+     * @param sequence A sequence number returned by {@link #append(String)}.
+     */
+    void sync(long sequence) {
+        while (true) {
+            synchronized (monitor) {
+                while (writing && written < sequence) {
+                    awaitWriter();
+                }
+                if (written >= sequence) {
+                    return;
+                }
+            }
+
+            exclusively(group -> {
+                for (String record : group) {
+                    writer().write(record);
+                    writer().newLine();
+                }
+                writer().flush();
+                return null;
+            }, "Could not write cart journal");
+        }
+    }
+
+    /**
+     * Writes the queued records, closes the active file and renames it to the next segment number.
+     * Records queued afterwards go to a new active file.
+     * @return The segment number, or 0 if there was nothing to rotate.
+     */
+    long rotate() {
+        return exclusively(group -> {
+            for (String record : group) {
+                writer().write(record);
+                writer().newLine();
+            }
+            closeWriter();
+
+            if (!Files.exists(file) || Files.size(file) == 0) {
+                return 0L;
+            }
+            long next = segmentNumbers().stream().mapToLong(Long::longValue).max().orElse(0) + 1;
+            Files.move(file, segment(next));
+            return next;
+        }, "Could not rotate cart journal");
+    }
+
+    /**
+     * Deletes every segment up to and including the given number.
+     * @param upTo The last segment whose records are now in the database.
+     */
+    void discardSegments(long upTo) {
+        for (long number : segmentNumbers()) {
+            if (number <= upTo) {
+                delete(segment(number));
+            }
+        }
+    }
+
+    /**
+     * @return Every record still on disk: rotated segments in order, then the active file.
+     */
+    List<String> readAll() {
+        List<String> records = new ArrayList<>();
+        try {
+            for (long number : segmentNumbers()) {
+                records.addAll(Files.readAllLines(segment(number), StandardCharsets.UTF_8));
+            }
+            if (Files.exists(file)) {
+                records.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read cart journal", e);
+        }
+        return records;
+    }
+
+    /**
+     * Deletes the active file and every segment.
+     */
+    void discardAll() {
+        close();
+        discardSegments(Long.MAX_VALUE);
+        delete(file);
+    }
+
+    /**
+     * Writes the queued records and closes the active file.
+     */
+    void close() {
+        exclusively(group -> {
+            for (String record : group) {
+                writer().write(record);
+                writer().newLine();
+            }
+            closeWriter();
+            return null;
+        }, "Could not close cart journal");
+    }
+
+    /**
+     * Runs file work as the only writer, on the records queued so far. If the work fails,
+     * the records are put back at the head of the queue for the next attempt.
+     */
+    private <T> T exclusively(FileWork<T> work, String failure) {
+        List<String> group;
+        long upTo;
+
+        synchronized (monitor) {
+            while (writing) {
+                awaitWriter();
+            }
+            writing = true;
+            group = queued;
+            queued = new ArrayList<>();
+            upTo = appended;
+        }
+
+        boolean done = false;
+        try {
+            T result = work.run(group);
+            done = true;
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(failure, e);
+        } finally {
+            synchronized (monitor) {
+                if (done) {
+                    written = upTo;
+                } else {
+                    group.addAll(queued);
+                    queued = group;
+                }
+                writing = false;
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    private void awaitWriter() {
+        try {
+            monitor.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing the cart journal", e);
+        }
+    }
+
+    private BufferedWriter writer() throws IOException {
+        if (writer == null) {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        return writer;
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            try {
+                writer.close();
+            } finally {
+                writer = null;
+            }
+        }
+    }
+
+    private List<Long> segmentNumbers() {
+        String prefix = file.getFileName() + ".";
+        try (Stream<Path> siblings = Files.list(file.getParent())) {
+            return siblings.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.substring(prefix.length()).matches("\\d+"))
+                    .map(name -> Long.parseLong(name.substring(prefix.length())))
+                    .sorted(Comparator.naturalOrder())
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list cart journal segments", e);
+        }
+    }
+
+    private Path segment(long number) {
+        return file.resolveSibling(file.getFileName() + "." + number);
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete cart journal file", e);
+        }
+    }
+}
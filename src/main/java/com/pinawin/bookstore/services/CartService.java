@@ -1,14 +1,16 @@
 package com.pinawin.bookstore.services;
 
+import com.pinawin.bookstore.DTO.CartLineRequest;
 import com.pinawin.bookstore.models.Book;
 import com.pinawin.bookstore.models.CartItem;
 import com.pinawin.bookstore.models.User;
 import com.pinawin.bookstore.repositories.BookRepository;
-import com.pinawin.bookstore.repositories.CartItemRepository;
 import jakarta.transaction.Transactional;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
+import java.util.*;
 
 /**
  * Service class for managing shopping cart business logic.
@@ -17,35 +19,41 @@ import java.util.List;
 @Service
 public class CartService {
 
-    private final CartItemRepository cartItemRepository;
+    /**
+     * Most distinct books one batch update may change.
+     */
+    static final int MAX_BATCH_LINES = 100;
+
     private final BookRepository bookRepository;
+    private final BookCatalogCache bookCatalogCache;
+    private final CartStore cartStore;
 
     /**
      * Constructor for dependency injection.
-     * @param cartItemRepository Repository for cart item data access.
      * @param bookRepository Repository for book data access.
+     * @param bookCatalogCache Read-through cache used to look up books by id.
+     * @param cartStore Storage for cart lines (database or write-behind, see bookstore.cart.store).
      */
-    public CartService(CartItemRepository cartItemRepository,
-                       BookRepository bookRepository) {
-        this.cartItemRepository = cartItemRepository;
+    public CartService(BookRepository bookRepository,
+                       BookCatalogCache bookCatalogCache,
+                       CartStore cartStore) {
         this.bookRepository = bookRepository;
+        this.bookCatalogCache = bookCatalogCache;
+        this.cartStore = cartStore;
     }
 
     /**
-     * Removes all items from the database for a specific user.
+     * Removes all items from a specific user's cart.
      * @param user The authenticated user whose cart is being emptied.
-     * @Transactional is required for delete operations in Spring Data JPA.
      */
-    @Transactional // Ensures the deletion is atomic; if it fails, nothing is deleted.
     public void clearCart(User user) {
-        // Calls the repository to delete all rows matching the user_id
-        cartItemRepository.deleteAllByUser(user);
+        cartStore.clear(user);
     }
 
     /**
      * Adds a book to a user's shopping cart.
      * If the book is already present in the cart, the quantity is incremented by 1.
-     * Otherwise, a new CartItem record is created.
+     * Otherwise, a new cart line is created.
      * @param user The user adding the book.
      * @param bookId The ID of the book to add.
      * @return The saved or updated CartItem.
@@ -53,31 +61,16 @@ public class CartService {
      */
     public CartItem addToCart(User user, Long bookId) {
 
-        // Retrieve book details or throw exception if not found
-        Book book = bookRepository.findById(bookId)
+        // Retrieve book details (cached) or throw exception if not found
+        Book book = bookCatalogCache.getBook(bookId, bookRepository::findById)
                 .orElseThrow(() -> new RuntimeException("Book not found"));
 
         if (book.getStock() <= 0) {
             throw new RuntimeException("This book is currently out of stock.");
         }
 
-        // Check if the book is already in the user's cart
-        CartItem cartItem = cartItemRepository
-                .findByUserAndBook(user, book)
-                .orElse(null);
-
-        if (cartItem == null) {
-            // Create a new entry if the book wasn't in the cart
-            cartItem = new CartItem();
-            cartItem.setUser(user);
-            cartItem.setBook(book);
-            cartItem.setQuantity(1);
-        } else {
-            // Increment quantity if book already exists in the cart
-            cartItem.setQuantity(cartItem.getQuantity() + 1);
-        }
-
-        return cartItemRepository.save(cartItem);
+        // Create the line or increment its quantity
+        return cartStore.add(user, book);
     }
 
     /**
@@ -86,6 +79,91 @@ public class CartService {
      * @return A list of CartItem entities.
      */
     public List<CartItem> getCart(User user) {
-        return cartItemRepository.findByUser(user);
+        return cartStore.items(user);
+    }
+
+    /**
+     * Changes several lines of a user's cart in one transaction.
+     * Lines for the same book are combined. Stock is checked for every book with a single
+     * query before anything is written: a book that gains copies must have enough stock
+     * for the line's new quantity. Removing copies is always allowed, and a line that
+     * drops to zero or below is removed.
+     * @param user The owner of the cart.
+     * @param lines The requested changes, as (bookId, delta) pairs.
+     * @return The cart after the changes.
+     * @throws IllegalArgumentException if the request is empty, too large, or names an unknown book.
+     * @throws ResponseStatusException 409 Conflict "Not enough stock for book: ..." if any line cannot be satisfied.
+     */
+    @Transactional
+    public List<CartItem> updateCart(User user, List<CartLineRequest> lines) {
+
+        // 1. Combine the changes per book, keeping the order the books were first named in
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        for (CartLineRequest line : lines) {
+            if (line.getBookId() == null) {
+                throw new IllegalArgumentException("Every line needs a bookId");
+            }
+            deltas.merge(line.getBookId(), line.getDelta(), CartService::addQuantities);
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+
+        if (deltas.isEmpty()) {
+            throw new IllegalArgumentException("No cart changes given");
+        }
+        if (deltas.size() > MAX_BATCH_LINES) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_LINES + " books can be changed at once");
+        }
+
+        // 2. Load the current cart, then every named book with its current stock in one query
+        Map<Long, CartItem> cart = new LinkedHashMap<>();
+        for (CartItem item : cartStore.items(user)) {
+            cart.put(item.getBook().getId(), item);
+        }
+
+        Map<Long, Book> books = new HashMap<>();
+        for (Book book : bookRepository.findAllById(deltas.keySet())) {
+            books.put(book.getId(), book);
+        }
+
+        // 3. Validate every line before writing anything
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        cart.forEach((bookId, item) -> quantities.put(bookId, item.getQuantity()));
+
+        deltas.forEach((bookId, delta) -> {
+            Book book = books.get(bookId);
+            if (book == null) {
+                throw new IllegalArgumentException("Book not found: " + bookId);
+            }
+
+            int quantity = Math.max(0, addQuantities(quantities.getOrDefault(bookId, 0), delta));
+            if (delta > 0 && quantity > book.getStock()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Not enough stock for book: " + book.getTitle());
+            }
+            quantities.put(bookId, quantity);
+        });
+
+        // 4. Write all changes at once
+        cartStore.apply(user, deltas);
+
+        // 5. Build the resulting cart from what was read and written, without reading it again
+        List<CartItem> result = new ArrayList<>(quantities.size());
+        quantities.forEach((bookId, quantity) -> {
+            if (quantity > 0) {
+                CartItem item = new CartItem();
+                item.setUser(user);
+                item.setBook(books.containsKey(bookId) ? books.get(bookId) : cart.get(bookId).getBook());
+                item.setQuantity(quantity);
+                result.add(item);
+            }
+        });
+        return result;
+    }
+
+    private static int addQuantities(int a, int b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Quantity out of range");
+        }
     }
 }
@@ -0,0 +1,50 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+import com.pinawin.bookstore.models.User;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage used by the CartService for shopping cart lines.
+ * Exactly one implementation is active, selected by the bookstore.cart.store property.
+ */
+public interface CartStore {
+
+    /**
+     * Adds one copy of a book to a user's cart.
+     * @param user The owner of the cart.
+     * @param book The book being added (already validated by the caller).
+     * @return The cart line with its new quantity.
+     */
+    CartItem add(User user, Book book);
+
+    /**
+     * Changes the quantities of several lines of a user's cart at once.
+     * @param user The owner of the cart.
+     * @param deltas Book id -> change in quantity (already validated by the caller);
+     *               a line whose quantity drops to zero or below is removed.
+     */
+    void apply(User user, Map<Long, Integer> deltas);
+
+    /**
+     * @param user The owner of the cart.
+     * @return The lines currently in the user's cart.
+     */
+    List<CartItem> items(User user);
+
+    /**
+     * Removes every line from a user's cart.
+     * @param user The owner of the cart.
+     */
+    void clear(User user);
+
+    /**
+     * Makes sure the cart_items table reflects every change to a user's cart.
+     * Called when checkout starts, since checkout reads and deletes cart rows directly.
+     * @param user The owner of the cart.
+     */
+    void flush(User user);
+}
@@ -0,0 +1,77 @@
+package com.pinawin.bookstore.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque continuation tokens used by keyset pagination.
+ * A token is the URL-safe Base64 form of the sort-key values of the last row
+ * returned, e.g. "(id)" for the full catalog or "(category, id)" for a category listing.
+ */
+final class CatalogCursor {
+
+    // ASCII unit separator: cannot appear in user-entered category names
+    private static final String SEPARATOR = "\u001F";
+
+    private CatalogCursor() {
+    }
+
+    /**
+     * Builds a token from the sort-key values of the last row of a slice.
+     * @param keys The key values in sort order.
+     * @return The opaque continuation token.
+     */
+    static String encode(Object... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Splits a token back into its sort-key values.
+     * @param token The token previously produced by {@link #encode(Object...)}.
+     * @param keyCount The number of key values expected.
+     * @return The decoded key values as strings.
+     * @throws ResponseStatusException (400) if the token is malformed.
+     */
+    static String[] decode(String token, int keyCount) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] keys = raw.split(SEPARATOR, -1);
+            if (keys.length != keyCount) {
+                throw new IllegalArgumentException("Unexpected cursor shape");
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    /**
+     * Decodes a token holding a single numeric key (e.g., a book id).
+     */
+    static long decodeId(String token) {
+        return toLong(decode(token, 1)[0]);
+    }
+
+    /**
+     * Parses a decoded numeric key.
+     * @throws ResponseStatusException (400) if the key is not a number.
+     */
+    static long toLong(String key) {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
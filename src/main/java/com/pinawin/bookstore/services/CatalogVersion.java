@@ -0,0 +1,86 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.events.BookChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Version stamp of the whole catalog, used as the validator for HTTP caching.
+ * It changes whenever a book is saved or its stock changes, so a client holding
+ * the current ETag is known to have up-to-date catalog responses and can be
+ * answered with 304 Not Modified without touching the database.
+ * Tags combine the boot time with a change counter, so tags issued before a restart never match.
+ */
+@Component
+public class CatalogVersion {
+
+    private final Clock clock;
+    private final String epoch;
+
+    private volatile Stamp stamp;
+
+    /**
+     * Creates the version stamp, starting at the current time.
+     */
+    public CatalogVersion() {
+        this(Clock.systemUTC());
+    }
+
+    CatalogVersion(Clock clock) {
+        this.clock = clock;
+        this.epoch = Long.toString(clock.millis(), 36);
+        this.stamp = new Stamp(0, now());
+    }
+
+    /**
+     * Moves to a new version after a catalog change commits.
+     * Ordered after the catalog caches and indexes have applied the change, so a
+     * response carrying the new ETag is never built from stale data.
+     * @param event The event describing the change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onBooksChanged(BookChangedEvent event) {
+        bump();
+    }
+
+    /**
+     * Moves to a new version.
+     */
+    public synchronized void bump() {
+        stamp = new Stamp(stamp.version() + 1, now());
+    }
+
+    /**
+     * The tag is weak (W/"..."): it names a catalog version rather than exact bytes, so the
+     * same tag is valid for the gzip and identity encodings of a response. Tomcat also
+     * refuses to compress responses that carry a strong ETag.
+     * @return A weak entity tag identifying the current catalog version.
+     */
+    public String etag() {
+        return "W/\"" + epoch + "-" + Long.toString(stamp.version(), 36) + "\"";
+    }
+
+    /**
+     * @return The time of the last change, truncated to seconds as sent in Last-Modified.
+     */
+    public Instant lastModified() {
+        return stamp.lastModified();
+    }
+
+    private Instant now() {
+        return clock.instant().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Version and change time, swapped together so readers never see a mix of two versions.
+     */
+    private record Stamp(long version, Instant lastModified) {
+    }
+}
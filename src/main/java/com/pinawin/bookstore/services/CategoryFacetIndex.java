@@ -0,0 +1,240 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.BookFacetRow;
+import com.pinawin.bookstore.DTO.CategoryFacet;
+import com.pinawin.bookstore.events.BookChangedEvent;
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.repositories.BookRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index from normalized category to the ids of its books.
+ * Keeps per-category book and in-stock counts up to date as books are saved
+ * and stock changes, so category navigation and exact category filtering are
+ * answered without scanning the books table.
+ */
+@Component
+public class CategoryFacetIndex {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final BookRepository bookRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Normalized category -> facet with its book ids and counts.
+     */
+    private final Map<String, Facet> facets = new HashMap<>();
+
+    /**
+     * Book id -> where the book is currently counted, used to move it on update.
+     */
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    /**
+     * Changes applied while a rebuild reads the catalog, replayed on top of what it read;
+     * null when no rebuild is running.
+     */
+    private List<BookFacetRow> changedDuringRebuild;
+
+    /**
+     * Constructor-based dependency injection for BookRepository.
+     * @param bookRepository The repository used to load the catalog on startup.
+     */
+    public CategoryFacetIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Builds the index from the id, category and stock of every book once the application has started.
+     * Requests are already being served by then, so changes committed while the catalog is read are
+     * recorded and applied again afterwards: the rows read may predate them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<BookFacetRow> rows = null;
+        try {
+            rows = bookRepository.findFacetRows();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (rows != null) {
+                    facets.clear();
+                    entries.clear();
+                    rows.forEach(this::apply);
+                    changedDuringRebuild.forEach(this::apply);
+                }
+            } finally {
+                changedDuringRebuild = null;
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Updates the counts after books are saved or their stock changes.
+     * Runs after the surrounding transaction commits, so rolled-back changes are never counted.
+     * @param event The event carrying the modified books.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE) // Before CatalogVersion issues a new ETag
+    public void onBooksChanged(BookChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Book book : event.books()) {
+                BookFacetRow row = new BookFacetRow(book.getId(), book.getCategory(), book.getStock());
+                apply(row);
+                if (changedDuringRebuild != null) {
+                    changedDuringRebuild.add(row);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Every category with its book and in-stock counts, ordered by key.
+     */
+    public List<CategoryFacet> facets() {
+        lock.readLock().lock();
+        try {
+            return facets.entrySet().stream()
+                    .map(entry -> entry.getValue().toFacet(entry.getKey()))
+                    .sorted(Comparator.comparing(CategoryFacet::key))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns one page of the books in a category, matched exactly after normalization
+     * (so "Science Fiction" and " science  fiction" are the same category).
+     * @param category The category name or facet key.
+     * @param page The zero-based page index to retrieve.
+     * @param size The number of items per page.
+     * @return A Page of book ids in ascending order.
+     */
+    public Page<Long> bookIds(String category, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+
+        lock.readLock().lock();
+        try {
+            Facet facet = facets.get(normalize(category));
+            if (facet == null) {
+                return Page.empty(pageable);
+            }
+
+            List<Long> content = facet.bookIds.stream()
+                    .skip(pageable.getOffset())
+                    .limit(size)
+                    .toList();
+            return new PageImpl<>(content, pageable, facet.bookIds.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Folds a free-text category into its facet key: trimmed, lower-cased,
+     * accent-free and with runs of whitespace collapsed to one space.
+     * @param category The category as entered (may be null).
+     * @return The facet key, empty for a missing category.
+     */
+    static String normalize(String category) {
+        if (category == null) {
+            return "";
+        }
+
+        String folded = DIACRITICS.matcher(Normalizer.normalize(category.trim(), Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(folded).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    // --- Internal helpers (callers must hold the write lock) ---
+
+    private void apply(BookFacetRow row) {
+        remove(row.id());
+        add(row.id(), row.category(), row.stock());
+    }
+
+    private void add(Long bookId, String category, int stock) {
+        String key = normalize(category);
+        if (key.isEmpty()) {
+            // Uncategorized books are not part of any facet
+            return;
+        }
+
+        boolean inStock = stock > 0;
+        Facet facet = facets.computeIfAbsent(key, k -> new Facet(category.trim()));
+        facet.bookIds.add(bookId);
+        if (inStock) {
+            facet.inStock++;
+        }
+        entries.put(bookId, new Entry(key, inStock));
+    }
+
+    private void remove(Long bookId) {
+        Entry entry = entries.remove(bookId);
+        if (entry == null) {
+            return;
+        }
+
+        Facet facet = facets.get(entry.key());
+        facet.bookIds.remove(bookId);
+        if (entry.inStock()) {
+            facet.inStock--;
+        }
+        if (facet.bookIds.isEmpty()) {
+            facets.remove(entry.key());
+        }
+    }
+
+    /**
+     * Books of one category, kept sorted by id for stable pagination.
+     */
+    private static final class Facet {
+
+        private final String label;
+        private final NavigableSet<Long> bookIds = new TreeSet<>();
+        private int inStock;
+
+        private Facet(String label) {
+            this.label = label;
+        }
+
+        private CategoryFacet toFacet(String key) {
+            return new CategoryFacet(key, label, bookIds.size(), inStock);
+        }
+    }
+
+    /**
+     * The facet a book is counted in, and whether it counts as in stock there.
+     */
+    private record Entry(String key, boolean inStock) {
+    }
+}
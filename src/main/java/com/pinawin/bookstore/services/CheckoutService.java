@@ -1,19 +1,37 @@
 package com.pinawin.bookstore.services;
 
+import com.pinawin.bookstore.events.BookChangedEvent;
+import com.pinawin.bookstore.events.OrderPlacedEvent;
 import com.pinawin.bookstore.models.*;
 import com.pinawin.bookstore.repositories.BookRepository;
 import com.pinawin.bookstore.repositories.CartItemRepository;
 import com.pinawin.bookstore.repositories.OrderRepository;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Service class responsible for the checkout process.
  * This service handles the transition from a temporary shopping cart 
  * to a permanent order, ensuring stock levels are updated correctly.
+ * The order is returned as PLACED; payment and shipping happen afterwards in the OrderPipeline.
+ * Every checkout is timed as a whole (bookstore.checkout, by outcome) and per
+ * stage (bookstore.checkout.stage: load_cart, validate_stock, persist_order, clear_cart).
+ * Checkouts that fail on a concurrent stock change are counted in bookstore.checkout.conflicts
+ * (by result: retried, aborted).
  */
 @Service
 public class CheckoutService {
@@ -21,32 +39,128 @@ public class CheckoutService {
     private final CartItemRepository cartItemRepository;
     private final OrderRepository orderRepository;
     private final BookRepository bookRepository;
+    private final StockReservationStrategy stockReservation;
+    private final CartStore cartStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Timer loadCartTimer;
+    private final Timer validateStockTimer;
+    private final Timer persistOrderTimer;
+    private final Timer clearCartTimer;
+    private final DistributionSummary cartLines;
+    private final Counter retriedConflicts;
+    private final Counter abortedConflicts;
 
     public CheckoutService(CartItemRepository cartItemRepository,
                            OrderRepository orderRepository,
-                           BookRepository bookRepository) {
+                           BookRepository bookRepository,
+                           StockReservationStrategy stockReservation,
+                           CartStore cartStore,
+                           ApplicationEventPublisher eventPublisher,
+                           MeterRegistry meterRegistry,
+                           PlatformTransactionManager transactionManager) {
         this.cartItemRepository = cartItemRepository;
         this.orderRepository = orderRepository;
         this.bookRepository = bookRepository;
+        this.stockReservation = stockReservation;
+        this.cartStore = cartStore;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.loadCartTimer = stageTimer("load_cart");
+        this.validateStockTimer = stageTimer("validate_stock");
+        this.persistOrderTimer = stageTimer("persist_order");
+        this.clearCartTimer = stageTimer("clear_cart");
+        this.cartLines = DistributionSummary.builder("bookstore.checkout.cart.lines")
+                .description("Distinct books per checked-out cart")
+                .register(meterRegistry);
+        this.retriedConflicts = conflictCounter("retried");
+        this.abortedConflicts = conflictCounter("aborted");
     }
 
     /**
      * Executes the checkout transaction for a given user.
-     * The @Transactional annotation ensures that if any part of the process fails 
+     * Each attempt runs in its own transaction, so if any part of the process fails
      * (e.g., insufficient stock), all changes are rolled back.
+     * An attempt that fails because another checkout changed the same books is run again
+     * from the start, as often as the inventory strategy allows: inside the failed
+     * transaction the newer stock would not be visible (REPEATABLE READ).
      * @param user The authenticated user performing the checkout.
      * @return The saved Order entity.
      * @throws RuntimeException if the cart is empty or requested stock is unavailable.
+     * @throws ResponseStatusException 409 Conflict if every attempt lost a race for the same stock.
      */
-    @Transactional
     public Order checkout(User user) {
+        Timer.Sample checkoutSample = Timer.start(meterRegistry);
+        String outcome = "failure";
+
+        try {
+            Order savedOrder = placeOrderWithRetry(user);
+            outcome = "success";
+            return savedOrder;
+        } finally {
+            checkoutSample.stop(Timer.builder("bookstore.checkout")
+                    .description("Time to check out a cart, including failed checkouts")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private Order placeOrderWithRetry(User user) {
+        int maxAttempts = stockReservation.maxAttempts();
+
+        for (int attempt = 1; ; attempt++) {
+            // Write any cart changes still held in memory before the order transaction starts: the cart
+            // store commits them on a connection of its own, which inside the transaction would be a
+            // second connection per checkout and could exhaust the pool
+            cartStore.flush(user);
+
+            try {
+                return transactionTemplate.execute(status -> placeOrder(user));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    abortedConflicts.increment();
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Stock changed during checkout, please try again", e);
+                }
+                retriedConflicts.increment();
+                pause(stockReservation.backoff(), attempt);
+            }
+        }
+    }
+
+    /**
+     * Waits before the next attempt: the base backoff doubled per failed attempt, with random
+     * jitter so that checkouts that collided do not collide again.
+     */
+    private static void pause(Duration backoff, int attempt) {
+        long maxMillis = backoff.toMillis() << (attempt - 1);
+        if (maxMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxMillis / 2, maxMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Checkout interrupted", e);
+        }
+    }
 
-        // 1. Retrieve all items currently in the user's cart
+    private Order placeOrder(User user) {
+
+        // 1. Retrieve all items in the user's cart
+        Timer.Sample stage = Timer.start(meterRegistry);
         List<CartItem> cartItems = cartItemRepository.findByUser(user);
+        stage.stop(loadCartTimer);
 
         if (cartItems.isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
+        cartLines.record(cartItems.size());
 
         // 2. Initialize a new Order entity
         Order order = new Order();
@@ -54,21 +168,17 @@ public class CheckoutService {
 
         BigDecimal total = BigDecimal.ZERO;
 
-        // 3. Process each item in the cart
+        // 3. Validate and reserve inventory for every line (all or nothing)
+        stage = Timer.start(meterRegistry);
+        List<Book> updatedBooks = stockReservation.reserve(cartItems);
+        stage.stop(validateStockTimer);
+
+        // 4. Process each item in the cart
+        stage = Timer.start(meterRegistry);
         for (CartItem cartItem : cartItems) {
 
             Book book = cartItem.getBook();
 
-            // Validate inventory: Check if enough stock exists for the requested quantity
-            if (book.getStock() < cartItem.getQuantity()) {
-                throw new RuntimeException(
-                        "Not enough stock for book: " + book.getTitle()
-                );
-            }
-
-            // Update inventory: Reduce stock immediately
-            book.setStock(book.getStock() - cartItem.getQuantity());
-
             // Create a snapshot of the item for the order history
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
@@ -85,18 +195,45 @@ public class CheckoutService {
             );
         }
 
-        // 4. Finalize order details
+        // 5. Finalize order details
         order.setTotalAmount(total);
         order.setStatus(OrderStatus.PLACED);
 
-        // 5. Persist the order and associated order items to the database
+        // 6. Persist the order and associated order items to the database.
+        // Flushing here sends the batched inserts and stock updates now, so their cost lands in this stage
         Order savedOrder = orderRepository.save(order);
+        orderRepository.flush();
+        stage.stop(persistOrderTimer);
 
-        // 6. Clear the user's shopping cart upon successful order placement
+        // 7. Clear the user's shopping cart upon successful order placement
+        stage = Timer.start(meterRegistry);
         cartItemRepository.deleteAll(cartItems);
+        cartItemRepository.flush();
+        stage.stop(clearCartTimer);
+
+        // 8. Announce the stock changes; listeners apply them once the transaction commits
+        if (!updatedBooks.isEmpty()) {
+            eventPublisher.publishEvent(BookChangedEvent.stockChanged(updatedBooks));
+        }
+
+        // 9. Hand the order to the fulfilment pipeline (payment, shipping) and the sales rollup once the transaction commits
+        eventPublisher.publishEvent(OrderPlacedEvent.of(savedOrder));
 
         return savedOrder;
     }
-}
 
+    private Counter conflictCounter(String result) {
+        return Counter.builder("bookstore.checkout.conflicts")
+                .description("Checkout attempts that failed because the same stock changed concurrently")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
 
+    private Timer stageTimer(String stage) {
+        return Timer.builder("bookstore.checkout.stage")
+                .description("Time spent in one stage of a checkout")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
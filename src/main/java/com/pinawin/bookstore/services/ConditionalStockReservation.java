@@ -0,0 +1,67 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.BookStock;
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+import com.pinawin.bookstore.repositories.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Inventory strategy that checks and decrements the stock of each line with a single
+ * conditional statement (UPDATE books SET stock = stock - ? WHERE id = ? AND stock >= ?).
+ * The database applies the check and the write atomically, so no row is read or locked
+ * beforehand and a checkout only fails when stock has really run out. Statements run in
+ * ascending id order, so overlapping checkouts cannot deadlock on the row locks they take.
+ * Enabled with bookstore.inventory.strategy=conditional.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.inventory.strategy", havingValue = "conditional")
+public class ConditionalStockReservation implements StockReservationStrategy {
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+
+    /**
+     * Constructor-based dependency injection.
+     * @param bookRepository Used to decrement and re-read stock.
+     * @param entityManager The shared entity manager, bound to the checkout transaction.
+     */
+    public ConditionalStockReservation(BookRepository bookRepository, EntityManager entityManager) {
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Decrements every line with one conditional update. If a line cannot be satisfied the
+     * checkout fails, and the decrements already made are undone when its transaction rolls back.
+     * @param cartItems The cart lines being checked out.
+     * @return The books with their new stock levels.
+     */
+    @Override
+    public List<Book> reserve(List<CartItem> cartItems) {
+        SortedMap<Long, Integer> quantities = StockLines.quantities(cartItems);
+        Map<Long, Book> books = StockLines.books(cartItems);
+
+        // 1. Check and decrement each line in one statement
+        quantities.forEach((id, quantity) -> {
+            if (bookRepository.decrementStock(id, quantity) == 0) {
+                throw StockLines.notEnoughStock(books.get(id));
+            }
+        });
+
+        // 2. Read back the resulting levels, which include concurrent checkouts of the same books
+        Map<Long, Integer> stock = new TreeMap<>();
+        for (BookStock row : bookRepository.findStockByIdIn(quantities.keySet())) {
+            stock.put(row.id(), row.stock());
+        }
+
+        return StockLines.applyStock(entityManager, books, stock);
+    }
+}
@@ -0,0 +1,55 @@
+package com.pinawin.bookstore.services;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Minimal streaming CSV writer (RFC 4180), the counterpart of CsvRecordReader.
+ * Fields containing commas, quotes or line breaks are quoted, with quotes doubled;
+ * records end with CRLF. Null fields are written as empty fields.
+ */
+final class CsvRecordWriter {
+
+    private final Writer writer;
+
+    /**
+     * @param writer The target; should be buffered, as fields are written one at a time.
+     */
+    CsvRecordWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes one record.
+     * @param fields The fields of the record, converted with String.valueOf.
+     * @throws IOException if writing fails.
+     */
+    void write(Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (fields[i] != null) {
+                writeField(String.valueOf(fields[i]));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeField(String field) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+
+        if (!quote) {
+            writer.write(field);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
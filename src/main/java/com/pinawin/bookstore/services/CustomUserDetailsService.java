@@ -1,41 +1,104 @@
 package com.pinawin.bookstore.services;
 
+import com.pinawin.bookstore.cache.BoundedCache;
+import com.pinawin.bookstore.cache.CacheStats;
+import com.pinawin.bookstore.models.UserPrincipal;
 import com.pinawin.bookstore.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Locale;
+
 /**
  * Custom implementation of the Spring Security UserDetailsService.
- * This service is responsible for loading user-specific data during the 
+ * This service is responsible for loading user-specific data during the
  * authentication process.
+ * Loaded users are kept as lightweight principals in a bounded cache, so repeated
+ * logins and re-authentication do not query the user table every time.
+ * It also stores rehashed passwords when Spring Security upgrades a hash with an
+ * outdated BCrypt cost after a successful login.
  */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    // Rough per-principal footprint used when estimating memory
+    private static final long PRINCIPAL_BYTES = 256;
 
     private final UserRepository userRepository;
+    private final BoundedCache<String, UserPrincipal> principals;
 
     /**
      * Constructor-based injection of the UserRepository.
      * @param userRepository The repository used to query the user table.
+     * @param maxEntries Maximum number of cached principals (bookstore.cache.users.max-entries).
+     * @param ttl Time after which a cached principal is reloaded (bookstore.cache.users.ttl).
      */
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    @Value("${bookstore.cache.users.max-entries:10000}") int maxEntries,
+                                    @Value("${bookstore.cache.users.ttl:5m}") Duration ttl) {
         this.userRepository = userRepository;
+        this.principals = new BoundedCache<>(maxEntries, maxEntries * PRINCIPAL_BYTES, ttl, principal -> PRINCIPAL_BYTES);
     }
 
     /**
      * Locates the user based on the username provided during login.
      * This method is called internally by Spring Security's AuthenticationManager.
      * @param username The username identifying the user whose data is required.
-     * @return A UserDetails object (the User entity) containing credentials and authorities.
+     * @return A UserPrincipal containing the user's id, role and password hash.
      * @throws UsernameNotFoundException If the user does not exist in the database.
      */
     @Override
     public UserDetails loadUserByUsername(String username) {
-        // Look for the user in the database using the unique username field
-        return userRepository.findByuserName(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        // Look for the user in the cache, then in the database using the unique username field
+        UserPrincipal principal = principals.get(key(username),
+                key -> userRepository.findByuserName(username).map(UserPrincipal::of).orElse(null));
+
+        if (principal == null) {
+            throw new UsernameNotFoundException("User not found");
+        }
+        return principal;
+    }
+
+    /**
+     * Stores a password hash that Spring Security has recomputed with the current BCrypt cost.
+     * Called after a successful login when the stored hash is outdated.
+     * @param user The principal that has just been authenticated.
+     * @param newPassword The new password hash.
+     * @return The principal carrying the new hash.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserPrincipal principal = (UserPrincipal) user;
+        userRepository.updatePassword(principal.id(), newPassword);
+
+        // Drop the cached principal so the next login sees the new hash
+        evict(principal.userName());
+        return new UserPrincipal(principal.id(), principal.userName(), principal.role(), newPassword);
     }
-}
 
+    /**
+     * Drops a cached user so that the next login reads it from the database again.
+     * Call after changing a user's password or role.
+     * @param username The username of the changed user.
+     */
+    public void evict(String username) {
+        principals.invalidate(key(username));
+    }
+
+    /**
+     * @return Hit/miss statistics of the user cache.
+     */
+    public CacheStats cacheStats() {
+        return principals.stats();
+    }
+
+    // User names are matched case-insensitively by the database collation
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,114 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+import com.pinawin.bookstore.models.User;
+import com.pinawin.bookstore.repositories.CartItemRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Default cart store: every cart operation reads and writes the cart_items table directly.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.cart.store", havingValue = "database", matchIfMissing = true)
+public class DatabaseCartStore implements CartStore {
+
+    // Lines missing from the cart are inserted with the delta (possibly negative, see apply)
+    private static final String UPSERT_LINE_SQL = "INSERT INTO cart_items (user_id, book_id, quantity) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE quantity = quantity + ?";
+    private static final String DELETE_EMPTY_LINES_SQL = "DELETE FROM cart_items WHERE user_id = ? AND quantity <= 0";
+
+    private final CartItemRepository cartItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor-based dependency injection.
+     * @param cartItemRepository Repository for cart item data access.
+     * @param jdbcTemplate Used to write batch cart updates as one JDBC batch.
+     */
+    public DatabaseCartStore(CartItemRepository cartItemRepository, JdbcTemplate jdbcTemplate) {
+        this.cartItemRepository = cartItemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Increments the quantity of an existing line, or creates a new line with a quantity of 1.
+     * Both cases are one upsert statement, which also re-checks the stock in the database;
+     * an existing line's new quantity is then read back for the response.
+     * @param user The owner of the cart.
+     * @param book The book being added.
+     * @return A CartItem reflecting the line's new quantity.
+     * @throws RuntimeException if the book went out of stock since it was looked up.
+     */
+    @Override
+    public CartItem add(User user, Book book) {
+
+        // 1. Insert the line or increment it, provided the book is still in stock
+        int rows = cartItemRepository.upsertQuantity(user.getId(), book.getId(), 1);
+        if (rows == 0) {
+            throw new RuntimeException("This book is currently out of stock.");
+        }
+
+        // 2. A new line holds the one copy just added; an existing line may have been changed concurrently
+        int quantity = rows == 1 ? 1 : cartItemRepository.findQuantity(user.getId(), book.getId()).orElse(1);
+
+        CartItem cartItem = new CartItem();
+        cartItem.setUser(user);
+        cartItem.setBook(book);
+        cartItem.setQuantity(quantity);
+        return cartItem;
+    }
+
+    /**
+     * Adds every delta to its line with one batched upsert, then deletes the lines that
+     * dropped to zero or below (including lines a negative delta created) in one statement.
+     * @param user The owner of the cart.
+     * @param deltas Book id -> change in quantity.
+     */
+    @Override
+    @Transactional
+    public void apply(User user, Map<Long, Integer> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((bookId, delta) -> args.add(new Object[]{user.getId(), bookId, delta, delta}));
+        jdbcTemplate.batchUpdate(UPSERT_LINE_SQL, args);
+
+        if (deltas.values().stream().anyMatch(delta -> delta < 0)) {
+            jdbcTemplate.update(DELETE_EMPTY_LINES_SQL, user.getId());
+        }
+    }
+
+    /**
+     * @param user The owner of the cart.
+     * @return The user's CartItem rows.
+     */
+    @Override
+    public List<CartItem> items(User user) {
+        return cartItemRepository.findByUser(user);
+    }
+
+    /**
+     * Deletes all rows of the user's cart.
+     * @param user The owner of the cart.
+     */
+    @Override
+    @Transactional // Ensures the deletion is atomic; if it fails, nothing is deleted.
+    public void clear(User user) {
+        // Calls the repository to delete all rows matching the user_id
+        cartItemRepository.deleteAllByUser(user);
+    }
+
+    /**
+     * Nothing to do: every change is already written to the database.
+     * @param user The owner of the cart.
+     */
+    @Override
+    public void flush(User user) {
+    }
+}
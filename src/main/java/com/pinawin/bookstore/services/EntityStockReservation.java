@@ -0,0 +1,48 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Default inventory strategy: checks and decrements stock on the managed Book
+ * entities so the new values are written by Hibernate when the checkout commits.
+ * The book's @Version column makes a concurrent checkout of the same book fail at
+ * flush instead of overwriting the other decrement; the checkout is not retried.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.inventory.strategy", havingValue = "entity", matchIfMissing = true)
+public class EntityStockReservation implements StockReservationStrategy {
+
+    /**
+     * Validates and decrements the stock of each book in the cart.
+     * Because the books are managed entities, a rollback of the checkout discards the changes.
+     * @param cartItems The cart lines being checked out.
+     * @return The books whose stock was decremented.
+     */
+    @Override
+    public List<Book> reserve(List<CartItem> cartItems) {
+        List<Book> updatedBooks = new ArrayList<>();
+
+        for (CartItem cartItem : cartItems) {
+            Book book = cartItem.getBook();
+
+            // Validate inventory: Check if enough stock exists for the requested quantity
+            if (book.getStock() < cartItem.getQuantity()) {
+                throw new RuntimeException(
+                        "Not enough stock for book: " + book.getTitle()
+                );
+            }
+
+            // Update inventory: Reduce stock immediately
+            book.setStock(book.getStock() - cartItem.getQuantity());
+            updatedBooks.add(book);
+        }
+
+        return updatedBooks;
+    }
+}
@@ -0,0 +1,43 @@
+package com.pinawin.bookstore.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Inventory strategy that decrements stock on the Book entities like the default strategy,
+ * and relies on the book's @Version column to detect a concurrent checkout of the same book.
+ * A checkout that loses the race fails at flush and is run again from the start, in a new
+ * transaction, up to bookstore.inventory.optimistic.max-attempts times.
+ * Nothing is locked while the cart is checked, so this suits carts that rarely share books.
+ * Enabled with bookstore.inventory.strategy=optimistic.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.inventory.strategy", havingValue = "optimistic")
+public class OptimisticStockReservation extends EntityStockReservation {
+
+    private final int maxAttempts;
+    private final Duration backoff;
+
+    /**
+     * @param maxAttempts Attempts per checkout, including the first (bookstore.inventory.optimistic.max-attempts).
+     * @param backoff Base pause between attempts, doubled after each conflict (bookstore.inventory.optimistic.backoff).
+     */
+    public OptimisticStockReservation(@Value("${bookstore.inventory.optimistic.max-attempts:3}") int maxAttempts,
+                                      @Value("${bookstore.inventory.optimistic.backoff:10ms}") Duration backoff) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoff = backoff;
+    }
+
+    @Override
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public Duration backoff() {
+        return backoff;
+    }
+}
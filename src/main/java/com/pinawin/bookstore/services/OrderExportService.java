@@ -0,0 +1,195 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.OrderExport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * Exports every order with its line items and book titles, for accounting.
+ * Orders are read with one joined query through a forward-only result set, and each row is
+ * written to the output as soon as it is read. On MySQL the result set streams row by row
+ * (a fetch size of Integer.MIN_VALUE); other databases fetch bookstore.export.fetch-size rows
+ * at a time. Memory use therefore stays flat however many orders exist, without switching the
+ * shared connection pool to server-side cursors.
+ */
+@Service
+public class OrderExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExportService.class);
+
+    // Ordered by order only: the rows of one order arrive together, and the orders primary key
+    // provides that order without a sort
+    private static final String EXPORT_SQL = """
+            SELECT o.id AS order_id, o.user_id, u.user_name, o.status, o.total_amount,
+                   i.book_id, b.title, i.quantity, i.price
+            FROM orders o
+            JOIN users u ON u.id = o.user_id
+            LEFT JOIN order_items i ON i.order_id = o.id
+            LEFT JOIN books b ON b.id = i.book_id
+            ORDER BY o.id""";
+
+    static final String[] CSV_HEADER = {
+            "order_id", "user_id", "user_name", "status", "total_amount", "book_id", "book_title", "quantity", "price"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+    private final ObjectWriter orderWriter;
+
+    /**
+     * Constructor-based dependency injection.
+     * @param dataSource The application's data source.
+     * @param jsonMapper Writes the NDJSON lines.
+     * @param fetchSize Rows fetched from the database per round trip (bookstore.export.fetch-size);
+     *                  not used on MySQL, which streams the rows instead.
+     */
+    public OrderExportService(DataSource dataSource,
+                              JsonMapper jsonMapper,
+                              @Value("${bookstore.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.fetchSize = fetchSize;
+
+        // Leave flushing to the buffered writer instead of pushing every order to the network, and end
+        // each order with a newline instead of the space Jackson puts between root values
+        this.orderWriter = jsonMapper.writerFor(OrderExport.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+    }
+
+    /**
+     * Writes one JSON object per order, with its items nested, one per line.
+     * @param writer The target, typically the response body. It is flushed but not closed.
+     * @return The number of orders written.
+     */
+    public long exportNdjson(Writer writer) {
+        long started = System.nanoTime();
+        JsonGenerator generator = orderWriter.createGenerator(writer);
+        NdjsonHandler handler = new NdjsonHandler(generator);
+
+        jdbcTemplate.query(this::prepareExport, handler);
+        handler.finish();
+        generator.flush();
+
+        log.info("Exported {} orders as NDJSON in {} ms", handler.orders, (System.nanoTime() - started) / 1_000_000);
+        return handler.orders;
+    }
+
+    /**
+     * Writes one CSV record per line item, repeating the order columns on each.
+     * An order without items is written as one record with empty item columns.
+     * @param writer The target, typically the response body. It is flushed but not closed.
+     * @return The number of records written, excluding the header.
+     */
+    public long exportCsv(Writer writer) {
+        long started = System.nanoTime();
+        CsvRecordWriter csv = new CsvRecordWriter(writer);
+        long[] records = {0};
+
+        try {
+            csv.write((Object[]) CSV_HEADER);
+
+            jdbcTemplate.query(this::prepareExport, (RowCallbackHandler) rs -> {
+                try {
+                    csv.write(rs.getLong("order_id"), rs.getLong("user_id"), rs.getString("user_name"),
+                            rs.getString("status"), rs.getBigDecimal("total_amount"),
+                            nullableLong(rs, "book_id"), rs.getString("title"),
+                            nullableInt(rs, "quantity"), rs.getBigDecimal("price"));
+                    records[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("Exported {} order lines as CSV in {} ms", records[0], (System.nanoTime() - started) / 1_000_000);
+        return records[0];
+    }
+
+    /**
+     * Prepares the export query on a forward-only, read-only result set.
+     * Connector/J ignores a positive fetch size unless the connection URL sets useCursorFetch=true,
+     * which would move every query of the shared pool to server-side cursors; Integer.MIN_VALUE
+     * instead streams this one result set over the normal connection. The connection serves no
+     * other statement until the rows are read, which the export does not need.
+     */
+    private PreparedStatement prepareExport(Connection connection) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        boolean mysql = "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        statement.setFetchSize(mysql ? Integer.MIN_VALUE : fetchSize);
+        return statement;
+    }
+
+    private static Long nullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Integer nullableInt(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * Collects the rows of one order and writes the order when the next one starts.
+     * Only the order being read is held in memory.
+     */
+    private final class NdjsonHandler implements RowCallbackHandler {
+
+        private final JsonGenerator generator;
+        private OrderExport current;
+        private long orders;
+
+        NdjsonHandler(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long orderId = rs.getLong("order_id");
+
+            if (current == null || current.orderId() != orderId) {
+                finish();
+                current = new OrderExport(orderId, rs.getLong("user_id"), rs.getString("user_name"),
+                        rs.getString("status"), rs.getBigDecimal("total_amount"), new ArrayList<>());
+            }
+
+            Long bookId = nullableLong(rs, "book_id");
+            if (bookId != null) {
+                current.items().add(new OrderExport.Item(bookId, rs.getString("title"),
+                        rs.getInt("quantity"), rs.getBigDecimal("price")));
+            }
+        }
+
+        void finish() {
+            if (current != null) {
+                orderWriter.writeValue(generator, current);
+                generator.writeRaw('\n');
+                orders++;
+                current = null;
+            }
+        }
+    }
+}
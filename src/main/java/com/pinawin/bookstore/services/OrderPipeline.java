@@ -0,0 +1,250 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.events.OrderPlacedEvent;
+import com.pinawin.bookstore.models.Order;
+import com.pinawin.bookstore.models.OrderStatus;
+import com.pinawin.bookstore.repositories.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes placed orders through fulfilment off the request thread:
+ * PLACED, then PAID once the payment gateway has charged the order, then SHIPPED.
+ * <p>
+ * Checkout only persists the PLACED order; after its transaction commits, the order
+ * id is put on a bounded queue served by a fixed set of worker threads. The orders
+ * table is the source of truth: every transition is a conditional update, and a
+ * periodic sweep re-queues unfinished orders. The sweep covers orders that did not
+ * fit in a full queue (backpressure never blocks checkout), retries after a failure,
+ * and recovery after a restart.
+ */
+@Service
+public class OrderPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderPipeline.class);
+
+    private static final List<OrderStatus> UNFINISHED = List.of(OrderStatus.PLACED, OrderStatus.PAID);
+
+    // Order ids read per sweep query
+    private static final int SWEEP_PAGE_SIZE = 500;
+
+    private final OrderRepository orderRepository;
+    private final PaymentGateway paymentGateway;
+    private final int workerCount;
+    private final int maxAttempts;
+
+    private final BlockingQueue<Long> queue;
+    // Orders waiting in the queue or being processed, so that no order is queued twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    // Failed attempts per order; after maxAttempts the order is left alone until restart
+    private final Map<Long, Integer> failures = new ConcurrentHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final Timer paymentTimer;
+    private final Timer shippingTimer;
+    private final Counter overflowCounter;
+    private final Counter failureCounter;
+
+    /**
+     * Constructor-based dependency injection.
+     * @param orderRepository Repository used to read orders and apply transitions.
+     * @param paymentGateway Charges orders in the PAID transition.
+     * @param meterRegistry Registry for queue and stage metrics.
+     * @param queueCapacity Orders the queue holds before new ones are left to the sweep.
+     * @param workerCount Threads processing the queue.
+     * @param maxAttempts Failed attempts after which an order is no longer retried until restart.
+     */
+    public OrderPipeline(OrderRepository orderRepository,
+                         PaymentGateway paymentGateway,
+                         MeterRegistry meterRegistry,
+                         @Value("${bookstore.orders.pipeline.queue-capacity:1000}") int queueCapacity,
+                         @Value("${bookstore.orders.pipeline.workers:4}") int workerCount,
+                         @Value("${bookstore.orders.pipeline.max-attempts:5}") int maxAttempts) {
+        this.orderRepository = orderRepository;
+        this.paymentGateway = paymentGateway;
+        this.workerCount = workerCount;
+        this.maxAttempts = maxAttempts;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("bookstore.orders.pipeline.queue", queue, BlockingQueue::size)
+                .description("Orders waiting for fulfilment")
+                .register(meterRegistry);
+        this.paymentTimer = stageTimer(meterRegistry, "payment");
+        this.shippingTimer = stageTimer(meterRegistry, "shipping");
+        this.overflowCounter = Counter.builder("bookstore.orders.pipeline.overflow")
+                .description("Orders left to the sweep because the queue was full")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("bookstore.orders.pipeline.failures")
+                .description("Failed fulfilment attempts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the workers and queues the orders left unfinished by the previous run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofPlatform().name("order-pipeline-" + i).daemon().start(this::work));
+        }
+        sweep();
+    }
+
+    /**
+     * Queues a new order once the checkout transaction has committed.
+     * @param event The event published by checkout.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        enqueue(event.orderId());
+    }
+
+    /**
+     * Queues an order for processing without blocking.
+     * @param orderId The order to process.
+     * @return False if the queue is full; the order stays in the table for the next sweep.
+     */
+    public boolean enqueue(Long orderId) {
+        if (!inFlight.add(orderId)) {
+            return true;
+        }
+        if (queue.offer(orderId)) {
+            return true;
+        }
+
+        inFlight.remove(orderId);
+        overflowCounter.increment();
+        return false;
+    }
+
+    /**
+     * Queues unfinished orders from the table, oldest first, while the queue has room.
+     * Picks up orders that did not fit in the queue, orders whose last attempt failed,
+     * and orders interrupted by a restart.
+     */
+    @Scheduled(fixedDelayString = "${bookstore.orders.pipeline.sweep-interval-ms:10000}")
+    public void sweep() {
+        if (!running) {
+            return;
+        }
+
+        Long afterId = 0L;
+        while (queue.remainingCapacity() > 0) {
+            List<Long> ids = orderRepository.findIdsByStatusIn(UNFINISHED, afterId, PageRequest.of(0, SWEEP_PAGE_SIZE));
+            if (ids.isEmpty()) {
+                return;
+            }
+
+            for (Long id : ids) {
+                if (failures.getOrDefault(id, 0) < maxAttempts && !enqueue(id)) {
+                    return;
+                }
+            }
+            afterId = ids.getLast();
+        }
+    }
+
+    /**
+     * Stops the workers after their current order. Queued orders remain unfinished
+     * in the table and are picked up again on the next start.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                processNext(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes the next queued order, waiting up to the timeout for one, and moves it
+     * as far through fulfilment as it can go. A failure is counted and the order is
+     * retried by a later sweep.
+     * @return False if no order arrived within the timeout.
+     */
+    boolean processNext(long timeout, TimeUnit unit) throws InterruptedException {
+        Long orderId = queue.poll(timeout, unit);
+        if (orderId == null) {
+            return false;
+        }
+
+        try {
+            advance(orderId);
+            failures.remove(orderId);
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            int attempts = failures.merge(orderId, 1, Integer::sum);
+            if (attempts < maxAttempts) {
+                log.warn("Fulfilment of order {} failed (attempt {} of {}), will retry", orderId, attempts, maxAttempts, e);
+            } else {
+                log.error("Fulfilment of order {} failed {} times, giving up until restart", orderId, attempts, e);
+            }
+        } finally {
+            inFlight.remove(orderId);
+        }
+        return true;
+    }
+
+    private void advance(Long orderId) {
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            return;
+        }
+        OrderStatus status = order.getStatus();
+
+        // 1. Payment: charge the order, then record it as paid
+        if (status == OrderStatus.PLACED) {
+            paymentTimer.record(() -> paymentGateway.charge(orderId, order.getTotalAmount()));
+            if (orderRepository.updateStatus(orderId, OrderStatus.PLACED, OrderStatus.PAID) == 0) {
+                // Moved on (or cancelled) by someone else in the meantime
+                return;
+            }
+            status = OrderStatus.PAID;
+        }
+
+        // 2. Shipping: hand the paid order over for dispatch
+        if (status == OrderStatus.PAID) {
+            shippingTimer.record(() -> orderRepository.updateStatus(orderId, OrderStatus.PAID, OrderStatus.SHIPPED));
+        }
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("bookstore.orders.pipeline.stage")
+                .description("Time spent in one fulfilment stage of an order")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+}
@@ -1,20 +1,28 @@
 package com.pinawin.bookstore.services;
 
 import com.pinawin.bookstore.DTO.OrderItemResponse;
+import com.pinawin.bookstore.DTO.OrderLine;
 import com.pinawin.bookstore.DTO.OrderResponse;
 import com.pinawin.bookstore.models.User;
 import com.pinawin.bookstore.repositories.OrderRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service for retrieving and formatting order history.
- * Handles the transformation of Order entities into Response DTOs.
+ * Handles the transformation of order data into Response DTOs.
  */
 @Service
 public class OrderService {
 
+    // Largest page served, which also bounds the id list sent to the item query
+    static final int MAX_PAGE_SIZE = 100;
+
     private final OrderRepository orderRepository;
 
     public OrderService(OrderRepository orderRepository) {
@@ -22,30 +30,41 @@ public class OrderService {
     }
 
     /**
-     * Retrieves all orders for a specific user and maps them to OrderResponse DTOs.
-     * Uses Java Streams to iterate through entities and create a sanitized data transfer object.
+     * Retrieves one page of a user's orders, newest first, and maps them to OrderResponse DTOs.
+     * The page is keyed by order id and read with two queries regardless of how many
+     * orders or items are involved: one for the order ids, one joined projection for their items.
      * @param user The authenticated user whose orders are being fetched.
+     * @param beforeId The smallest order id of the previous page, or null for the first page.
+     * @param size The maximum number of orders to return; larger values are lowered to MAX_PAGE_SIZE.
      * @return A list of formatted OrderResponse objects for the profile UI.
+     * @throws IllegalArgumentException if the size is less than one.
      */
-    public List<OrderResponse> getOrdersForUser(User user) {
-        // Fetch raw entities from the database
-        return orderRepository.findByUser(user).stream()
-                // Convert Entities to DTOs
-                .map(order -> new OrderResponse(
-                        order.getId(),
-                        order.getStatus().name(),
-                        order.getTotalAmount(),
-                        // Map the nested list of OrderItems to OrderItemResponse DTOs
-                        order.getOrderItems().stream()
-                                .map(item -> new OrderItemResponse(
-                                        item.getBook().getTitle(),
-                                        item.getQuantity(),
-                                        item.getPrice()
-                                ))
-                                .toList()
-                ))
-                .toList();
-    }
-}
+    public List<OrderResponse> getOrdersForUser(User user, Long beforeId, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+
+        // 1. Seek the next page of order ids
+        List<Long> orderIds = orderRepository.findIdsByUserBefore(
+                user, beforeId == null ? Long.MAX_VALUE : beforeId, PageRequest.of(0, Math.min(size, MAX_PAGE_SIZE)));
 
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
 
+        // 2. Load every item of those orders as flat rows and group them by order
+        Map<Long, OrderResponse> orders = new LinkedHashMap<>();
+
+        for (OrderLine line : orderRepository.findLinesByOrderIds(orderIds)) {
+            orders.computeIfAbsent(line.orderId(), id -> new OrderResponse(
+                            id,
+                            line.status().name(),
+                            line.totalAmount(),
+                            new ArrayList<>()))
+                    .getItems()
+                    .add(new OrderItemResponse(line.bookTitle(), line.quantity(), line.price()));
+        }
+
+        return new ArrayList<>(orders.values());
+    }
+}
@@ -0,0 +1,20 @@
+package com.pinawin.bookstore.services;
+
+import java.math.BigDecimal;
+
+/**
+ * Charges customers for their orders. Called by the order pipeline, never
+ * on the checkout request thread.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Charges the total of an order.
+     * Must be idempotent per order id: if the application stops after a charge
+     * but before the order is marked PAID, the charge is requested again on recovery.
+     * @param orderId The order being paid; use it as the idempotency key.
+     * @param amount The amount to charge.
+     * @throws RuntimeException if the charge fails; the pipeline retries it later.
+     */
+    void charge(Long orderId, BigDecimal amount);
+}
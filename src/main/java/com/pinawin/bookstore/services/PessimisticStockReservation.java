@@ -0,0 +1,72 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.BookStock;
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+import com.pinawin.bookstore.repositories.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Inventory strategy that locks the rows of the cart's books (SELECT ... FOR UPDATE)
+ * before checking and decrementing their stock.
+ * All rows are locked by one statement in ascending id order, so checkouts of overlapping
+ * carts queue behind each other rather than deadlocking, and a checkout never fails because
+ * of a concurrent one. The price is that checkouts of the same book run one at a time.
+ * Enabled with bookstore.inventory.strategy=pessimistic.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.inventory.strategy", havingValue = "pessimistic")
+public class PessimisticStockReservation implements StockReservationStrategy {
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+
+    /**
+     * Constructor-based dependency injection.
+     * @param bookRepository Used to lock and decrement the book rows.
+     * @param entityManager The shared entity manager, bound to the checkout transaction.
+     */
+    public PessimisticStockReservation(BookRepository bookRepository, EntityManager entityManager) {
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Locks every book of the cart, validates all lines, then decrements them.
+     * The locks are held until the checkout transaction ends.
+     * @param cartItems The cart lines being checked out.
+     * @return The books with their new stock levels.
+     */
+    @Override
+    public List<Book> reserve(List<CartItem> cartItems) {
+        SortedMap<Long, Integer> quantities = StockLines.quantities(cartItems);
+        Map<Long, Book> books = StockLines.books(cartItems);
+
+        // 1. Lock the rows in id order and read their current stock
+        Map<Long, Integer> remaining = new TreeMap<>();
+        for (BookStock row : bookRepository.lockStock(quantities.keySet())) {
+            remaining.put(row.id(), row.stock());
+        }
+
+        // 2. Validate every line before writing anything
+        quantities.forEach((id, quantity) -> {
+            Integer stock = remaining.get(id);
+            if (stock == null || stock < quantity) {
+                throw StockLines.notEnoughStock(books.get(id));
+            }
+            remaining.put(id, stock - quantity);
+        });
+
+        // 3. Decrement; no other transaction can change the locked rows in between
+        quantities.forEach(bookRepository::decrementStock);
+
+        return StockLines.applyStock(entityManager, books, remaining);
+    }
+}
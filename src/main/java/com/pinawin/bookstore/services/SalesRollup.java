@@ -0,0 +1,432 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.BookSales;
+import com.pinawin.bookstore.DTO.CategorySales;
+import com.pinawin.bookstore.DTO.DailySales;
+import com.pinawin.bookstore.events.OrderPlacedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Sales analytics kept up to date as orders are placed: units and revenue per book,
+ * per category and per day (UTC), for the admin analytics endpoints.
+ * <p>
+ * Each committed checkout adds its lines to in-memory SalesTables keyed by primitive ids
+ * (book id, interned category id, epoch day), so a bestseller list or a revenue breakdown
+ * is read from memory instead of aggregating the order tables. Per-day tables are kept for
+ * bookstore.analytics.retention-days; all-time totals are kept without limit. The per-day
+ * tables of a queried period are merged once a day and then kept current with each order,
+ * so a repeated query does not merge them again.
+ * <p>
+ * The same sales are accumulated as deltas per (day, book) and added to the
+ * daily_book_sales table in one JDBC batch by {@link #flush()}; on startup the
+ * aggregates are rebuilt from that table. Orders placed before the rollup existed are
+ * not counted, since orders carry no purchase date to attribute them to.
+ * <p>
+ * Only orders placed on this node are counted until the next restart: with several nodes,
+ * each one's rollup misses the others' sales, although daily_book_sales receives them all.
+ */
+@Service
+public class SalesRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollup.class);
+
+    private static final String UPSERT_SQL = "INSERT INTO daily_book_sales (sales_date, book_id, category, units, revenue) "
+            + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE units = units + ?, revenue = revenue + ?";
+    private static final String LOAD_TOTALS_SQL = "SELECT book_id, category, SUM(units) AS units, SUM(revenue) AS revenue "
+            + "FROM daily_book_sales GROUP BY book_id, category";
+    private static final String LOAD_DAYS_SQL = "SELECT sales_date, book_id, category, units, revenue "
+            + "FROM daily_book_sales WHERE sales_date >= ?";
+
+    static final String UNCATEGORIZED = "Uncategorized";
+
+    // Pending deltas are keyed by (epoch day << BOOK_BITS) | book id
+    private static final int BOOK_BITS = 40;
+    private static final long BOOK_MASK = (1L << BOOK_BITS) - 1;
+
+    // Distinct periods (numbers of days) kept merged at a time
+    private static final int MAX_PERIODS = 8;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int retentionDays;
+    private final Clock clock;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Category name <-> id, so that tables are keyed by an int instead of a String
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final List<String> categoryNames = new ArrayList<>();
+
+    /**
+     * Book id -> all-time sales, tagged with the book's category id.
+     */
+    private final SalesTable bookTotals = new SalesTable();
+
+    /**
+     * Category id -> all-time sales.
+     */
+    private final SalesTable categoryTotals = new SalesTable();
+
+    /**
+     * Epoch day -> sales of that day, for the retained days.
+     */
+    private final NavigableMap<Long, Day> days = new TreeMap<>();
+
+    /**
+     * All-time sales, answering queries without a period.
+     */
+    private final Period allTime = new Period(bookTotals, categoryTotals);
+
+    /**
+     * Number of days -> merged sales of the last that many days, as of periodsDay.
+     * Insertion-ordered, so that lookups under the read lock do not modify the map.
+     */
+    private final Map<Integer, Period> periods = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Period> eldest) {
+            return size() > MAX_PERIODS;
+        }
+    };
+    private long periodsDay = Long.MIN_VALUE;
+
+    /**
+     * Sales not yet written to daily_book_sales.
+     */
+    private SalesTable pending = new SalesTable();
+
+    private volatile boolean loaded;
+
+    /**
+     * Constructor-based dependency injection.
+     * @param jdbcTemplate Used to load and persist the rollup.
+     * @param retentionDays Days for which per-day sales are kept in memory and can be queried.
+     */
+    @Autowired
+    public SalesRollup(JdbcTemplate jdbcTemplate,
+                       @Value("${bookstore.analytics.retention-days:400}") int retentionDays) {
+        this(jdbcTemplate, retentionDays, Clock.systemUTC());
+    }
+
+    SalesRollup(JdbcTemplate jdbcTemplate, int retentionDays, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionDays = retentionDays;
+        this.clock = clock;
+    }
+
+    /**
+     * Rebuilds the aggregates from daily_book_sales once the schema is in place.
+     * Sales recorded before this point stay in memory and are only added to.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        LocalDate firstDay = today().minusDays(retentionDays - 1L);
+
+        lock.writeLock().lock();
+        try {
+            periods.clear();
+
+            // 1. All-time totals, summed by the database
+            jdbcTemplate.query(LOAD_TOTALS_SQL, rs -> {
+                int category = categoryId(rs.getString("category"));
+                long units = rs.getLong("units");
+                long cents = toCents(rs.getBigDecimal("revenue"));
+                bookTotals.add(rs.getLong("book_id"), category, units, cents);
+                categoryTotals.add(category, category, units, cents);
+            });
+
+            // 2. Per-day sales of the retained days
+            jdbcTemplate.query(LOAD_DAYS_SQL, rs -> {
+                addToDay(rs.getDate("sales_date").toLocalDate().toEpochDay(), rs.getLong("book_id"),
+                        categoryId(rs.getString("category")), rs.getLong("units"), toCents(rs.getBigDecimal("revenue")));
+            }, Date.valueOf(firstDay));
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        loaded = true;
+        log.info("Loaded sales rollup of {} books over {} days in {} ms",
+                bookTotals.size(), days.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Adds the lines of an order once the checkout transaction has committed.
+     * @param event The event published by checkout.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        long epochDay = today().toEpochDay();
+
+        lock.writeLock().lock();
+        try {
+            // Merged periods of another day no longer match their window; they are rebuilt when next queried
+            if (periodsDay != epochDay) {
+                periods.clear();
+            }
+
+            for (OrderPlacedEvent.Line line : event.lines()) {
+                int category = categoryId(line.category());
+                long cents = toCents(line.price().multiply(BigDecimal.valueOf(line.quantity())));
+
+                bookTotals.add(line.bookId(), category, line.quantity(), cents);
+                categoryTotals.add(category, category, line.quantity(), cents);
+                addToDay(epochDay, line.bookId(), category, line.quantity(), cents);
+                pending.add((epochDay << BOOK_BITS) | line.bookId(), category, line.quantity(), cents);
+
+                // Every period ends today, so the line belongs to each of them
+                for (Period period : periods.values()) {
+                    period.books().add(line.bookId(), category, line.quantity(), cents);
+                    period.categories().add(category, category, line.quantity(), cents);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks books by units sold.
+     * @param days The period: the last given number of days including today, or all time if null.
+     * @param limit The maximum number of books.
+     * @return The best-selling books, best first.
+     * @throws IllegalArgumentException If the period is not retained or the limit is out of range.
+     */
+    public List<BookSales> bestsellers(Integer days, int limit) {
+        if (limit < 1 || limit > 100) {
+            throw new IllegalArgumentException("Limit must be between 1 and 100.");
+        }
+
+        return query(days, period -> {
+            SalesTable books = period.books();
+            List<BookSales> result = new ArrayList<>(limit);
+            for (long bookId : books.topKeys(limit)) {
+                result.add(new BookSales(bookId, categoryNames.get(books.tagOf(bookId)),
+                        books.units(bookId), toAmount(books.cents(bookId))));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Breaks sales down by category.
+     * @param days The period: the last given number of days including today, or all time if null.
+     * @return Every category with sales in the period, highest revenue first.
+     * @throws IllegalArgumentException If the period is not retained.
+     */
+    public List<CategorySales> categories(Integer days) {
+        return query(days, period -> {
+            List<CategorySales> result = new ArrayList<>(period.categories().size());
+            period.categories().forEach((category, tag, units, cents) ->
+                    result.add(new CategorySales(categoryNames.get((int) category), units, toAmount(cents))));
+            result.sort(Comparator.comparing(CategorySales::revenue).reversed()
+                    .thenComparing(CategorySales::category));
+            return result;
+        });
+    }
+
+    /**
+     * Reports total sales per day.
+     * @param days The number of days, ending today.
+     * @return One entry per day, oldest first, including days without sales.
+     * @throws IllegalArgumentException If the period is not retained.
+     */
+    public List<DailySales> daily(int days) {
+        checkPeriod(days);
+        long today = today().toEpochDay();
+
+        lock.readLock().lock();
+        try {
+            List<DailySales> result = new ArrayList<>(days);
+            for (long epochDay = today - days + 1; epochDay <= today; epochDay++) {
+                Day day = this.days.get(epochDay);
+                result.add(new DailySales(LocalDate.ofEpochDay(epochDay),
+                        day == null ? 0 : day.units, toAmount(day == null ? 0 : day.cents)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds accumulated sales to daily_book_sales in a single JDBC batch and drops
+     * per-day tables that have passed the retention period.
+     * If the batch fails, the sales are put back and retried on the next run.
+     * Does nothing until the rollup has been loaded, so that no sale is counted twice.
+     */
+    @Scheduled(fixedDelayString = "${bookstore.analytics.flush-interval-ms:5000}")
+    public void flush() {
+        if (!loaded) {
+            return;
+        }
+
+        SalesTable batch;
+        List<Object[]> args = new ArrayList<>();
+
+        lock.writeLock().lock();
+        try {
+            batch = pending;
+            pending = new SalesTable();
+            days.headMap(today().toEpochDay() - retentionDays + 1).clear();
+
+            batch.forEach((key, category, units, cents) -> {
+                BigDecimal revenue = toAmount(cents);
+                args.add(new Object[]{Date.valueOf(LocalDate.ofEpochDay(key >>> BOOK_BITS)), key & BOOK_MASK,
+                        categoryNames.get(category), units, revenue, units, revenue});
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (args.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+        } catch (RuntimeException e) {
+            log.warn("Sales rollup flush of {} rows failed, will retry", args.size(), e);
+            lock.writeLock().lock();
+            try {
+                pending.addAll(batch);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes any remaining sales before the application stops.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Runs a query against the sales of a period under the lock. A period merged earlier today
+     * is read under the read lock; otherwise it is merged from the per-day tables under the
+     * write lock and kept for the following queries.
+     * @param days The number of days ending today, or null for all time.
+     * @param query Reads the period; must not modify it.
+     * @return The result of the query.
+     */
+    private <T> T query(Integer days, Function<Period, T> query) {
+        if (days == null) {
+            lock.readLock().lock();
+            try {
+                return query.apply(allTime);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        checkPeriod(days);
+        long today = today().toEpochDay();
+
+        lock.readLock().lock();
+        try {
+            Period period = periodsDay == today ? periods.get(days) : null;
+            if (period != null) {
+                return query.apply(period);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            return query.apply(mergePeriod(days, today));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Period mergePeriod(int days, long today) {
+        if (periodsDay != today) {
+            periods.clear();
+            periodsDay = today;
+        }
+
+        Period period = periods.get(days);
+        if (period == null) {
+            period = new Period(new SalesTable(), new SalesTable());
+            for (Day day : this.days.subMap(today - days + 1, true, today, true).values()) {
+                period.books().addAll(day.books);
+                period.categories().addAll(day.categories);
+            }
+            periods.put(days, period);
+        }
+        return period;
+    }
+
+    private void checkPeriod(int days) {
+        if (days < 1 || days > retentionDays) {
+            throw new IllegalArgumentException("Days must be between 1 and " + retentionDays + ".");
+        }
+    }
+
+    private void addToDay(long epochDay, long bookId, int category, long units, long cents) {
+        Day day = days.computeIfAbsent(epochDay, d -> new Day());
+        day.books.add(bookId, category, units, cents);
+        day.categories.add(category, category, units, cents);
+        day.units += units;
+        day.cents += cents;
+    }
+
+    private int categoryId(String category) {
+        String name = category == null || category.isBlank() ? UNCATEGORIZED : category;
+        return categoryIds.computeIfAbsent(name, n -> {
+            categoryNames.add(n);
+            return categoryNames.size() - 1;
+        });
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Sales of several days (or all time) by book and by category.
+     */
+    private record Period(SalesTable books, SalesTable categories) {
+    }
+
+    /**
+     * Sales of one day.
+     */
+    private static final class Day {
+
+        final SalesTable books = new SalesTable();
+        final SalesTable categories = new SalesTable();
+        long units;
+        long cents;
+    }
+}
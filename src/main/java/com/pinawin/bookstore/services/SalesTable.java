@@ -0,0 +1,215 @@
+package com.pinawin.bookstore.services;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table from a long key to a units and a revenue counter, plus an int tag
+ * (the category of a book entry). The columns are parallel primitive arrays, so an entry costs
+ * 28 bytes and adding a sale allocates nothing, where a HashMap of boxed keys and counter
+ * objects would cost several objects per entry.
+ * Not thread-safe; the SalesRollup guards its tables with a lock.
+ */
+final class SalesTable {
+
+    /**
+     * Receives the entries of a table.
+     */
+    interface Visitor {
+        void visit(long key, int tag, long units, long cents);
+    }
+
+    // Marks a free slot; no real key (book id, category id, day) takes this value
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] tags;
+    private long[] units;
+    private long[] cents;
+    private int size;
+
+    SalesTable() {
+        allocate(16);
+    }
+
+    /**
+     * Adds to the counters of a key, creating the entry with the given tag if it is new.
+     * @param key The key.
+     * @param tag Stored with a new entry; an existing entry keeps its tag.
+     * @param addUnits Units to add.
+     * @param addCents Revenue to add, in cents.
+     */
+    void add(long key, int tag, long addUnits, long addCents) {
+        int slot = find(key);
+
+        if (keys[slot] == EMPTY) {
+            // Grow at 3/4 full, keeping probe sequences short
+            if ((size + 1) * 4L > keys.length * 3L) {
+                grow();
+                slot = find(key);
+            }
+            keys[slot] = key;
+            tags[slot] = tag;
+            size++;
+        }
+
+        units[slot] += addUnits;
+        cents[slot] += addCents;
+    }
+
+    /**
+     * Adds every entry of another table to this one.
+     * @param other The table to merge in.
+     */
+    void addAll(SalesTable other) {
+        other.forEach(this::add);
+    }
+
+    long units(long key) {
+        int slot = find(key);
+        return keys[slot] == EMPTY ? 0 : units[slot];
+    }
+
+    long cents(long key) {
+        int slot = find(key);
+        return keys[slot] == EMPTY ? 0 : cents[slot];
+    }
+
+    int tagOf(long key) {
+        int slot = find(key);
+        return keys[slot] == EMPTY ? -1 : tags[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                visitor.visit(keys[slot], tags[slot], units[slot], cents[slot]);
+            }
+        }
+    }
+
+    /**
+     * Selects the entries with the most units sold (then the most revenue, then the lowest key)
+     * with a bounded min-heap of slots, so ranking a table allocates only the result.
+     * @param limit The maximum number of entries.
+     * @return The keys of those entries, best first.
+     */
+    long[] topKeys(int limit) {
+        int count = Math.min(limit, size);
+        int[] heap = new int[count];
+        int filled = 0;
+
+        for (int slot = 0; slot < keys.length && count > 0; slot++) {
+            if (keys[slot] == EMPTY) {
+                continue;
+            }
+            if (filled < count) {
+                heap[filled] = slot;
+                siftUp(heap, filled++);
+            } else if (ranksAbove(slot, heap[0])) {
+                heap[0] = slot;
+                siftDown(heap, count);
+            }
+        }
+
+        // Taking the weakest entry off the heap each time fills the result from the back
+        long[] top = new long[count];
+        for (int remaining = count; remaining > 0; remaining--) {
+            top[remaining - 1] = keys[heap[0]];
+            heap[0] = heap[remaining - 1];
+            siftDown(heap, remaining - 1);
+        }
+        return top;
+    }
+
+    private boolean ranksAbove(int a, int b) {
+        if (units[a] != units[b]) {
+            return units[a] > units[b];
+        }
+        if (cents[a] != cents[b]) {
+            return cents[a] > cents[b];
+        }
+        return keys[a] < keys[b];
+    }
+
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksAbove(heap[parent], heap[index])) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int length) {
+        int index = 0;
+        while (true) {
+            int weakest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < length && ranksAbove(heap[weakest], heap[left])) {
+                weakest = left;
+            }
+            if (right < length && ranksAbove(heap[weakest], heap[right])) {
+                weakest = right;
+            }
+            if (weakest == index) {
+                return;
+            }
+            swap(heap, index, weakest);
+            index = weakest;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldTags = tags;
+        long[] oldUnits = units;
+        long[] oldCents = cents;
+
+        allocate(oldKeys.length * 2);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                int target = find(oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                tags[target] = oldTags[slot];
+                units[target] = oldUnits[slot];
+                cents[target] = oldCents[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        tags = new int[capacity];
+        units = new long[capacity];
+        cents = new long[capacity];
+    }
+
+    // Spreads keys that differ only in their high bits (the day of a day/book key) over the table
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
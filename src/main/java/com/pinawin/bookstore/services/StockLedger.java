@@ -0,0 +1,226 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.events.BookChangedEvent;
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+import com.pinawin.bookstore.repositories.BookRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free, in-memory inventory ledger.
+ * Each book's available stock is held in its own atomic counter, and a checkout
+ * reserves all of its lines with compare-and-set operations instead of row locks,
+ * so concurrent checkouts of different (or the same) titles scale across cores without
+ * overselling. Decrements are written through to the books table asynchronously in
+ * JDBC batches by {@link #flush()}.
+ * Enabled with bookstore.inventory.strategy=ledger. The ledger must be the only
+ * writer of stock while it is active, so it should only be used on a single node.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.inventory.strategy", havingValue = "ledger")
+public class StockLedger implements StockReservationStrategy {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedger.class);
+
+    private static final String DECREMENT_SQL = "UPDATE books SET stock = stock - ?, version = version + 1 WHERE id = ?";
+
+    private final BookRepository bookRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Book id -> units currently available for reservation.
+     */
+    private final ConcurrentHashMap<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+
+    /**
+     * Book id -> units reserved but not yet written to the books table.
+     */
+    private final ConcurrentHashMap<Long, AtomicInteger> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor-based dependency injection.
+     * @param bookRepository Used to seed a counter from the database on first use.
+     * @param jdbcTemplate Used to write batched stock decrements.
+     * @param eventPublisher Announces flushed stock changes to catalog caches and indexes.
+     */
+    public StockLedger(BookRepository bookRepository,
+                       JdbcTemplate jdbcTemplate,
+                       ApplicationEventPublisher eventPublisher) {
+        this.bookRepository = bookRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Reserves every cart line with compare-and-set on the per-book counters.
+     * Lines are processed in book-id order; if any line cannot be satisfied, the lines
+     * already reserved are released and the checkout fails. If the surrounding
+     * transaction later rolls back, the whole reservation is released as well.
+     * @param cartItems The cart lines being checked out.
+     * @return An empty list: stock is written to the database by the asynchronous flush.
+     */
+    @Override
+    public List<Book> reserve(List<CartItem> cartItems) {
+        List<CartItem> lines = new ArrayList<>(cartItems);
+        lines.sort(Comparator.comparing(item -> item.getBook().getId()));
+
+        List<CartItem> reserved = new ArrayList<>(lines.size());
+
+        for (CartItem line : lines) {
+            if (!tryReserve(line.getBook().getId(), line.getQuantity())) {
+                reserved.forEach(this::release);
+                throw new RuntimeException(
+                        "Not enough stock for book: " + line.getBook().getTitle()
+                );
+            }
+            reserved.add(line);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        reserved.forEach(StockLedger.this::release);
+                    }
+                }
+            });
+        }
+
+        return List.of();
+    }
+
+    /**
+     * @param bookId The book id.
+     * @return The units currently available according to the ledger.
+     */
+    public int available(Long bookId) {
+        return counter(bookId).get();
+    }
+
+    /**
+     * Writes accumulated decrements to the books table in a single JDBC batch
+     * and refreshes catalog caches and indexes with the committed values.
+     * If the batch fails, the decrements are put back and retried on the next run.
+     */
+    @Scheduled(fixedDelayString = "${bookstore.inventory.ledger.flush-interval-ms:200}")
+    public void flush() {
+        Set<Long> flushed = writePending();
+        if (!flushed.isEmpty()) {
+            eventPublisher.publishEvent(BookChangedEvent.stockChanged(bookRepository.findAllById(flushed)));
+        }
+    }
+
+    /**
+     * Writes any remaining decrements before the application stops.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        writePending();
+    }
+
+    /**
+     * Re-seeds counters after an admin saves a book, since the stock may have been set explicitly.
+     * Stock-only events originate from the ledger itself and are ignored.
+     * @param event The event carrying the saved books.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksChanged(BookChangedEvent event) {
+        if (event.stockOnly()) {
+            return;
+        }
+        for (Book book : event.books()) {
+            AtomicInteger counter = available.get(book.getId());
+            if (counter != null) {
+                // Reservations not yet flushed will still be subtracted from the saved value
+                counter.set(book.getStock() - pendingCounter(book.getId()).get());
+            }
+        }
+    }
+
+    private Set<Long> writePending() {
+        Map<Long, Integer> batch = new LinkedHashMap<>();
+
+        pending.forEach((bookId, units) -> {
+            int delta = units.getAndSet(0);
+            if (delta != 0) {
+                batch.put(bookId, delta);
+            }
+        });
+
+        if (batch.isEmpty()) {
+            return Set.of();
+        }
+
+        List<Object[]> args = new ArrayList<>(batch.size());
+        batch.forEach((bookId, delta) -> args.add(new Object[]{delta, bookId}));
+
+        try {
+            jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+        } catch (RuntimeException e) {
+            log.warn("Stock flush of {} books failed, will retry", batch.size(), e);
+            batch.forEach((bookId, delta) -> pendingCounter(bookId).addAndGet(delta));
+            return Set.of();
+        }
+
+        return batch.keySet();
+    }
+
+    private boolean tryReserve(Long bookId, int quantity) {
+        AtomicInteger counter = counter(bookId);
+        AtomicInteger unflushed = pendingCounter(bookId);
+
+        // Count the units as pending first: a concurrent re-seed then errs on the side of less stock
+        unflushed.addAndGet(quantity);
+
+        int current;
+        do {
+            current = counter.get();
+            if (current < quantity) {
+                unflushed.addAndGet(-quantity);
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current - quantity));
+
+        return true;
+    }
+
+    private void release(CartItem line) {
+        counter(line.getBook().getId()).addAndGet(line.getQuantity());
+        pendingCounter(line.getBook().getId()).addAndGet(-line.getQuantity());
+    }
+
+    private AtomicInteger counter(Long bookId) {
+        AtomicInteger counter = available.get(bookId);
+        if (counter != null) {
+            return counter;
+        }
+
+        // Query outside computeIfAbsent, which would hold the map bin (and other books in it) for the round trip.
+        // If another checkout seeded the counter meanwhile, its counter wins and this read is discarded.
+        int stock = bookRepository.findStockById(bookId)
+                .orElseThrow(() -> new RuntimeException("Book not found"));
+        AtomicInteger seeded = new AtomicInteger(stock);
+        counter = available.putIfAbsent(bookId, seeded);
+        return counter != null ? counter : seeded;
+    }
+
+    private AtomicInteger pendingCounter(Long bookId) {
+        return pending.computeIfAbsent(bookId, id -> new AtomicInteger());
+    }
+}
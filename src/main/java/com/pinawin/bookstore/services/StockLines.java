@@ -0,0 +1,74 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.util.*;
+
+/**
+ * Helpers shared by the inventory strategies that change stock with SQL statements
+ * instead of through the Book entities.
+ */
+final class StockLines {
+
+    private StockLines() {
+    }
+
+    /**
+     * @param cartItems The cart lines being checked out.
+     * @return The quantity wanted per book id, in ascending id order (the order rows are written in).
+     */
+    static SortedMap<Long, Integer> quantities(List<CartItem> cartItems) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (CartItem item : cartItems) {
+            quantities.merge(item.getBook().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    /**
+     * @param cartItems The cart lines being checked out.
+     * @return The books of the cart by id.
+     */
+    static Map<Long, Book> books(List<CartItem> cartItems) {
+        Map<Long, Book> books = new HashMap<>();
+        for (CartItem item : cartItems) {
+            books.put(item.getBook().getId(), item.getBook());
+        }
+        return books;
+    }
+
+    /**
+     * @param book The book that cannot be supplied.
+     * @return The exception failing the checkout, as thrown by every strategy.
+     */
+    static RuntimeException notEnoughStock(Book book) {
+        return new RuntimeException("Not enough stock for book: " + book.getTitle());
+    }
+
+    /**
+     * Copies stock levels already written to the database onto the loaded Book entities, so
+     * that the change event carries them. The entities are made read-only first: their row
+     * version is out of date, and Hibernate must not write them back.
+     * @param entityManager The entity manager of the checkout transaction.
+     * @param books The loaded books by id.
+     * @param stock The new stock level by book id.
+     * @return The updated books.
+     */
+    static List<Book> applyStock(EntityManager entityManager, Map<Long, Book> books, Map<Long, Integer> stock) {
+        Session session = entityManager.unwrap(Session.class);
+        List<Book> updated = new ArrayList<>(stock.size());
+
+        stock.forEach((id, level) -> {
+            Book book = books.get(id);
+            if (session.contains(book)) {
+                session.setReadOnly(book, true);
+            }
+            book.setStock(level);
+            updated.add(book);
+        });
+        return updated;
+    }
+}
@@ -0,0 +1,43 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Strategy used by the CheckoutService to validate and decrement inventory.
+ * Exactly one implementation is active, selected by the
+ * bookstore.inventory.strategy property.
+ * Strategies that detect conflicts optimistically can ask the CheckoutService to run a
+ * checkout again when it fails with an OptimisticLockingFailureException.
+ */
+public interface StockReservationStrategy {
+
+    /**
+     * Reserves stock for every line of a cart, all or nothing.
+     * Called inside the checkout transaction; if that transaction rolls back,
+     * the reservation must not remain in effect.
+     * @param cartItems The cart lines being checked out.
+     * @return The books whose persisted stock changes when the checkout transaction commits
+     *         (empty if the strategy writes stock changes separately).
+     * @throws RuntimeException "Not enough stock for book: ..." if any line cannot be satisfied.
+     */
+    List<Book> reserve(List<CartItem> cartItems);
+
+    /**
+     * @return How many times a checkout is attempted when it fails on an optimistic lock
+     *         conflict; 1 means a conflict fails the checkout straight away.
+     */
+    default int maxAttempts() {
+        return 1;
+    }
+
+    /**
+     * @return The base pause before a checkout is attempted again after a conflict.
+     */
+    default Duration backoff() {
+        return Duration.ZERO;
+    }
+}
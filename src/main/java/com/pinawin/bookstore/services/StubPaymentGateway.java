@@ -0,0 +1,31 @@
+package com.pinawin.bookstore.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Local stand-in for a payment provider: every charge succeeds after a fixed
+ * delay that imitates the provider's response time (bookstore.orders.payment.stub-latency).
+ */
+@Component
+public class StubPaymentGateway implements PaymentGateway {
+
+    private final Duration latency;
+
+    public StubPaymentGateway(@Value("${bookstore.orders.payment.stub-latency:50ms}") Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public void charge(Long orderId, BigDecimal amount) {
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Payment for order " + orderId + " was interrupted", e);
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package com.pinawin.bookstore.services;
 
 import com.pinawin.bookstore.models.User;
+import com.pinawin.bookstore.models.UserPrincipal;
 import com.pinawin.bookstore.repositories.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Locale;
+
 /**
  * Service class for managing user accounts and registration.
  * Handles credential security and validation of user-specific data.
@@ -12,6 +18,9 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserService {
 
+    private static final String EMAIL_TAKEN = "Email already registered";
+    private static final String USER_NAME_TAKEN = "User Name already registered";
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
 
@@ -30,6 +39,8 @@ public class UserService {
      * Registers a new user in the system.
      * Validates that the email and userName is not already in use 
      * and hashes the password for security.
+     * Duplicates are caught by one query before the costly hashing step, and the
+     * unique constraints on the users table reject any that slip in concurrently.
      * @param name The chosen username.
      * @param email The user's email address.
      * @param password The plain-text password from the registration form.
@@ -46,12 +57,10 @@ public class UserService {
             throw new RuntimeException("Fill all the fields");
         }
 
-        // Check for existing email and userName to prevent duplicate accounts
-        if (userRepository.findByEmail(email).isPresent()) {
-            throw new RuntimeException("Email already registered");
-        }
-        if (userRepository.findByuserName(name).isPresent()) {
-            throw new RuntimeException("User Name already registered");
+        // Check for existing email and userName in one query, so that duplicates are refused without hashing
+        List<String> conflicts = userRepository.findConflictingEmails(email, name);
+        if (!conflicts.isEmpty()) {
+            throw new RuntimeException(conflicts.stream().anyMatch(email::equalsIgnoreCase) ? EMAIL_TAKEN : USER_NAME_TAKEN);
         }
 
         User user = new User();
@@ -70,7 +79,51 @@ public class UserService {
         // Hash the password before saving to the database.
         user.setPassword(passwordEncoder.encode(password));
 
-        return userRepository.save(user);
+        // Insert immediately: a concurrent registration with the same email or userName fails on the unique constraints
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateError(e, user);
+        }
+    }
+
+    /**
+     * Returns the entity of an authenticated user without loading it.
+     * Services only need the user's id to link carts and orders to it,
+     * so no query is issued unless another field is read.
+     * @param principal The principal of the current session.
+     * @return A lazy reference to the User entity.
+     */
+    public User getReference(UserPrincipal principal) {
+        return userRepository.getReferenceById(principal.id());
     }
-}
 
+    /**
+     * Maps a unique constraint violation to the same message as the upfront check.
+     * A database created before the named constraints also keeps its auto-named unique index on
+     * email (ddl-auto=update does not drop it), and a duplicate may be reported under that index.
+     * So if the constraint is not one of ours, the duplicated value in the database's message
+     * ("Duplicate entry '...' for key ...") is matched against the new user's email and userName.
+     */
+    private static RuntimeException duplicateError(DataIntegrityViolationException e, User user) {
+        String message = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+        String constraint = e.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                ? violation.getConstraintName().toLowerCase(Locale.ROOT)
+                : message;
+
+        if (constraint.contains("uk_users_email")) {
+            return new RuntimeException(EMAIL_TAKEN);
+        }
+        if (constraint.contains("uk_users_user_name")) {
+            return new RuntimeException(USER_NAME_TAKEN);
+        }
+        if (message.contains("'" + user.getEmail().toLowerCase(Locale.ROOT) + "'")) {
+            return new RuntimeException(EMAIL_TAKEN);
+        }
+        if (message.contains("'" + user.getUsername().toLowerCase(Locale.ROOT) + "'")) {
+            return new RuntimeException(USER_NAME_TAKEN);
+        }
+        return e;
+    }
+}
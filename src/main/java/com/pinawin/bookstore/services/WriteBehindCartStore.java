@@ -0,0 +1,555 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+import com.pinawin.bookstore.models.User;
+import com.pinawin.bookstore.repositories.BookRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Write-behind cart store.
+ * Each user's cart is held in memory and updated at memory speed; changes are
+ * coalesced per (user, book) and written to the cart_items table in JDBC batches
+ * by {@link #flush()}, or for a single user by {@link #flush(User)} when checkout starts.
+ * Every change is first appended to a journal file, which is replayed into the
+ * database on startup so carts survive a restart or crash.
+ * Carts are independent: a change locks only its own cart, journal records are made
+ * durable with group commit after that lock is released, and a checkout flush waits
+ * only for a periodic flush that is writing the same cart.
+ * Enabled with bookstore.cart.store=write-behind. The in-memory carts are
+ * authoritative, so it should only be used on a single node.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.cart.store", havingValue = "write-behind")
+public class WriteBehindCartStore implements CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+    private static final String LOAD_SQL = "SELECT book_id, quantity FROM cart_items WHERE user_id = ?";
+    private static final String DELETE_CART_SQL = "DELETE FROM cart_items WHERE user_id = ?";
+    private static final String DELETE_LINE_SQL = "DELETE FROM cart_items WHERE user_id = ? AND book_id = ?";
+    private static final String UPDATE_LINE_SQL = "UPDATE cart_items SET quantity = ? WHERE user_id = ? AND book_id = ?";
+    private static final String INSERT_LINE_SQL = "INSERT INTO cart_items (user_id, book_id, quantity) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BookRepository bookRepository;
+    private final BookCatalogCache bookCatalogCache;
+    private final CartJournal journal;
+    private final long idleMillis;
+
+    /**
+     * User id -> in-memory cart.
+     */
+    private final ConcurrentHashMap<Long, UserCart> carts = new ConcurrentHashMap<>();
+
+    // Serializes periodic flushes, which rotate the journal; cart changes and checkout flushes never take it
+    private final ReentrantLock periodicFlushLock = new ReentrantLock();
+
+    // Held (shared) by checkout flushes while their changes are on the way to the database;
+    // the periodic flush only discards journal segments when it can take it exclusively
+    private final ReentrantReadWriteLock segmentLock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructor-based dependency injection.
+     * @param jdbcTemplate Used to load carts and write batched changes.
+     * @param transactionManager Used to write each batch in its own transaction.
+     * @param bookRepository Used to resolve the books of cart lines on a cache miss.
+     * @param bookCatalogCache Read-through cache used to look up books by id.
+     * @param journalFile Path of the journal file (bookstore.cart.write-behind.journal).
+     * @param idleTimeout Time after which an unchanged, unused cart is dropped from memory.
+     */
+    public WriteBehindCartStore(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                BookRepository bookRepository,
+                                BookCatalogCache bookCatalogCache,
+                                @Value("${bookstore.cart.write-behind.journal:data/cart-journal.log}") String journalFile,
+                                @Value("${bookstore.cart.write-behind.idle-timeout:30m}") Duration idleTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookRepository = bookRepository;
+        this.bookCatalogCache = bookCatalogCache;
+        this.journal = new CartJournal(Path.of(journalFile));
+        this.idleMillis = idleTimeout.toMillis();
+
+        // Cart writes must not join (or be rolled back with) the caller's transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Replays changes left in the journal by a previous run into the database.
+     */
+    @PostConstruct
+    public void recover() {
+        List<String> records = journal.readAll();
+
+        if (!records.isEmpty()) {
+            Map<Long, CartChanges> replayed = new LinkedHashMap<>();
+            records.forEach(record -> replay(record, replayed));
+            write(replayed.values());
+            log.info("Replayed {} cart journal records for {} users", records.size(), replayed.size());
+        }
+
+        journal.discardAll();
+    }
+
+    /**
+     * Adds one copy of a book to the user's in-memory cart.
+     * @param user The owner of the cart.
+     * @param book The book being added.
+     * @return A CartItem reflecting the new quantity (not yet persisted).
+     */
+    @Override
+    public CartItem add(User user, Book book) {
+        return change(user.getId(), cart -> {
+            int quantity = cart.quantity(book.getId()) + 1;
+            journal.append(setRecord(user.getId(), book.getId(), quantity));
+            cart.set(book.getId(), quantity);
+
+            return cartItem(user, book, quantity);
+        });
+    }
+
+    /**
+     * Changes several lines of the user's in-memory cart, journaling each new quantity.
+     * @param user The owner of the cart.
+     * @param deltas Book id -> change in quantity.
+     */
+    @Override
+    public void apply(User user, Map<Long, Integer> deltas) {
+        change(user.getId(), cart -> {
+            deltas.forEach((bookId, delta) -> {
+                int quantity = Math.max(0, cart.quantity(bookId) + delta);
+                journal.append(setRecord(user.getId(), bookId, quantity));
+                cart.set(bookId, quantity);
+            });
+            return null;
+        });
+    }
+
+    /**
+     * @param user The owner of the cart.
+     * @return The lines of the user's in-memory cart, loaded from the database on first use.
+     */
+    @Override
+    public List<CartItem> items(User user) {
+        List<CartItem> items = new ArrayList<>();
+
+        cart(user.getId()).snapshot().forEach((bookId, quantity) ->
+                bookCatalogCache.getBook(bookId, bookRepository::findById)
+                        .ifPresent(book -> items.add(cartItem(user, book, quantity))));
+
+        return items;
+    }
+
+    /**
+     * Empties the user's in-memory cart; the rows are deleted by the next flush.
+     * @param user The owner of the cart.
+     */
+    @Override
+    public void clear(User user) {
+        change(user.getId(), cart -> {
+            journal.append(clearRecord(user.getId()));
+            cart.clear();
+            return null;
+        });
+    }
+
+    /**
+     * Writes the pending changes of one user's cart and drops the cart from memory,
+     * so that later reads see the rows as left by checkout.
+     * @param user The owner of the cart.
+     * @throws RuntimeException if the changes could not be written.
+     */
+    @Override
+    public void flush(User user) {
+        Long userId = user.getId();
+        UserCart cart = carts.get(userId);
+        if (cart == null) {
+            return;
+        }
+
+        segmentLock.readLock().lock();
+        cart.flushLock.lock();
+        try {
+            // 1. Take the pending changes
+            CartChanges changes;
+            synchronized (cart) {
+                if (cart.evicted) {
+                    return;
+                }
+                changes = cart.drain(userId);
+            }
+
+            // 2. Write them in a transaction of their own
+            if (!changes.isEmpty()) {
+                try {
+                    write(List.of(changes));
+                } catch (RuntimeException e) {
+                    restore(Map.of(cart, changes));
+                    throw new RuntimeException("Could not save cart", e);
+                }
+            }
+
+            // 3. Supersede the user's earlier journal records, re-recording changes made during the
+            //    write, and drop the cart unless it changed in the meantime
+            long sequence;
+            synchronized (cart) {
+                journal.append(flushedRecord(userId));
+                cart.pendingRecords(userId).forEach(journal::append);
+                if (cart.isClean()) {
+                    evict(userId, cart);
+                }
+                sequence = journal.lastSequence();
+            }
+            journal.sync(sequence);
+        } finally {
+            cart.flushLock.unlock();
+            segmentLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the coalesced changes of every cart in one batch per statement type,
+     * then drops carts that have been idle for longer than the idle timeout.
+     * If the batch fails, the changes are kept and retried on the next run.
+     */
+    @Scheduled(fixedDelayString = "${bookstore.cart.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        periodicFlushLock.lock();
+        try {
+            // 1. Close the current journal segment. Every change recorded in it was made to its cart
+            //    before the record was queued, so the drain below takes it
+            long segment = journal.rotate();
+
+            // 2. Take the changes of every cart, holding each drained cart's flush lock until they are
+            //    written, so a checkout flush of the same cart cannot overtake them
+            Map<UserCart, CartChanges> changes = new LinkedHashMap<>();
+            try {
+                carts.forEach((userId, cart) -> {
+                    cart.flushLock.lock();
+                    CartChanges drained;
+                    synchronized (cart) {
+                        drained = cart.evicted ? null : cart.drain(userId);
+                    }
+                    if (drained == null || drained.isEmpty()) {
+                        cart.flushLock.unlock();
+                    } else {
+                        changes.put(cart, drained);
+                    }
+                });
+
+                // 3. Write them; on failure they go back into the carts and the new journal segment
+                if (!changes.isEmpty()) {
+                    try {
+                        write(changes.values());
+                    } catch (RuntimeException e) {
+                        log.warn("Cart flush of {} users failed, will retry", changes.size(), e);
+                        restore(changes);
+                    }
+                }
+            } finally {
+                changes.keySet().forEach(cart -> cart.flushLock.unlock());
+            }
+
+            // 4. Delete the closed segments, unless a checkout flush that may have taken changes
+            //    recorded in them is still writing; replaying them later is harmless, so the next run catches up
+            if (segmentLock.writeLock().tryLock()) {
+                try {
+                    journal.discardSegments(segment);
+                } finally {
+                    segmentLock.writeLock().unlock();
+                }
+            }
+
+            // 5. Free memory held by carts nobody is using
+            long cutoff = System.currentTimeMillis() - idleMillis;
+            carts.forEach((userId, cart) -> {
+                if (cart.flushLock.tryLock()) {
+                    try {
+                        synchronized (cart) {
+                            if (cart.isClean() && cart.lastAccess() < cutoff) {
+                                evict(userId, cart);
+                            }
+                        }
+                    } finally {
+                        cart.flushLock.unlock();
+                    }
+                }
+            });
+        } finally {
+            periodicFlushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every pending change before the application stops.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        journal.close();
+    }
+
+    /**
+     * Applies a change to the user's cart under the cart's own lock, then waits until the
+     * journal records it queued are durable, outside that lock.
+     */
+    private <T> T change(Long userId, Function<UserCart, T> change) {
+        while (true) {
+            UserCart cart = cart(userId);
+            T result;
+            long sequence;
+
+            synchronized (cart) {
+                // The cart was flushed and dropped while it was being loaded: start over
+                if (cart.evicted) {
+                    continue;
+                }
+                result = change.apply(cart);
+                sequence = journal.lastSequence();
+            }
+
+            journal.sync(sequence);
+            return result;
+        }
+    }
+
+    // Called with the cart's lock held
+    private void evict(Long userId, UserCart cart) {
+        cart.evicted = true;
+        carts.remove(userId, cart);
+    }
+
+    private UserCart cart(Long userId) {
+        UserCart cart = carts.get(userId);
+
+        if (cart == null) {
+            // Load outside any lock; if another request loaded it first, use theirs
+            UserCart loaded = load(userId);
+            cart = Objects.requireNonNullElse(carts.putIfAbsent(userId, loaded), loaded);
+        }
+
+        cart.touch();
+        return cart;
+    }
+
+    private UserCart load(Long userId) {
+        UserCart cart = new UserCart();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            cart.load(rs.getLong("book_id"), rs.getInt("quantity"));
+        }, userId);
+        return cart;
+    }
+
+    private void restore(Map<UserCart, CartChanges> changes) {
+        changes.forEach((cart, change) -> {
+            long sequence;
+            synchronized (cart) {
+                cart.restore(change);
+                // The drained records may be discarded with their segment, so record the pending state again
+                cart.pendingRecords(change.userId()).forEach(journal::append);
+                sequence = journal.lastSequence();
+            }
+            journal.sync(sequence);
+        });
+    }
+
+    private void write(Collection<CartChanges> changes) {
+        List<Object[]> clears = new ArrayList<>();
+        List<Object[]> removals = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+
+        for (CartChanges change : changes) {
+            if (change.cleared()) {
+                clears.add(new Object[]{change.userId()});
+            }
+            change.lines().forEach((bookId, quantity) -> {
+                if (quantity > 0) {
+                    updates.add(new Object[]{quantity, change.userId(), bookId});
+                } else {
+                    removals.add(new Object[]{change.userId(), bookId});
+                }
+            });
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            batch(DELETE_CART_SQL, clears);
+            batch(DELETE_LINE_SQL, removals);
+
+            // Lines that matched no row are new to the table
+            int[] updated = batch(UPDATE_LINE_SQL, updates);
+            List<Object[]> inserts = new ArrayList<>();
+            for (int i = 0; i < updates.size(); i++) {
+                if (updated[i] == 0) {
+                    Object[] line = updates.get(i);
+                    inserts.add(new Object[]{line[1], line[2], line[0]});
+                }
+            }
+            batch(INSERT_LINE_SQL, inserts);
+        });
+    }
+
+    private int[] batch(String sql, List<Object[]> args) {
+        return args.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    private void replay(String record, Map<Long, CartChanges> replayed) {
+        try {
+            String[] fields = record.split(",");
+            Long userId = Long.parseLong(fields[1]);
+
+            switch (fields[0]) {
+                case "S" -> replayed.computeIfAbsent(userId, id -> new CartChanges(id, false, new LinkedHashMap<>()))
+                        .lines().put(Long.parseLong(fields[2]), Integer.parseInt(fields[3]));
+                case "C" -> replayed.put(userId, new CartChanges(userId, true, new LinkedHashMap<>()));
+                case "F" -> replayed.remove(userId);
+                default -> log.warn("Skipping unknown cart journal record: {}", record);
+            }
+        } catch (RuntimeException e) {
+            // Typically a record cut short by a crash while it was being written
+            log.warn("Skipping unreadable cart journal record: {}", record);
+        }
+    }
+
+    private static String setRecord(Long userId, Long bookId, int quantity) {
+        return "S," + userId + "," + bookId + "," + quantity;
+    }
+
+    private static String clearRecord(Long userId) {
+        return "C," + userId;
+    }
+
+    private static String flushedRecord(Long userId) {
+        return "F," + userId;
+    }
+
+    private static CartItem cartItem(User user, Book book, int quantity) {
+        CartItem item = new CartItem();
+        item.setUser(user);
+        item.setBook(book);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    /**
+     * Changes of one cart taken by a flush: whether all rows must be deleted first,
+     * and the new quantity of every changed line (0 removes the line).
+     */
+    private record CartChanges(Long userId, boolean cleared, Map<Long, Integer> lines) {
+
+        boolean isEmpty() {
+            return !cleared && lines.isEmpty();
+        }
+    }
+
+    /**
+     * In-memory state of one user's cart. Its monitor guards the lines together with the
+     * journal records queued for them, and a cart dropped from the store is marked evicted
+     * under it; the flush lock keeps writes of the same cart in order.
+     */
+    private static final class UserCart {
+
+        private final ReentrantLock flushLock = new ReentrantLock();
+
+        // Set when the cart is dropped from the store; changes must then go to a freshly loaded cart
+        private boolean evicted;
+
+        // Book id -> quantity, in the order the books were first added
+        private final Map<Long, Integer> lines = new LinkedHashMap<>();
+
+        // Books whose quantity changed since the last flush
+        private final Set<Long> dirty = new LinkedHashSet<>();
+
+        // True if all rows must be deleted before the dirty lines are written
+        private boolean cleared;
+
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        synchronized void load(Long bookId, int quantity) {
+            lines.merge(bookId, quantity, Integer::sum);
+        }
+
+        synchronized int quantity(Long bookId) {
+            return lines.getOrDefault(bookId, 0);
+        }
+
+        synchronized void set(Long bookId, int quantity) {
+            if (quantity > 0) {
+                lines.put(bookId, quantity);
+            } else {
+                lines.remove(bookId);
+            }
+            dirty.add(bookId);
+        }
+
+        synchronized void clear() {
+            lines.clear();
+            dirty.clear();
+            cleared = true;
+        }
+
+        synchronized Map<Long, Integer> snapshot() {
+            return new LinkedHashMap<>(lines);
+        }
+
+        synchronized boolean isClean() {
+            return !cleared && dirty.isEmpty();
+        }
+
+        synchronized CartChanges drain(Long userId) {
+            Map<Long, Integer> changed = new LinkedHashMap<>();
+            dirty.forEach(bookId -> changed.put(bookId, lines.getOrDefault(bookId, 0)));
+
+            CartChanges changes = new CartChanges(userId, cleared, changed);
+            dirty.clear();
+            cleared = false;
+            return changes;
+        }
+
+        synchronized void restore(CartChanges changes) {
+            dirty.addAll(changes.lines().keySet());
+            if (changes.cleared()) {
+                // Every line added since the clear must be rewritten after the delete
+                cleared = true;
+                dirty.addAll(lines.keySet());
+            }
+        }
+
+        synchronized List<String> pendingRecords(Long userId) {
+            List<String> records = new ArrayList<>();
+            if (cleared) {
+                records.add(clearRecord(userId));
+            }
+            dirty.forEach(bookId -> records.add(setRecord(userId, bookId, lines.getOrDefault(bookId, 0))));
+            return records;
+        }
+
+        void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+
+        long lastAccess() {
+            return lastAccess;
+        }
+    }
+}
@@ -15,6 +15,7 @@ document.addEventListener("DOMContentLoaded", () => {
 
     // Automatically populates the grid with all available books on page load.
     loadBooks(0);
+    loadCategoryFacets();
 
     /**
      * --- 2. UI Renderer: renderPage ---
@@ -219,4 +220,25 @@ document.addEventListener("DOMContentLoaded", () => {
             alert("Failed to add to cart");
         }
     }
-});
\ No newline at end of file
+
+    /**
+     * --- 10. API: loadCategoryFacets ---
+     * Fills the category suggestions with every category and its book counts.
+     */
+    async function loadCategoryFacets() {
+        try {
+            const response = await fetch("/api/books/facets");
+            const facets = await response.json();
+            const list = document.getElementById("categoryFacets");
+
+            facets.forEach(facet => {
+                const option = document.createElement("option");
+                option.value = facet.label;
+                option.label = `${facet.label} (${facet.count} books, ${facet.inStock} in stock)`;
+                list.appendChild(option);
+            });
+        } catch (error) {
+            console.error("Error loading categories:", error);
+        }
+    }
+});
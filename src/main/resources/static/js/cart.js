@@ -46,13 +46,13 @@ document.addEventListener("DOMContentLoaded", async () => {
 
         items.forEach(item => {
             // Calculate subtotal for the specific line item
-            const subtotal = item.book.price * item.quantity;
+            const subtotal = item.price * item.quantity;
             grandTotal += subtotal;
 
             const row = document.createElement("tr");
             row.innerHTML = `
-                <td>${item.book.title}</td>
-                <td>$${item.book.price.toFixed(2)}</td>
+                <td>${item.title}</td>
+                <td>$${item.price.toFixed(2)}</td>
                 <td>${item.quantity}</td>
                 <td>$${subtotal.toFixed(2)}</td>
             `;
@@ -1,16 +1,28 @@
 /**
  * Profile & Order History Controller
  * Fetches the authenticated user's historical transactions and renders
- * them into a detailed list of order cards.
+ * them into a detailed list of order cards, one page at a time.
  */
+
+// Number of orders requested per page
+const PAGE_SIZE = 10;
+
+// Smallest order id rendered so far; the next page starts below it
+let oldestOrderId = null;
+
 async function loadOrders() {
 
     /**
      * 1. Data Retrieval
-     * Requests the list of orders from the backend.
+     * Requests the next page of orders from the backend, newest first.
      * Uses session-based credentials to identify the current user.
      */
-    const response = await fetch("/api/orders", {
+    const params = new URLSearchParams({ size: PAGE_SIZE });
+    if (oldestOrderId !== null) {
+        params.set("beforeId", oldestOrderId);
+    }
+
+    const response = await fetch(`/api/orders?${params}`, {
         credentials: "include"
     });
 
@@ -27,13 +39,22 @@ async function loadOrders() {
      */
     const orders = await response.json();
     const container = document.getElementById("ordersContainer");
+    const loadMoreBtn = document.getElementById("loadMoreBtn");
 
     // Handle empty state
-    if (orders.length === 0) {
+    if (orders.length === 0 && oldestOrderId === null) {
         container.innerHTML = "<p>No orders yet.</p>";
+    }
+
+    // A full page means there may be older orders to fetch
+    loadMoreBtn.style.display = orders.length === PAGE_SIZE ? "inline-block" : "none";
+
+    if (orders.length === 0) {
         return;
     }
 
+    oldestOrderId = orders[orders.length - 1].orderId;
+
     /**
      * 3. Nested Rendering Logic
      * Iterates through each order and builds a card structure.
@@ -64,5 +85,7 @@ async function loadOrders() {
     });
 }
 
+document.getElementById("loadMoreBtn").addEventListener("click", loadOrders);
+
 // Automatic execution upon script load
 loadOrders();
@@ -0,0 +1,150 @@
+package com.pinawin.bookstore.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BoundedCache.
+ * Covers read-through loading, LRU eviction by count and weight, TTL expiry and statistics.
+ */
+public class BoundedCacheTest {
+
+    @Test
+    @DisplayName("Should load on a miss and serve later lookups from memory")
+    void testGet_ReadThrough() {
+        // Arrange
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 1_000, Duration.ofMinutes(1), v -> 1);
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        cache.get("a", k -> "value-" + loads.incrementAndGet());
+        String result = cache.get("a", k -> "value-" + loads.incrementAndGet());
+
+        // Assert
+        assertEquals("value-1", result);
+        assertEquals(1, loads.get());
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entry when the entry cap is exceeded")
+    void testGet_EvictsLeastRecentlyUsed() {
+        // Arrange
+        BoundedCache<String, String> cache = new BoundedCache<>(2, 1_000, Duration.ofMinutes(1), v -> 1);
+        cache.get("a", k -> "A");
+        cache.get("b", k -> "B");
+        cache.get("a", k -> "A"); // 'a' is now more recent than 'b'
+
+        // Act
+        cache.get("c", k -> "C");
+
+        // Assert: 'b' was evicted, 'a' survived
+        assertEquals("A", cache.get("a", k -> "reloaded"));
+        assertEquals("reloaded", cache.get("b", k -> "reloaded"));
+        assertTrue(cache.stats().evictions() >= 1);
+    }
+
+    @Test
+    @DisplayName("Should keep the total weight under the memory cap")
+    void testGet_RespectsWeightLimit() {
+        // Arrange: Each value weighs its length, cap is 10
+        BoundedCache<String, String> cache = new BoundedCache<>(100, 10, Duration.ofMinutes(1), v -> v.length());
+
+        // Act
+        cache.get("a", k -> "123456");
+        cache.get("b", k -> "123456");
+
+        // Assert
+        assertEquals(1, cache.stats().size());
+        assertTrue(cache.stats().weight() <= 10);
+    }
+
+    @Test
+    @DisplayName("Should reload entries once their TTL has elapsed")
+    void testGet_ExpiresAfterTtl() {
+        // Arrange
+        MutableClock clock = new MutableClock();
+        BoundedCache<String, String> cache =
+                new BoundedCache<>(10, 1_000, Duration.ofSeconds(30), v -> 1, clock);
+        cache.get("a", k -> "old");
+
+        // Act
+        clock.advance(Duration.ofSeconds(31));
+        String result = cache.get("a", k -> "new");
+
+        // Assert
+        assertEquals("new", result);
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    @DisplayName("Should not store a value whose load overlapped an invalidation")
+    void testGet_DiscardsLoadRacingInvalidation() {
+        // Arrange
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 1_000, Duration.ofMinutes(1), v -> 1);
+
+        // Act: The loader observes an invalidation happening mid-load
+        String result = cache.get("a", k -> {
+            cache.invalidate("a");
+            return "stale";
+        });
+
+        // Assert: The caller still gets the value, but it was not cached
+        assertEquals("stale", result);
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    @DisplayName("Should remove only entries matching the predicate")
+    void testInvalidateIf() {
+        // Arrange
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 1_000, Duration.ofMinutes(1), v -> 1);
+        cache.get("keep", k -> "x");
+        cache.get("drop", k -> "y");
+
+        // Act
+        cache.invalidateIf((key, value) -> value.equals("y"));
+
+        // Assert
+        assertEquals(1, cache.stats().size());
+        assertEquals("x", cache.get("keep", k -> "reloaded"));
+    }
+
+    /**
+     * Test clock that only moves when told to.
+     */
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
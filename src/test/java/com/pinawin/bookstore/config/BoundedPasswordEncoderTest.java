@@ -0,0 +1,97 @@
+package com.pinawin.bookstore.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BoundedPasswordEncoder.
+ * Verifies that hashing is delegated to the hashing threads, that requests are
+ * refused with 503 once the queue is full, and that calibration stays in range.
+ */
+public class BoundedPasswordEncoderTest {
+
+    @Test
+    @DisplayName("Should hash and match passwords on the hashing threads")
+    void testEncodeAndMatches() {
+        // Arrange
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(4), 1, 1, new SimpleMeterRegistry())) {
+
+            // Act
+            String hash = encoder.encode("secret");
+
+            // Assert
+            assertTrue(encoder.matches("secret", hash));
+            assertFalse(encoder.matches("wrong", hash));
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse with 503 when every hashing thread is busy and the queue is full")
+    void testMatches_ShedsWhenQueueFull() throws Exception {
+        // Arrange: One thread and one queue slot, both occupied by hashes that wait for a latch
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, 1, 1, registry)) {
+            callers.submit(() -> encoder.matches("a", "a"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            callers.submit(() -> encoder.matches("b", "b"));
+            while (registry.get("bookstore.password.hashing.queued").gauge().value() < 1) {
+                Thread.onSpinWait();
+            }
+
+            // Act
+            ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> encoder.matches("c", "c"));
+
+            // Assert
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, error.getStatusCode());
+            assertEquals(1.0, registry.get("bookstore.password.hashing.rejected").counter().count());
+        } finally {
+            release.countDown();
+            callers.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the calibrated cost within the configured range")
+    void testCalibrateStrength_Bounds() {
+        // Act & Assert: A tiny target keeps the minimum, a huge one is capped at the maximum
+        assertEquals(4, BoundedPasswordEncoder.calibrateStrength(Duration.ofNanos(1), 4, 6));
+        assertEquals(6, BoundedPasswordEncoder.calibrateStrength(Duration.ofHours(1), 4, 6));
+        assertThrows(IllegalArgumentException.class,
+                () -> BoundedPasswordEncoder.calibrateStrength(Duration.ofMillis(100), 3, 6));
+    }
+}
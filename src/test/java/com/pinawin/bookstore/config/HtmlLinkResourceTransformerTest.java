@@ -0,0 +1,96 @@
+package com.pinawin.bookstore.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+import org.springframework.web.servlet.resource.ResourceTransformerChain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for HtmlLinkResourceTransformer.
+ * Verifies that stylesheet and script links in HTML pages point to their
+ * content-hashed URLs and that other resources are left alone.
+ */
+@ExtendWith(MockitoExtension.class)
+public class HtmlLinkResourceTransformerTest {
+
+    @Mock
+    private ResourceTransformerChain transformerChain;
+    @Mock
+    private ResourceResolverChain resolverChain;
+
+    private final HtmlLinkResourceTransformer transformer = new HtmlLinkResourceTransformer();
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books.html");
+
+    @Test
+    @DisplayName("Should rewrite CSS and JS links to their hashed URLs")
+    void testTransform_RewritesAssetLinks() throws Exception {
+        // Arrange
+        Resource page = resource("books.html", """
+                <link rel="stylesheet" href="css/style.css">
+                <a href="login.html">Login</a>
+                <script src="js/book.js"></script>
+                <script src="https://cdn.example.com/lib.js"></script>
+                """);
+        when(transformerChain.transform(request, page)).thenReturn(page);
+        when(transformerChain.getResolverChain()).thenReturn(resolverChain);
+        when(resolverChain.resolveUrlPath(eq("css/style.css"), anyList())).thenReturn("css/style-abc.css");
+        when(resolverChain.resolveUrlPath(eq("js/book.js"), anyList())).thenReturn("js/book-def.js");
+
+        // Act
+        String html = transformer.transform(request, page, transformerChain).getContentAsString(StandardCharsets.UTF_8);
+
+        // Assert: Page links and absolute URLs are not touched
+        assertEquals("""
+                <link rel="stylesheet" href="css/style-abc.css">
+                <a href="login.html">Login</a>
+                <script src="js/book-def.js"></script>
+                <script src="https://cdn.example.com/lib.js"></script>
+                """, html);
+        verify(resolverChain, times(2)).resolveUrlPath(anyString(), eq(List.of(page)));
+    }
+
+    @Test
+    @DisplayName("Should keep a link that cannot be resolved and skip non-HTML resources")
+    void testTransform_LeavesUnresolvedAndNonHtml() throws Exception {
+        // Arrange
+        Resource page = resource("index.html", "<script src=\"js/missing.js\"></script>");
+        Resource script = resource("book.js", "const page = \"js/book.js\";");
+        when(transformerChain.transform(eq(request), any())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(transformerChain.getResolverChain()).thenReturn(resolverChain);
+
+        // Act
+        Resource transformedPage = transformer.transform(request, page, transformerChain);
+        Resource transformedScript = transformer.transform(request, script, transformerChain);
+
+        // Assert
+        assertEquals("<script src=\"js/missing.js\"></script>", transformedPage.getContentAsString(StandardCharsets.UTF_8));
+        assertSame(script, transformedScript);
+    }
+
+    private static Resource resource(String filename, String content) {
+        return new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+
+            @Override
+            public long lastModified() {
+                return 0;
+            }
+        };
+    }
+}
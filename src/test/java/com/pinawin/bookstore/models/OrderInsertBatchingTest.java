@@ -0,0 +1,158 @@
+package com.pinawin.bookstore.models;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip test for the checkout write path.
+ * Persists a 30-line order against an in-memory H2 database and asserts on the
+ * JDBC round trips it takes, with Hibernate batching disabled and enabled.
+ */
+public class OrderInsertBatchingTest {
+
+    private static final int CART_LINES = 30;
+
+    @Test
+    @DisplayName("Should place a 30-line order in a handful of round trips when batching is enabled")
+    void testCheckoutRoundTrips_BatchedVsUnbatched() {
+        // Act
+        int unbatched = roundTripsPerCheckout(0);
+        int batched = roundTripsPerCheckout(50);
+
+        // Assert: Before, every order item and stock update is its own round trip.
+        // After: the book query, the sequence calls, the order insert, one item batch and one update batch
+        assertTrue(unbatched > 2 * CART_LINES, "Every row should need its own round trip, was " + unbatched);
+        assertTrue(batched < 10, "Rows should be written in batches, was " + batched);
+    }
+
+    /**
+     * Places one order over a fresh schema and returns the number of statements
+     * executed during the checkout transaction.
+     */
+    private int roundTripsPerCheckout(int batchSize) {
+        AtomicInteger executions = new AtomicInteger();
+
+        try (SessionFactory sessionFactory = sessionFactory(countingDataSource(executions), batchSize)) {
+            List<Book> books = new ArrayList<>();
+
+            // 1. Seed a user and the catalog (not measured)
+            User user = new User();
+            sessionFactory.inTransaction(session -> {
+                user.setUserName("benchmark");
+                user.setEmail("benchmark@example.com");
+                user.setPassword("secret");
+                session.persist(user);
+
+                for (int i = 0; i < CART_LINES; i++) {
+                    Book book = new Book();
+                    book.setTitle("Book " + i);
+                    book.setPrice(new BigDecimal("10.00"));
+                    book.setStock(100);
+                    session.persist(book);
+                    books.add(book);
+                }
+            });
+
+            // 2. Measure the checkout: one order with a line per book, plus the stock decrements
+            executions.set(0);
+            sessionFactory.inTransaction(session -> placeOrder(session, user, books));
+            return executions.get();
+        }
+    }
+
+    private void placeOrder(Session session, User user, List<Book> catalog) {
+        Order order = new Order();
+        order.setUser(session.getReference(User.class, user.getId()));
+        order.setStatus(OrderStatus.PLACED);
+        order.setTotalAmount(BigDecimal.ZERO);
+
+        List<Long> ids = catalog.stream().map(Book::getId).toList();
+        List<Book> books = session.createSelectionQuery("from Book where id in :ids", Book.class)
+                .setParameter("ids", ids)
+                .getResultList();
+
+        for (Book book : books) {
+            book.setStock(book.getStock() - 1);
+
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setBook(book);
+            item.setQuantity(1);
+            item.setPrice(book.getPrice());
+            order.getOrderItems().add(item);
+            order.setTotalAmount(order.getTotalAmount().add(book.getPrice()));
+        }
+
+        session.persist(order);
+    }
+
+    private SessionFactory sessionFactory(DataSource dataSource, int batchSize) {
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Book.class)
+                .addAnnotatedClass(CartItem.class)
+                .addAnnotatedClass(Order.class)
+                .addAnnotatedClass(OrderItem.class)
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(batchSize))
+                .setProperty(AvailableSettings.ORDER_INSERTS, String.valueOf(batchSize > 0))
+                .setProperty(AvailableSettings.ORDER_UPDATES, String.valueOf(batchSize > 0));
+        configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource);
+        return configuration.buildSessionFactory();
+    }
+
+    /**
+     * Wraps an H2 data source so that every statement execution (a single
+     * statement or a whole batch) is counted as one round trip.
+     */
+    private DataSource countingDataSource(AtomicInteger executions) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:batching" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+        return (DataSource) proxy(DataSource.class, h2, (method, result) ->
+                result instanceof Connection connection
+                        ? proxy(Connection.class, connection, (m, value) ->
+                                value instanceof Statement statement
+                                        ? proxy(m.getReturnType(), statement, (sm, returned) -> {
+                                            if (sm.getName().startsWith("execute")) {
+                                                executions.incrementAndGet();
+                                            }
+                                            return returned;
+                                        })
+                                        : value)
+                        : result);
+    }
+
+    /**
+     * Creates a JDK proxy that delegates every call to the target and lets
+     * the callback inspect or replace the returned value.
+     */
+    private Object proxy(Class<?> type, Object target, BiFunction<Method, Object, Object> onReturn) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+            try {
+                return onReturn.apply(method, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+}
@@ -0,0 +1,97 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.models.UserPrincipal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuthTokenService.
+ * Verifies that issued tokens round-trip to the same principal and that forged,
+ * expired or malformed tokens are rejected.
+ */
+public class AuthTokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final UserPrincipal principal = new UserPrincipal(7L, "john:doe", "ROLE_USER", "hash");
+
+    @Test
+    @DisplayName("Should restore the principal, without its password, from a valid token")
+    void testVerify_RoundTrip() {
+        // Arrange
+        AuthTokenService service = newService(SECRET, NOW);
+
+        // Act
+        Optional<UserPrincipal> result = service.verify(service.issue(principal));
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(principal.withoutPassword(), result.get());
+    }
+
+    @Test
+    @DisplayName("Should reject a token whose payload was changed")
+    void testVerify_TamperedPayload() {
+        // Arrange: Swap in the payload of an admin token, keeping the user's signature
+        AuthTokenService service = newService(SECRET, NOW);
+        String userToken = service.issue(principal);
+        String adminToken = service.issue(new UserPrincipal(7L, "john:doe", "ROLE_ADMIN", null));
+        String forged = adminToken.substring(0, adminToken.indexOf('.')) + userToken.substring(userToken.indexOf('.'));
+
+        // Act & Assert
+        assertTrue(service.verify(forged).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject a token signed with another key")
+    void testVerify_OtherKey() {
+        // Arrange
+        byte[] otherKey = new byte[32];
+        otherKey[0] = 1;
+        String token = newService(Base64.getEncoder().encodeToString(otherKey), NOW).issue(principal);
+
+        // Act & Assert
+        assertTrue(newService(SECRET, NOW).verify(token).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject a token once its TTL has passed")
+    void testVerify_Expired() {
+        // Arrange
+        String token = newService(SECRET, NOW).issue(principal);
+
+        // Act & Assert
+        assertTrue(newService(SECRET, NOW.plus(Duration.ofMinutes(59))).verify(token).isPresent());
+        assertTrue(newService(SECRET, NOW.plus(Duration.ofHours(1))).verify(token).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject malformed tokens and keys that are missing or too short")
+    void testVerify_Malformed() {
+        // Arrange
+        AuthTokenService service = newService(SECRET, NOW);
+
+        // Act & Assert
+        assertTrue(service.verify("").isEmpty());
+        assertTrue(service.verify("no-signature").isEmpty());
+        assertTrue(service.verify("!!!.???").isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> newService(Base64.getEncoder().encodeToString(new byte[16]), NOW));
+        assertThrows(IllegalArgumentException.class, () -> newService("", NOW));
+        assertThrows(IllegalArgumentException.class, () -> newService(null, NOW));
+    }
+
+    private static AuthTokenService newService(String secret, Instant now) {
+        return new AuthTokenService(secret, Duration.ofHours(1), Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
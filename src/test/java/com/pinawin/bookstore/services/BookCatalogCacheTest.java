@@ -0,0 +1,111 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.BookResponse;
+import com.pinawin.bookstore.DTO.PageResponse;
+import com.pinawin.bookstore.events.BookChangedEvent;
+import com.pinawin.bookstore.models.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BookCatalogCache.
+ * Verifies read-through behavior and precise invalidation on catalog change events.
+ */
+public class BookCatalogCacheTest {
+
+    private BookCatalogCache cache;
+    private Book first;
+    private Book second;
+    private final AtomicInteger pageLoads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new BookCatalogCache(100, Duration.ofMinutes(1), 100, Duration.ofMinutes(1), 1_000_000);
+
+        first = new Book();
+        first.setId(1L);
+        first.setTitle("First");
+        second = new Book();
+        second.setId(2L);
+        second.setTitle("Second");
+
+        cache.getPage("all:0:1", () -> load(first));
+        cache.getPage("all:1:1", () -> load(second));
+    }
+
+    @Test
+    @DisplayName("Should load a book once and then serve it from memory")
+    void testGetBook_ReadThrough() {
+        // Act
+        cache.getBook(1L, id -> Optional.of(first));
+        Optional<Book> result = cache.getBook(1L, id -> Optional.empty());
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(1, cache.bookStats().hits());
+    }
+
+    @Test
+    @DisplayName("Should not cache books that do not exist")
+    void testGetBook_MissingNotCached() {
+        // Act
+        cache.getBook(9L, id -> Optional.empty());
+
+        // Assert
+        assertEquals(0, cache.bookStats().size());
+    }
+
+    @Test
+    @DisplayName("Should convert a page once and serve the same response on later hits")
+    void testGetPage_CachesConvertedPage() {
+        // Act
+        PageResponse<BookResponse> loaded = cache.getPage("all:2:1", () -> load(first));
+        PageResponse<BookResponse> hit = cache.getPage("all:2:1", () -> load(second));
+
+        // Assert
+        assertSame(loaded, hit);
+        assertEquals("First", hit.content().getFirst().title());
+        assertEquals(3, pageLoads.get());
+    }
+
+    @Test
+    @DisplayName("Stock changes should evict only the pages that display the changed book")
+    void testOnBooksChanged_StockOnlyIsPrecise() {
+        // Act
+        cache.onBooksChanged(BookChangedEvent.stockChanged(List.of(second)));
+
+        // Assert: Page 0 is still cached, page 1 is reloaded
+        cache.getPage("all:0:1", () -> load(first));
+        cache.getPage("all:1:1", () -> load(second));
+        assertEquals(3, pageLoads.get());
+    }
+
+    @Test
+    @DisplayName("Saved books should drop every cached page and the book entry")
+    void testOnBooksChanged_SaveDropsAllPages() {
+        // Arrange
+        cache.getBook(1L, id -> Optional.of(first));
+
+        // Act
+        cache.onBooksChanged(BookChangedEvent.saved(List.of(first)));
+
+        // Assert
+        assertEquals(0, cache.pageStats().size());
+        assertEquals(0, cache.bookStats().size());
+    }
+
+    private Page<Book> load(Book book) {
+        pageLoads.incrementAndGet();
+        return new PageImpl<>(List.of(book));
+    }
+}
@@ -0,0 +1,217 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.ImportReport;
+import com.pinawin.bookstore.events.BookChangedEvent;
+import com.pinawin.bookstore.models.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BookImportService.
+ * Runs imports against an in-memory H2 database to verify parsing, validation,
+ * upserts by ISBN and chunked writes.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookImportServiceTest {
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private SessionFactory sessionFactory;
+    private BookImportService bookImportService;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Book.class)
+                .addAnnotatedClass(CartItem.class)
+                .addAnnotatedClass(Order.class)
+                .addAnnotatedClass(OrderItem.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:import" + System.nanoTime() + ";MODE=MySQL")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .buildSessionFactory();
+
+        // A small chunk size exercises the chunk boundaries
+        bookImportService = new BookImportService(sessionFactory, JsonMapper.builder().build(), eventPublisher, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    @DisplayName("Should import valid CSV rows and report invalid ones")
+    void testImportCsv_ValidatesRows() throws Exception {
+        // Arrange: Columns in a custom order, a quoted field with a comma, and three bad rows
+        String csv = """
+                title,isbn,price,stock,author,description
+                Java Basics,978-0-00-000001-1,29.99,5,Jane Doe,"Covers classes, objects and ""records""\"
+                Negative Price,9780000000028,-1,5,,
+                Negative Stock,9780000000035,10,-3,,
+                ,,10,1,,
+                Spring Boot Guide,9780000000042,39.50,,John Smith,
+                """;
+
+        // Act
+        ImportReport report = bookImportService.importCsv(new StringReader(csv));
+
+        // Assert
+        assertEquals(5, report.getProcessed());
+        assertEquals(2, report.getInserted());
+        assertEquals(3, report.getFailed());
+        assertFalse(report.isRunning());
+        assertEquals(List.of(
+                new ImportReport.RowError(2, "Price cannot be negative."),
+                new ImportReport.RowError(3, "Stock cannot be negative."),
+                new ImportReport.RowError(4, "ISBN is required.")
+        ), report.getErrors());
+
+        Book imported = findByIsbn("9780000000011");
+        assertEquals("Java Basics", imported.getTitle());
+        assertEquals("Covers classes, objects and \"records\"", imported.getDescription());
+        assertEquals(new BigDecimal("29.99"), imported.getPrice());
+        assertEquals(0, findByIsbn("9780000000042").getStock());
+    }
+
+    @Test
+    @DisplayName("Should update existing books matched by ISBN instead of duplicating them")
+    void testImport_UpsertsByIsbn() throws Exception {
+        // Arrange
+        bookImportService.importCsv(new StringReader("""
+                isbn,title,price,stock
+                9780000000011,Old Title,10.00,1
+                9780000000028,Other Book,12.00,2
+                """));
+
+        // Act: Re-import one existing book with new values, plus a new one
+        ImportReport report = bookImportService.importNdjson(new StringReader("""
+                {"isbn":"9780000000011","title":"New Title","price":15.5,"stock":7}
+                {"isbn":"9780000000035","title":"Third Book","price":9,"stock":3}
+                """));
+
+        // Assert
+        assertEquals(1, report.getUpdated());
+        assertEquals(1, report.getInserted());
+        assertEquals(3L, countBooks());
+
+        Book updated = findByIsbn("9780000000011");
+        assertEquals("New Title", updated.getTitle());
+        assertEquals(7, updated.getStock());
+        verify(eventPublisher, atLeastOnce()).publishEvent(any(BookChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should change only the supplied columns of existing books")
+    void testImport_PartialFeedKeepsOtherColumns() throws Exception {
+        // Arrange
+        bookImportService.importCsv(new StringReader("""
+                isbn,title,author,category,price,stock
+                9780000000011,Java Basics,Jane Doe,Tech,10.00,5
+                """));
+
+        // Act: A price-only CSV feed, a stock-only NDJSON line, and a new book without a price
+        ImportReport prices = bookImportService.importCsv(new StringReader("""
+                isbn,price
+                9780000000011,12.50
+                9780000000028,9.00
+                """));
+        ImportReport stock = bookImportService.importNdjson(new StringReader("""
+                {"isbn":"9780000000011","stock":8}
+                {"isbn":"9780000000035","stock":3}
+                """));
+
+        // Assert
+        assertEquals(1, prices.getUpdated());
+        assertEquals(1, prices.getInserted());
+        assertEquals(1, stock.getUpdated());
+        assertEquals(List.of(new ImportReport.RowError(2, "Price is required for a new book.")), stock.getErrors());
+
+        Book updated = findByIsbn("9780000000011");
+        assertEquals("Java Basics", updated.getTitle());
+        assertEquals("Jane Doe", updated.getAuthor());
+        assertEquals("Tech", updated.getCategory());
+        assertEquals(new BigDecimal("12.50"), updated.getPrice());
+        assertEquals(8, updated.getStock());
+        assertEquals(2L, countBooks());
+    }
+
+    @Test
+    @DisplayName("Should reject malformed NDJSON lines and keep importing")
+    void testImportNdjson_MalformedLine() throws Exception {
+        // Act
+        ImportReport report = bookImportService.importNdjson(new StringReader("""
+                {"isbn":"9780000000011","title":"Good","price":"10.00"}
+                {"isbn": broken
+
+                {"isbn":"9780000000028","title":"Also Good","price":"11.00","stock":"many"}
+                """));
+
+        // Assert: The blank line is skipped, not counted
+        assertEquals(3, report.getProcessed());
+        assertEquals(1, report.getInserted());
+        assertEquals(List.of(
+                new ImportReport.RowError(2, "Malformed JSON."),
+                new ImportReport.RowError(3, "Stock must be a whole number.")
+        ), report.getErrors());
+    }
+
+    @Test
+    @DisplayName("Should reject a CSV feed without an isbn column")
+    void testImportCsv_MissingIsbnColumn() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bookImportService.importCsv(new StringReader("title,price\nA,1\n")));
+    }
+
+    @Test
+    @DisplayName("Should stream a large feed in chunks")
+    void testImportCsv_LargeFeed() throws Exception {
+        // Arrange: 20k rows with the production chunk size
+        bookImportService = new BookImportService(sessionFactory, JsonMapper.builder().build(), eventPublisher, 1000);
+        StringBuilder csv = new StringBuilder("isbn,title,author,price,stock\n");
+        for (int i = 0; i < 20_000; i++) {
+            csv.append(9780000000000L + i).append(",Title ").append(i).append(",Author,9.99,10\n");
+        }
+
+        // Act
+        ImportReport report = bookImportService.importCsv(new StringReader(csv.toString()));
+
+        // Assert
+        assertEquals(20_000, report.getProcessed());
+        assertEquals(20_000, report.getInserted());
+        assertEquals(0, report.getFailed());
+        assertEquals(20_000L, countBooks());
+        verify(eventPublisher, times(20)).publishEvent(any(BookChangedEvent.class));
+    }
+
+    private Book findByIsbn(String isbn) {
+        return sessionFactory.fromSession(session ->
+                session.createSelectionQuery("from Book where isbn = :isbn", Book.class)
+                        .setParameter("isbn", isbn)
+                        .getSingleResult());
+    }
+
+    private long countBooks() {
+        return sessionFactory.fromSession(session ->
+                session.createSelectionQuery("select count(b) from Book b", Long.class).getSingleResult());
+    }
+}
@@ -0,0 +1,140 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.SliceResponse;
+import com.pinawin.bookstore.events.BookChangedEvent;
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.repositories.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BookSearchIndex.
+ * Verifies tokenization, relevance ranking, prefix matching and incremental updates.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private BookSearchIndex bookSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(bookRepository.findAll()).thenReturn(List.of(
+                book(1L, "Java Programming", "Timothy Pinawin", "Technology", "Learn the basics of Java."),
+                book(2L, "Cooking for Engineers", "Jane Doe", "Food", "Recipes written like Java programs."),
+                book(3L, "Effective Java", "Joshua Bloch", "Technology", "Best practices."),
+                book(4L, "Café Stories", "Zoë Martin", "Fiction", null)
+        ));
+        bookSearchIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should rank title matches above description matches")
+    void testSearch_RanksByRelevance() {
+        // Act
+        Page<Book> result = bookSearchIndex.search("java", 0, 8);
+
+        // Assert: Both title matches (ids 1 and 3) come before the description-only match
+        assertEquals(3, result.getTotalElements());
+        assertEquals(List.of(1L, 3L, 2L), result.getContent().stream().map(Book::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Should match the last term as a prefix for search-as-you-type")
+    void testSearch_PrefixOnLastTerm() {
+        // Act
+        Page<Book> result = bookSearchIndex.search("Effective Ja", 0, 8);
+
+        // Assert
+        assertEquals(1, result.getTotalElements());
+        assertEquals("Effective Java", result.getContent().getFirst().getTitle());
+    }
+
+    @Test
+    @DisplayName("Should ignore case and accents when matching")
+    void testSearch_CaseAndAccentFolding() {
+        // Act
+        Page<Book> result = bookSearchIndex.search("CAFE zoe", 0, 8);
+
+        // Assert
+        assertEquals(1, result.getTotalElements());
+        assertEquals(4L, result.getContent().getFirst().getId());
+    }
+
+    @Test
+    @DisplayName("Should paginate ranked results")
+    void testSearch_Pagination() {
+        // Act
+        Page<Book> result = bookSearchIndex.search("java", 1, 2);
+
+        // Assert
+        assertEquals(3, result.getTotalElements());
+        assertEquals(2, result.getTotalPages());
+        assertEquals(List.of(2L), result.getContent().stream().map(Book::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Should walk ranked results with continuation tokens")
+    void testSearchSlice_FollowsCursor() {
+        // Act
+        SliceResponse<Book> first = bookSearchIndex.searchSlice("java", "", 2);
+        SliceResponse<Book> second = bookSearchIndex.searchSlice("java", first.getNextCursor(), 2);
+
+        // Assert
+        assertEquals(List.of(1L, 3L), first.getContent().stream().map(Book::getId).toList());
+        assertTrue(first.isHasNext());
+        assertEquals(List.of(2L), second.getContent().stream().map(Book::getId).toList());
+        assertFalse(second.isHasNext());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should return an empty page for blank or unmatched keywords")
+    void testSearch_NoResults() {
+        assertTrue(bookSearchIndex.search("   ", 0, 8).isEmpty());
+        assertTrue(bookSearchIndex.search("kotlin", 0, 8).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should re-index a book when a change event is received")
+    void testOnBooksChanged_ReplacesIndexedTerms() {
+        // Arrange: Rename book 1 so it no longer mentions Java
+        Book renamed = book(1L, "Kotlin in Action", "Timothy Pinawin", "Technology", null);
+        renamed.setStock(3);
+
+        // Act
+        bookSearchIndex.onBooksChanged(BookChangedEvent.saved(List.of(renamed)));
+
+        // Assert
+        assertEquals(2, bookSearchIndex.search("java", 0, 8).getTotalElements());
+        Book found = bookSearchIndex.search("kotlin", 0, 8).getContent().getFirst();
+        assertEquals(3, found.getStock());
+        assertNotSame(renamed, found, "Index should hold a snapshot, not the caller's entity");
+    }
+
+    private Book book(Long id, String title, String author, String category, String description) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setCategory(category);
+        book.setDescription(description);
+        book.setPrice(new BigDecimal("10.00"));
+        return book;
+    }
+}
@@ -1,5 +1,9 @@
 package com.pinawin.bookstore.services;
 
+import com.pinawin.bookstore.DTO.BookResponse;
+import com.pinawin.bookstore.DTO.PageResponse;
+import com.pinawin.bookstore.DTO.SliceResponse;
+import com.pinawin.bookstore.events.BookChangedEvent;
 import com.pinawin.bookstore.models.Book;
 import com.pinawin.bookstore.repositories.BookRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,12 +12,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,6 +38,19 @@ public class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Spy
+    private BookCatalogCache bookCatalogCache =
+            new BookCatalogCache(100, Duration.ofMinutes(1), 100, Duration.ofMinutes(1), 1_000_000);
+
+    @Mock
+    private CategoryFacetIndex categoryFacetIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookService bookService;
 
@@ -56,30 +78,45 @@ public class BookServiceTest {
         when(bookRepository.findAll(any(Pageable.class))).thenReturn(bookPage);
 
         // Act: Call service with pagination params
-        Page<Book> result = bookService.getAllBooks(page, size);
+        PageResponse<BookResponse> result = bookService.getAllBooks(page, size);
 
-        // Assert: Access content via result.getContent()
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.getTotalElements());
-        assertEquals("Java Programming", result.getContent().getFirst().getTitle());
+        // Assert: Access content via result.content()
+        assertFalse(result.content().isEmpty());
+        assertEquals(1, result.totalElements());
+        assertEquals("Java Programming", result.content().getFirst().title());
         verify(bookRepository, times(1)).findAll(any(Pageable.class));
     }
 
     @Test
-    @DisplayName("Should filter books by title keyword")
+    @DisplayName("Should search books through the in-memory index without querying the database")
     void testSearchBooks() {
         // Arrange
         String keyword = "Java";
         Page<Book> bookPage = new PageImpl<>(List.of(sampleBook));
-        when(bookRepository.findByTitleContainingIgnoreCase(eq(keyword), any(Pageable.class)))
-                .thenReturn(bookPage);
+        when(bookSearchIndex.search(keyword, page, size)).thenReturn(bookPage);
 
         // Act
-        Page<Book> result = bookService.searchBooks(keyword, page, size);
+        PageResponse<BookResponse> result = bookService.searchBooks(keyword, page, size);
 
         // Assert
-        assertEquals(1, result.getContent().size());
-        assertTrue(result.getContent().getFirst().getTitle().contains(keyword));
+        assertEquals(1, result.content().size());
+        assertTrue(result.content().getFirst().title().contains(keyword));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    @DisplayName("Should serve a repeated page request from the catalog cache")
+    void testGetAllBooks_CachedOnSecondCall() {
+        // Arrange
+        when(bookRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(sampleBook)));
+
+        // Act
+        bookService.getAllBooks(page, size);
+        PageResponse<BookResponse> result = bookService.getAllBooks(page, size);
+
+        // Assert: Only the first call reached the database
+        assertEquals(1, result.totalElements());
+        verify(bookRepository, times(1)).findAll(any(Pageable.class));
     }
 
     @Test
@@ -92,10 +129,10 @@ public class BookServiceTest {
                 .thenReturn(bookPage);
 
         // Act
-        Page<Book> result = bookService.filterByCategory(category, page, size);
+        PageResponse<BookResponse> result = bookService.filterByCategory(category, page, size);
 
         // Assert
-        assertEquals("Technology", result.getContent().getFirst().getCategory());
+        assertEquals("Technology", result.content().getFirst().category());
         verify(bookRepository, atLeastOnce()).findByCategoryContainingIgnoreCase(eq(category), any(Pageable.class));
     }
 
@@ -109,10 +146,10 @@ public class BookServiceTest {
                 .thenReturn(bookPage);
 
         // Act
-        Page<Book> result = bookService.filterByCategory(category, page, size);
+        PageResponse<BookResponse> result = bookService.filterByCategory(category, page, size);
 
         // Assert
-        assertFalse(result.isEmpty());
+        assertFalse(result.content().isEmpty());
         verify(bookRepository, times(1)).findByCategoryContainingIgnoreCase(eq("fiction"), any(Pageable.class));
     }
 
@@ -123,14 +160,96 @@ public class BookServiceTest {
         String keyword = "NonExistentBook";
         Page<Book> emptyPage = new PageImpl<>(List.of()); // Empty list
 
-        when(bookRepository.findByTitleContainingIgnoreCase(eq(keyword), any(Pageable.class)))
-                .thenReturn(emptyPage);
+        when(bookSearchIndex.search(keyword, 0, 8)).thenReturn(emptyPage);
+
+        // Act
+        PageResponse<BookResponse> result = bookService.searchBooks(keyword, 0, 8);
+
+        // Assert
+        assertTrue(result.content().isEmpty());
+        assertEquals(0, result.totalElements());
+    }
+
+    @Test
+    @DisplayName("Should persist a book and publish a change event for the catalog index")
+    void testSaveBook_PublishesChangeEvent() {
+        // Arrange
+        when(bookRepository.save(sampleBook)).thenReturn(sampleBook);
+
+        // Act
+        Book result = bookService.saveBook(sampleBook);
+
+        // Assert
+        assertSame(sampleBook, result);
+        verify(eventPublisher, times(1)).publishEvent(any(BookChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should seek past the id encoded in the cursor without counting rows")
+    void testGetAllBooksSlice_UsesKeysetCursor() {
+        // Arrange: First slice ends at book 1 and more books follow
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(sampleBook), Pageable.ofSize(1), true));
 
         // Act
-        Page<Book> result = bookService.searchBooks(keyword, 0, 8);
+        SliceResponse<BookResponse> first = bookService.getAllBooksSlice("", 1);
+
+        // Assert: The next cursor resumes after id 1
+        assertTrue(first.isHasNext());
+        assertNotNull(first.getNextCursor());
+
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(1L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(), Pageable.ofSize(1), false));
+
+        SliceResponse<BookResponse> second = bookService.getAllBooksSlice(first.getNextCursor(), 1);
+
+        assertFalse(second.isHasNext());
+        assertNull(second.getNextCursor());
+        verify(bookRepository, never()).count();
+    }
+
+    @Test
+    @DisplayName("Should seek category slices by the (category, id) pair of the last row")
+    void testFilterByCategorySlice_UsesCompositeCursor() {
+        // Arrange
+        when(bookRepository.findCategorySlice(eq("tech"), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(sampleBook), Pageable.ofSize(1), true));
+        when(bookRepository.findCategorySliceAfter(eq("tech"), eq("Technology"), eq(1L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(), Pageable.ofSize(1), false));
+
+        // Act
+        SliceResponse<BookResponse> first = bookService.filterByCategorySlice("tech", null, 1);
+        SliceResponse<BookResponse> second = bookService.filterByCategorySlice("tech", first.getNextCursor(), 1);
 
         // Assert
-        assertTrue(result.getContent().isEmpty());
-        assertEquals(0, result.getTotalElements());
+        assertEquals(1, first.getContent().size());
+        assertTrue(second.getContent().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject a tampered cursor with 400 Bad Request")
+    void testGetAllBooksSlice_InvalidCursor() {
+        assertThrows(ResponseStatusException.class, () -> bookService.getAllBooksSlice("not-a-cursor!", 8));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    @DisplayName("Should load an exact category page by the ids from the facet index")
+    void testFilterByExactCategory() {
+        // Arrange: The index holds ids 5 and 1 for the page; the repository returns them unordered
+        Book other = new Book();
+        other.setId(5L);
+        other.setCategory("Technology");
+        when(categoryFacetIndex.bookIds("technology", page, size))
+                .thenReturn(new PageImpl<>(List.of(1L, 5L), Pageable.ofSize(size), 2));
+        when(bookRepository.findAllById(List.of(1L, 5L))).thenReturn(List.of(other, sampleBook));
+
+        // Act
+        PageResponse<BookResponse> result = bookService.filterByExactCategory("technology", page, size);
+
+        // Assert: Ordered by id, no LIKE query issued
+        assertEquals(List.of(1L, 5L), result.content().stream().map(BookResponse::id).toList());
+        assertEquals(2, result.totalElements());
+        verify(bookRepository, never()).findByCategoryContainingIgnoreCase(any(), any());
     }
 }
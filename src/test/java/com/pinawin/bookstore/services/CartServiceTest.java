@@ -1,5 +1,6 @@
 package com.pinawin.bookstore.services;
 
+import com.pinawin.bookstore.DTO.CartLineRequest;
 import com.pinawin.bookstore.models.Book;
 import com.pinawin.bookstore.models.CartItem;
 import com.pinawin.bookstore.models.User;
@@ -9,14 +10,20 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -32,7 +39,13 @@ public class CartServiceTest {
     @Mock
     private BookRepository bookRepository;
 
-    @InjectMocks
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private BookCatalogCache bookCatalogCache =
+            new BookCatalogCache(100, Duration.ofMinutes(1), 100, Duration.ofMinutes(1), 1_000_000);
+
     private CartService cartService;
 
     private User testUser;
@@ -40,6 +53,9 @@ public class CartServiceTest {
 
     @BeforeEach
     void setUp() {
+        // Exercise the service against the default, database-backed cart store
+        cartService = new CartService(bookRepository, bookCatalogCache, new DatabaseCartStore(cartItemRepository, jdbcTemplate));
+
         testUser = new User();
         testUser.setId(1L);
         testUser.setUserName("Timothy");
@@ -53,36 +69,46 @@ public class CartServiceTest {
     @Test
     @DisplayName("Should add a new item to the cart when it doesn't exist in the cart")
     void testAddToCartNewItem() {
-        // Arrange
+        // Arrange: The upsert inserts a new line
         when(bookRepository.findById(101L)).thenReturn(Optional.of(testBook));
-        when(cartItemRepository.findByUserAndBook(testUser, testBook)).thenReturn(Optional.empty());
+        when(cartItemRepository.upsertQuantity(1L, 101L, 1)).thenReturn(1);
 
         // Act
-        cartService.addToCart(testUser, 101L);
+        CartItem item = cartService.addToCart(testUser, 101L);
 
-        // Assert
-        // Verify that a new CartItem was saved with quantity 1
-        verify(cartItemRepository, times(1)).save(any(CartItem.class));
+        // Assert: One statement, no read back for a new line
+        assertEquals(1, item.getQuantity());
+        assertSame(testBook, item.getBook());
+        verify(cartItemRepository, never()).findQuantity(anyLong(), anyLong());
     }
 
     @Test
     @DisplayName("Should increment quantity when item already exists in cart")
     void testAddToCartIncrementQuantity() {
-        // Arrange
-        CartItem existingItem = new CartItem();
-        existingItem.setUser(testUser);
-        existingItem.setBook(testBook);
-        existingItem.setQuantity(1);
-
+        // Arrange: The upsert updates the existing line
         when(bookRepository.findById(101L)).thenReturn(Optional.of(testBook));
-        when(cartItemRepository.findByUserAndBook(testUser, testBook)).thenReturn(Optional.of(existingItem));
+        when(cartItemRepository.upsertQuantity(1L, 101L, 1)).thenReturn(2);
+        when(cartItemRepository.findQuantity(1L, 101L)).thenReturn(Optional.of(2));
 
         // Act
-        cartService.addToCart(testUser, 101L);
+        CartItem item = cartService.addToCart(testUser, 101L);
 
         // Assert
-        assertEquals(2, existingItem.getQuantity());
-        verify(cartItemRepository, times(1)).save(existingItem);
+        assertEquals(2, item.getQuantity());
+        verify(cartItemRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should refuse the addition when the database finds the book out of stock")
+    void testAddToCart_SoldOutMeanwhile() {
+        // Arrange: The cached book still shows stock, but the upsert's stock check fails
+        when(bookRepository.findById(101L)).thenReturn(Optional.of(testBook));
+        when(cartItemRepository.upsertQuantity(1L, 101L, 1)).thenReturn(0);
+
+        // Act & Assert
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> cartService.addToCart(testUser, 101L));
+
+        assertEquals("This book is currently out of stock.", ex.getMessage());
     }
 
     @Test
@@ -125,7 +151,7 @@ public class CartServiceTest {
         });
 
         assertEquals("This book is currently out of stock.", ex.getMessage());
-        verify(cartItemRepository, never()).save(any());
+        verify(cartItemRepository, never()).upsertQuantity(anyLong(), anyLong(), anyInt());
     }
 
     @Test
@@ -134,13 +160,13 @@ public class CartServiceTest {
         // Arrange: Stock is 1, button is still visible in UI
         testBook.setStock(1);
         when(bookRepository.findById(101L)).thenReturn(Optional.of(testBook));
-        when(cartItemRepository.findByUserAndBook(testUser, testBook)).thenReturn(Optional.empty());
+        when(cartItemRepository.upsertQuantity(1L, 101L, 1)).thenReturn(1);
 
         // Act
         cartService.addToCart(testUser, 101L);
 
         // Assert
-        verify(cartItemRepository, times(1)).save(any(CartItem.class));
+        verify(cartItemRepository, times(1)).upsertQuantity(1L, 101L, 1);
     }
 
     @Test
@@ -155,4 +181,86 @@ public class CartServiceTest {
         // Extra Guard: Verify we didn't call the general deleteAll method by mistake
         verify(cartItemRepository, never()).deleteAll();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should apply a batch of changes with one stock query and one JDBC batch")
+    void testUpdateCart_AppliesBatch() {
+        // Arrange: The cart holds one copy of book 101; the batch adds 4 more (in two lines),
+        // adds 3 copies of book 102 and removes book 103, which is not in the cart
+        CartItem existing = new CartItem();
+        existing.setBook(testBook);
+        existing.setQuantity(1);
+
+        Book second = book(102L, 5);
+        Book third = book(103L, 0);
+        when(cartItemRepository.findByUser(testUser)).thenReturn(List.of(existing));
+        when(bookRepository.findAllById(any())).thenReturn(List.of(testBook, second, third));
+
+        // Act
+        List<CartItem> cart = cartService.updateCart(testUser,
+                List.of(line(101L, 2), line(102L, 3), line(101L, 2), line(103L, -1)));
+
+        // Assert: The resulting cart is built without reading it again
+        assertEquals(List.of(101L, 102L), cart.stream().map(item -> item.getBook().getId()).toList());
+        assertEquals(List.of(5, 3), cart.stream().map(CartItem::getQuantity).toList());
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture());
+        assertEquals(3, batch.getValue().size());
+        assertArrayEquals(new Object[]{1L, 101L, 4, 4}, batch.getValue().getFirst());
+        verify(jdbcTemplate, times(1)).update(contains("quantity <= 0"), eq(1L));
+        verify(bookRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("Should write nothing if any book lacks stock for its new quantity")
+    void testUpdateCart_InsufficientStock() {
+        // Arrange: 8 copies are already in the cart and only 10 are in stock
+        CartItem existing = new CartItem();
+        existing.setBook(testBook);
+        existing.setQuantity(8);
+
+        when(cartItemRepository.findByUser(testUser)).thenReturn(List.of(existing));
+        when(bookRepository.findAllById(any())).thenReturn(List.of(testBook, book(102L, 5)));
+
+        // Act & Assert
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cartService.updateCart(testUser, List.of(line(102L, 1), line(101L, 3))));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals("Not enough stock for book: Spring Boot Guide", ex.getReason());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should reject unknown books and empty batches")
+    void testUpdateCart_InvalidRequest() {
+        // Arrange
+        when(bookRepository.findAllById(any())).thenReturn(List.of());
+
+        // Act & Assert
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+                () -> cartService.updateCart(testUser, List.of(line(999L, 1))));
+        IllegalArgumentException empty = assertThrows(IllegalArgumentException.class,
+                () -> cartService.updateCart(testUser, List.of(line(101L, 1), line(101L, -1))));
+
+        assertEquals("Book not found: 999", unknown.getMessage());
+        assertEquals("No cart changes given", empty.getMessage());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static CartLineRequest line(Long bookId, int delta) {
+        CartLineRequest line = new CartLineRequest();
+        line.setBookId(bookId);
+        line.setDelta(delta);
+        return line;
+    }
+
+    private static Book book(Long id, int stock) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Book " + id);
+        book.setStock(stock);
+        return book;
+    }
+}
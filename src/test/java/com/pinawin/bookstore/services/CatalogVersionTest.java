@@ -0,0 +1,49 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.events.BookChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CatalogVersion.
+ * Verifies that catalog changes produce a new weak ETag and Last-Modified time.
+ */
+public class CatalogVersionTest {
+
+    @Test
+    @DisplayName("Should issue a new weak ETag after every catalog change")
+    void testOnBooksChanged_NewEtag() {
+        // Arrange
+        CatalogVersion version = new CatalogVersion(Clock.fixed(Instant.parse("2026-01-01T10:00:00.750Z"), ZoneOffset.UTC));
+        String before = version.etag();
+
+        // Act
+        version.onBooksChanged(BookChangedEvent.stockChanged(List.of()));
+        String afterStockChange = version.etag();
+        version.onBooksChanged(BookChangedEvent.saved(List.of()));
+
+        // Assert: Weak, quoted and never repeated
+        assertTrue(before.startsWith("W/\"") && before.endsWith("\""));
+        assertNotEquals(before, afterStockChange);
+        assertNotEquals(afterStockChange, version.etag());
+        assertEquals(Instant.parse("2026-01-01T10:00:00Z"), version.lastModified());
+    }
+
+    @Test
+    @DisplayName("Should not reuse tags issued before a restart")
+    void testEtag_DiffersAcrossRestarts() {
+        // Act
+        CatalogVersion first = new CatalogVersion(Clock.fixed(Instant.parse("2026-01-01T10:00:00Z"), ZoneOffset.UTC));
+        CatalogVersion restarted = new CatalogVersion(Clock.fixed(Instant.parse("2026-01-01T10:05:00Z"), ZoneOffset.UTC));
+
+        // Assert
+        assertNotEquals(first.etag(), restarted.etag());
+    }
+}
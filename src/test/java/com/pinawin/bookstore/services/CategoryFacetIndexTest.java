@@ -0,0 +1,129 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.BookFacetRow;
+import com.pinawin.bookstore.DTO.CategoryFacet;
+import com.pinawin.bookstore.events.BookChangedEvent;
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.repositories.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CategoryFacetIndex.
+ * Verifies category normalization, the per-category counts and their
+ * incremental updates, and exact category pagination.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CategoryFacetIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private CategoryFacetIndex categoryFacetIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(bookRepository.findFacetRows()).thenReturn(List.of(
+                new BookFacetRow(1L, "Technology", 5),
+                new BookFacetRow(2L, " technology ", 0),
+                new BookFacetRow(3L, "Science  Fiction", 2),
+                new BookFacetRow(4L, "Science", 1),
+                new BookFacetRow(5L, "Café", 3),
+                new BookFacetRow(6L, null, 3)
+        ));
+        categoryFacetIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should merge categories differing in case, accents or spacing and count in-stock books")
+    void testFacets_NormalizedCounts() {
+        // Act
+        List<CategoryFacet> facets = categoryFacetIndex.facets();
+
+        // Assert: Uncategorized book 6 is left out
+        assertEquals(List.of(
+                new CategoryFacet("cafe", "Café", 1, 1),
+                new CategoryFacet("science", "Science", 1, 1),
+                new CategoryFacet("science fiction", "Science  Fiction", 1, 1),
+                new CategoryFacet("technology", "Technology", 2, 1)
+        ), facets);
+    }
+
+    @Test
+    @DisplayName("Should match categories exactly, not as substrings")
+    void testBookIds_ExactMatch() {
+        // Act
+        Page<Long> science = categoryFacetIndex.bookIds("SCIENCE", 0, 8);
+
+        // Assert: "Science Fiction" is a different category
+        assertEquals(List.of(4L), science.getContent());
+        assertTrue(categoryFacetIndex.bookIds("Tech", 0, 8).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should page through a category in id order")
+    void testBookIds_Pagination() {
+        // Act
+        Page<Long> second = categoryFacetIndex.bookIds("technology", 1, 1);
+
+        // Assert
+        assertEquals(List.of(2L), second.getContent());
+        assertEquals(2, second.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Should move a book between categories and update stock counts incrementally")
+    void testOnBooksChanged_IncrementalUpdate() {
+        // Arrange: Book 3 is recategorized and book 1 sells out
+        Book moved = book(3L, "Technology", 2);
+        Book soldOut = book(1L, "Technology", 0);
+
+        // Act
+        categoryFacetIndex.onBooksChanged(BookChangedEvent.saved(List.of(moved)));
+        categoryFacetIndex.onBooksChanged(BookChangedEvent.stockChanged(List.of(soldOut)));
+
+        // Assert: The emptied category disappears, without reloading the catalog
+        List<CategoryFacet> facets = categoryFacetIndex.facets();
+        assertTrue(facets.stream().noneMatch(facet -> facet.key().equals("science fiction")));
+        assertEquals(new CategoryFacet("technology", "Technology", 3, 1), facets.getLast());
+        verify(bookRepository, times(1)).findFacetRows();
+    }
+
+    @Test
+    @DisplayName("Should keep changes committed while a rebuild reads the catalog")
+    void testRebuild_KeepsConcurrentChanges() {
+        // Arrange: Book 4 moves to Technology while the rebuild's query still returns the older rows
+        when(bookRepository.findFacetRows()).thenAnswer(invocation -> {
+            categoryFacetIndex.onBooksChanged(BookChangedEvent.saved(List.of(book(4L, "Technology", 1))));
+            return List.of(
+                    new BookFacetRow(1L, "Technology", 5),
+                    new BookFacetRow(4L, "Science", 1));
+        });
+
+        // Act
+        categoryFacetIndex.rebuild();
+
+        // Assert
+        assertEquals(List.of(new CategoryFacet("technology", "Technology", 2, 2)), categoryFacetIndex.facets());
+    }
+
+    private static Book book(Long id, String category, int stock) {
+        Book book = new Book();
+        book.setId(id);
+        book.setCategory(category);
+        book.setStock(stock);
+        return book;
+    }
+}
@@ -4,15 +4,25 @@ import com.pinawin.bookstore.models.*;
 import com.pinawin.bookstore.repositories.BookRepository;
 import com.pinawin.bookstore.repositories.CartItemRepository;
 import com.pinawin.bookstore.repositories.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -32,6 +42,16 @@ public class CheckOutServiceTest {
     private OrderRepository orderRepository;
     @Mock
     private BookRepository bookRepository;
+    @Mock
+    private CartStore cartStore;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private StockReservationStrategy stockReservation = new EntityStockReservation();
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private CheckoutService checkoutService;
@@ -81,6 +101,46 @@ public class CheckOutServiceTest {
         verify(cartItemRepository, times(1)).deleteAll(cartItems);
     }
 
+    @Test
+    @DisplayName("Should time every checkout stage and record the outcome")
+    void testCheckout_RecordsMetrics() {
+        // Arrange
+        when(cartItemRepository.findByUser(testUser)).thenReturn(cartItems);
+        when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        // Act: One successful checkout, then one that fails on an empty cart
+        checkoutService.checkout(testUser);
+        when(cartItemRepository.findByUser(testUser)).thenReturn(new ArrayList<>());
+        assertThrows(RuntimeException.class, () -> checkoutService.checkout(testUser));
+
+        // Assert
+        for (String stage : List.of("load_cart", "validate_stock", "persist_order", "clear_cart")) {
+            long expected = stage.equals("load_cart") ? 2 : 1;
+            assertEquals(expected, meterRegistry.get("bookstore.checkout.stage").tag("stage", stage).timer().count(),
+                    "Unexpected count for stage " + stage);
+        }
+        assertEquals(1, meterRegistry.get("bookstore.checkout").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("bookstore.checkout").tag("outcome", "failure").timer().count());
+        assertEquals(1.0, meterRegistry.get("bookstore.checkout.cart.lines").summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should write pending cart changes before the checkout transaction starts")
+    void testCheckout_FlushesCartOutsideTransaction() {
+        // Arrange
+        when(cartItemRepository.findByUser(testUser)).thenReturn(cartItems);
+        when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        // Act
+        checkoutService.checkout(testUser);
+
+        // Assert: The flush has committed before the order transaction takes a connection
+        InOrder inOrder = inOrder(cartStore, transactionManager, cartItemRepository);
+        inOrder.verify(cartStore).flush(testUser);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(cartItemRepository).findByUser(testUser);
+    }
+
     @Test
     @DisplayName("Should throw exception if stock is insufficient")
     void testCheckoutInsufficientStock() {
@@ -159,4 +219,47 @@ public class CheckOutServiceTest {
         assertEquals(8, testBook.getStock());
         assertEquals(4, book2.getStock());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should run the checkout again in a new transaction after a stock conflict")
+    void testCheckout_RetriesOnConflict() {
+        // Arrange: The strategy allows two attempts; the first loses a race at flush
+        when(stockReservation.maxAttempts()).thenReturn(2);
+        when(stockReservation.backoff()).thenReturn(Duration.ZERO);
+        when(cartItemRepository.findByUser(testUser)).thenReturn(cartItems);
+        when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArguments()[0]);
+        doThrow(new OptimisticLockingFailureException("Row was updated by another transaction"))
+                .doNothing()
+                .when(orderRepository).flush();
+
+        // Act
+        Order order = checkoutService.checkout(testUser);
+
+        // Assert
+        assertNotNull(order);
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(cartItemRepository, times(1)).deleteAll(cartItems);
+        assertEquals(1, meterRegistry.get("bookstore.checkout.conflicts").tag("result", "retried").counter().count());
+        assertEquals(1, meterRegistry.get("bookstore.checkout").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should answer 409 Conflict when every attempt loses a stock race")
+    void testCheckout_AbortsAfterLastConflict() {
+        // Arrange: The default strategy makes a single attempt
+        when(cartItemRepository.findByUser(testUser)).thenReturn(cartItems);
+        when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArguments()[0]);
+        doThrow(new OptimisticLockingFailureException("Row was updated by another transaction"))
+                .when(orderRepository).flush();
+
+        // Act & Assert
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> checkoutService.checkout(testUser));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        verify(cartItemRepository, never()).deleteAll(any());
+        assertEquals(1, meterRegistry.get("bookstore.checkout.conflicts").tag("result", "aborted").counter().count());
+        assertEquals(0, meterRegistry.get("bookstore.checkout.conflicts").tag("result", "retried").counter().count());
+    }
+}
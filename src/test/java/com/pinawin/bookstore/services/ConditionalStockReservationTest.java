@@ -0,0 +1,90 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.BookStock;
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+import com.pinawin.bookstore.repositories.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ConditionalStockReservation.
+ * Verifies that each line is decremented by one conditional update in id order
+ * and that a line the database refuses fails the checkout.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ConditionalStockReservationTest {
+
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private Session session;
+
+    private ConditionalStockReservation stockReservation;
+
+    @BeforeEach
+    void setUp() {
+        // Built by hand: a Session mock would also match the EntityManager parameter
+        stockReservation = new ConditionalStockReservation(bookRepository, entityManager);
+    }
+
+    @Test
+    @DisplayName("Should decrement each book once in id order and report the resulting stock")
+    void testReserve_Success() {
+        // Arrange: Another checkout took one more copy of book 3 in the meantime
+        when(bookRepository.decrementStock(anyLong(), anyInt())).thenReturn(1);
+        when(bookRepository.findStockByIdIn(anyCollection()))
+                .thenReturn(List.of(new BookStock(3L, 2), new BookStock(7L, 4)));
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+
+        // Act
+        List<Book> updated = stockReservation.reserve(List.of(line(7L, 1), line(3L, 2)));
+
+        // Assert
+        InOrder writes = inOrder(bookRepository);
+        writes.verify(bookRepository).decrementStock(3L, 2);
+        writes.verify(bookRepository).decrementStock(7L, 1);
+        assertEquals(List.of(2, 4), updated.stream().map(Book::getStock).toList());
+    }
+
+    @Test
+    @DisplayName("Should fail when the database refuses a decrement")
+    void testReserve_InsufficientStock() {
+        // Arrange: Book 3 can be supplied, book 7 cannot
+        when(bookRepository.decrementStock(3L, 2)).thenReturn(1);
+        when(bookRepository.decrementStock(7L, 1)).thenReturn(0);
+
+        // Act & Assert: The decrement of book 3 is undone by the checkout's rollback
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> stockReservation.reserve(List.of(line(7L, 1), line(3L, 2))));
+
+        assertEquals("Not enough stock for book: Book 7", ex.getMessage());
+        verify(bookRepository, never()).findStockByIdIn(anyCollection());
+    }
+
+    private CartItem line(Long bookId, int quantity) {
+        Book book = new Book();
+        book.setId(bookId);
+        book.setTitle("Book " + bookId);
+
+        CartItem item = new CartItem();
+        item.setBook(book);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
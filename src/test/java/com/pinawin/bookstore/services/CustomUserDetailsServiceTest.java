@@ -1,17 +1,18 @@
 package com.pinawin.bookstore.services;
 
 import com.pinawin.bookstore.models.User;
+import com.pinawin.bookstore.models.UserPrincipal;
 import com.pinawin.bookstore.repositories.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,7 +21,8 @@ import static org.mockito.Mockito.*;
 /**
  * Unit tests for CustomUserDetailsService.
  * Verifies that the security layer correctly retrieves users and handles
- * missing accounts according to Spring Security standards.
+ * missing accounts according to Spring Security standards, and that loaded
+ * users are cached as lightweight principals.
  */
 @ExtendWith(MockitoExtension.class)
 public class CustomUserDetailsServiceTest {
@@ -28,7 +30,6 @@ public class CustomUserDetailsServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
     private CustomUserDetailsService userDetailsService;
 
     private User testUser;
@@ -40,6 +41,8 @@ public class CustomUserDetailsServiceTest {
         testUser.setUserName("Timothy");
         testUser.setPassword("hashed_password");
         testUser.setEmail("timothy@example.com");
+
+        userDetailsService = new CustomUserDetailsService(userRepository, 100, Duration.ofMinutes(5));
     }
 
     @Test
@@ -83,4 +86,55 @@ public class CustomUserDetailsServiceTest {
         assertEquals("Timothy", result.getUsername());
         verify(userRepository, times(1)).findByuserName("timothy");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should return a lightweight principal carrying the user's id and role")
+    void testLoadUserByUsername_ReturnsPrincipal() {
+        // Arrange
+        testUser.setRole("ROLE_ADMIN");
+        when(userRepository.findByuserName("Timothy")).thenReturn(Optional.of(testUser));
+
+        // Act
+        UserDetails result = userDetailsService.loadUserByUsername("Timothy");
+
+        // Assert: No entity in the security context, and no password hash in the session copy
+        UserPrincipal principal = assertInstanceOf(UserPrincipal.class, result);
+        assertEquals(1L, principal.id());
+        assertEquals("ROLE_ADMIN", principal.getAuthorities().iterator().next().getAuthority());
+        assertNull(principal.withoutPassword().getPassword());
+    }
+
+    @Test
+    @DisplayName("Should serve repeated logins from the cache until the user is evicted")
+    void testLoadUserByUsername_Cached() {
+        // Arrange
+        when(userRepository.findByuserName(anyString())).thenReturn(Optional.of(testUser));
+
+        // Act: The second lookup differs only in case
+        userDetailsService.loadUserByUsername("Timothy");
+        userDetailsService.loadUserByUsername("timothy");
+        userDetailsService.evict("TIMOTHY");
+        userDetailsService.loadUserByUsername("Timothy");
+
+        // Assert
+        verify(userRepository, times(2)).findByuserName(anyString());
+        assertEquals(1, userDetailsService.cacheStats().hits());
+    }
+
+    @Test
+    @DisplayName("Should store an upgraded password hash and reload the user on the next login")
+    void testUpdatePassword_StoresHashAndEvicts() {
+        // Arrange: Cache the user with its old hash
+        when(userRepository.findByuserName("Timothy")).thenReturn(Optional.of(testUser));
+        UserDetails loaded = userDetailsService.loadUserByUsername("Timothy");
+
+        // Act
+        UserDetails updated = userDetailsService.updatePassword(loaded, "rehashed_password");
+        userDetailsService.loadUserByUsername("Timothy");
+
+        // Assert
+        assertEquals("rehashed_password", updated.getPassword());
+        verify(userRepository).updatePassword(1L, "rehashed_password");
+        verify(userRepository, times(2)).findByuserName("Timothy");
+    }
+}
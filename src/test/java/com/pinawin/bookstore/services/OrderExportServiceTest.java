@@ -0,0 +1,109 @@
+package com.pinawin.bookstore.services;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for OrderExportService.
+ * Runs the export query against an in-memory H2 database and verifies that
+ * orders are grouped with their items in NDJSON and flattened correctly in CSV.
+ */
+public class OrderExportServiceTest {
+
+    private OrderExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:export-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+
+        // Arrange: Two orders with items and one without, seeded out of id order
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, user_name VARCHAR(50))");
+        jdbc.execute("CREATE TABLE books (id BIGINT PRIMARY KEY, title VARCHAR(100))");
+        jdbc.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, user_id BIGINT, status VARCHAR(20), total_amount DECIMAL(10, 2))");
+        jdbc.execute("CREATE TABLE order_items (id BIGINT PRIMARY KEY, order_id BIGINT, book_id BIGINT, quantity INT, price DECIMAL(10, 2))");
+        jdbc.execute("INSERT INTO users VALUES (1, 'alice'), (2, 'bob')");
+        jdbc.execute("INSERT INTO books VALUES (10, 'Java Basics'), (11, 'Dune, \"Deluxe\" Edition')");
+        jdbc.execute("INSERT INTO orders VALUES (3, 2, 'PLACED', 0.00), (1, 1, 'SHIPPED', 45.00), (2, 1, 'PAID', 20.00)");
+        jdbc.execute("INSERT INTO order_items VALUES (1, 1, 10, 2, 10.00), (2, 1, 11, 1, 25.00), (3, 2, 11, 1, 20.00)");
+
+        // A fetch size smaller than the result, so rows arrive over several fetches
+        exportService = new OrderExportService(dataSource, JsonMapper.builder().build(), 2);
+    }
+
+    @Test
+    @DisplayName("Should write one NDJSON line per order with its items nested")
+    void testExportNdjson_GroupsItemsByOrder() {
+        // Act
+        StringWriter out = new StringWriter();
+        long orders = exportService.exportNdjson(out);
+
+        // Assert
+        assertEquals(3, orders);
+        assertEquals("""
+                {"orderId":1,"userId":1,"userName":"alice","status":"SHIPPED","totalAmount":45.00,"items":[{"bookId":10,"bookTitle":"Java Basics","quantity":2,"price":10.00},{"bookId":11,"bookTitle":"Dune, \\"Deluxe\\" Edition","quantity":1,"price":25.00}]}
+                {"orderId":2,"userId":1,"userName":"alice","status":"PAID","totalAmount":20.00,"items":[{"bookId":11,"bookTitle":"Dune, \\"Deluxe\\" Edition","quantity":1,"price":20.00}]}
+                {"orderId":3,"userId":2,"userName":"bob","status":"PLACED","totalAmount":0.00,"items":[]}
+                """, out.toString());
+    }
+
+    @Test
+    @DisplayName("Should write one CSV record per line item, quoting fields that need it")
+    void testExportCsv_FlattensItems() {
+        // Act
+        StringWriter out = new StringWriter();
+        long records = exportService.exportCsv(out);
+
+        // Assert: The order without items keeps its row, with empty item columns
+        assertEquals(4, records);
+        assertEquals("order_id,user_id,user_name,status,total_amount,book_id,book_title,quantity,price\r\n"
+                + "1,1,alice,SHIPPED,45.00,10,Java Basics,2,10.00\r\n"
+                + "1,1,alice,SHIPPED,45.00,11,\"Dune, \"\"Deluxe\"\" Edition\",1,25.00\r\n"
+                + "2,1,alice,PAID,20.00,11,\"Dune, \"\"Deluxe\"\" Edition\",1,20.00\r\n"
+                + "3,2,bob,PLACED,0.00,,,,\r\n", out.toString());
+    }
+
+    @Test
+    @DisplayName("Should stream rows one by one on MySQL instead of relying on cursor fetch")
+    void testExport_StreamsOnMySql() throws Exception {
+        // Arrange: A MySQL connection returning no rows
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("MySQL");
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(mock(ResultSet.class));
+
+        // Act
+        long orders = new OrderExportService(dataSource, JsonMapper.builder().build(), 2).exportNdjson(new StringWriter());
+
+        // Assert
+        assertEquals(0, orders);
+        verify(connection).prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY));
+        verify(statement).setFetchSize(Integer.MIN_VALUE);
+    }
+}
@@ -0,0 +1,166 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.models.Order;
+import com.pinawin.bookstore.models.OrderStatus;
+import com.pinawin.bookstore.repositories.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OrderPipeline.
+ * Verifies the PLACED -> PAID -> SHIPPED transitions, retries after a failed
+ * payment, and that the sweep recovers orders the queue could not hold.
+ * Worker threads are not started; each test drives the queue itself.
+ */
+@ExtendWith(MockitoExtension.class)
+public class OrderPipelineTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private PaymentGateway paymentGateway;
+
+    @Test
+    @DisplayName("Should charge a placed order, then mark it paid and shipped")
+    void testProcess_PlacedToShipped() throws Exception {
+        // Arrange
+        OrderPipeline pipeline = newPipeline(10, 3);
+        stubOrder(1L, OrderStatus.PLACED);
+        when(orderRepository.updateStatus(eq(1L), any(), any())).thenReturn(1);
+
+        // Act
+        pipeline.enqueue(1L);
+        boolean processed = pipeline.processNext(0, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(processed);
+        InOrder order = inOrder(paymentGateway, orderRepository);
+        order.verify(paymentGateway).charge(1L, new BigDecimal("42.00"));
+        order.verify(orderRepository).updateStatus(1L, OrderStatus.PLACED, OrderStatus.PAID);
+        order.verify(orderRepository).updateStatus(1L, OrderStatus.PAID, OrderStatus.SHIPPED);
+    }
+
+    @Test
+    @DisplayName("Should not charge again when the order has already been paid")
+    void testProcess_ResumesPaidOrder() throws Exception {
+        // Arrange: An order that was paid before a restart
+        OrderPipeline pipeline = newPipeline(10, 3);
+        stubOrder(2L, OrderStatus.PAID);
+        when(orderRepository.updateStatus(2L, OrderStatus.PAID, OrderStatus.SHIPPED)).thenReturn(1);
+
+        // Act
+        pipeline.enqueue(2L);
+        pipeline.processNext(0, TimeUnit.SECONDS);
+
+        // Assert
+        verify(paymentGateway, never()).charge(any(), any());
+        verify(orderRepository).updateStatus(2L, OrderStatus.PAID, OrderStatus.SHIPPED);
+    }
+
+    @Test
+    @DisplayName("Should stop when another worker has already moved the order")
+    void testProcess_LostTransition() throws Exception {
+        // Arrange
+        OrderPipeline pipeline = newPipeline(10, 3);
+        stubOrder(3L, OrderStatus.PLACED);
+        when(orderRepository.updateStatus(3L, OrderStatus.PLACED, OrderStatus.PAID)).thenReturn(0);
+
+        // Act
+        pipeline.enqueue(3L);
+        pipeline.processNext(0, TimeUnit.SECONDS);
+
+        // Assert
+        verify(orderRepository, never()).updateStatus(3L, OrderStatus.PAID, OrderStatus.SHIPPED);
+    }
+
+    @Test
+    @DisplayName("Should leave a failed order placed and retry it from the sweep until attempts run out")
+    void testProcess_RetriesFailedPayment() throws Exception {
+        // Arrange
+        OrderPipeline pipeline = newPipeline(10, 2);
+        stubOrder(4L, OrderStatus.PLACED);
+        doThrow(new IllegalStateException("Card declined")).when(paymentGateway).charge(eq(4L), any());
+        when(orderRepository.findIdsByStatusIn(anyList(), eq(0L), any())).thenReturn(List.of(4L));
+        pipeline.start();
+
+        // Act: The initial sweep queues the order; it fails twice, then the sweep skips it
+        assertTrue(pipeline.processNext(0, TimeUnit.SECONDS));
+        pipeline.sweep();
+        assertTrue(pipeline.processNext(0, TimeUnit.SECONDS));
+        pipeline.sweep();
+
+        // Assert
+        assertFalse(pipeline.processNext(0, TimeUnit.SECONDS));
+        verify(paymentGateway, times(2)).charge(eq(4L), any());
+        verify(orderRepository, never()).updateStatus(anyLong(), any(), any());
+        pipeline.stop();
+    }
+
+    @Test
+    @DisplayName("Should keep checkout non-blocking when the queue is full and recover the order later")
+    void testEnqueue_OverflowRecoveredBySweep() throws Exception {
+        // Arrange: A queue with room for one order
+        OrderPipeline pipeline = newPipeline(1, 3);
+        when(orderRepository.findIdsByStatusIn(anyList(), eq(0L), any())).thenReturn(List.of());
+        pipeline.start();
+
+        // Act
+        assertTrue(pipeline.enqueue(5L));
+        assertFalse(pipeline.enqueue(6L));
+
+        stubOrder(5L, OrderStatus.SHIPPED);
+        pipeline.processNext(0, TimeUnit.SECONDS);
+
+        when(orderRepository.findIdsByStatusIn(anyList(), eq(0L), any())).thenReturn(List.of(6L));
+        pipeline.sweep();
+
+        // Assert: The overflowed order is queued by the sweep
+        stubOrder(6L, OrderStatus.SHIPPED);
+        assertTrue(pipeline.processNext(0, TimeUnit.SECONDS));
+        verify(orderRepository).findById(6L);
+        pipeline.stop();
+    }
+
+    @Test
+    @DisplayName("Should not queue an order twice")
+    void testEnqueue_Deduplicates() throws Exception {
+        // Arrange
+        OrderPipeline pipeline = newPipeline(10, 3);
+        stubOrder(7L, OrderStatus.SHIPPED);
+
+        // Act
+        pipeline.enqueue(7L);
+        pipeline.enqueue(7L);
+
+        // Assert
+        assertTrue(pipeline.processNext(0, TimeUnit.SECONDS));
+        assertFalse(pipeline.processNext(0, TimeUnit.SECONDS));
+    }
+
+    private OrderPipeline newPipeline(int queueCapacity, int maxAttempts) {
+        // No worker threads: tests call processNext directly
+        return new OrderPipeline(orderRepository, paymentGateway, new SimpleMeterRegistry(), queueCapacity, 0, maxAttempts);
+    }
+
+    private void stubOrder(Long id, OrderStatus status) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(status);
+        order.setTotalAmount(new BigDecimal("42.00"));
+        when(orderRepository.findById(id)).thenReturn(Optional.of(order));
+    }
+}
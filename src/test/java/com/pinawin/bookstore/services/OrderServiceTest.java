@@ -1,5 +1,6 @@
 package com.pinawin.bookstore.services;
 
+import com.pinawin.bookstore.DTO.OrderLine;
 import com.pinawin.bookstore.DTO.OrderResponse;
 import com.pinawin.bookstore.models.*;
 import com.pinawin.bookstore.repositories.OrderRepository;
@@ -10,18 +11,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for OrderService.
  * Focuses on the retrieval of order history and the correct mapping of
- * Order entities to OrderResponse DTOs.
+ * projected order rows to OrderResponse DTOs.
  */
 @ExtendWith(MockitoExtension.class)
 public class OrderServiceTest {
@@ -33,40 +36,26 @@ public class OrderServiceTest {
     private OrderService orderService;
 
     private User testUser;
-    private Order testOrder;
 
     @BeforeEach
     void setUp() {
         testUser = new User();
         testUser.setId(1L);
-
-        // Setup a mock Order with nested OrderItems
-        testOrder = new Order();
-        testOrder.setId(500L);
-        testOrder.setUser(testUser);
-        testOrder.setStatus(OrderStatus.PLACED);
-        testOrder.setTotalAmount(new BigDecimal("150.00"));
-
-        OrderItem item = new OrderItem();
-        Book book = new Book();
-        book.setTitle("Mastering Java");
-        item.setBook(book);
-        item.setQuantity(2);
-        item.setPrice(new BigDecimal("75.00"));
-
-        List<OrderItem> items = new ArrayList<>();
-        items.add(item);
-        testOrder.setOrderItems(items);
     }
 
     @Test
     @DisplayName("Should return a list of OrderResponse DTOs for a user")
     void testGetUserOrdersMapping() {
-        // Arrange: Mock repository to return the entity list
-        when(orderRepository.findByUser(testUser)).thenReturn(List.of(testOrder));
+        // Arrange: One order with two items, projected as two rows
+        when(orderRepository.findIdsByUserBefore(testUser, Long.MAX_VALUE, PageRequest.of(0, 10)))
+                .thenReturn(List.of(500L));
+        when(orderRepository.findLinesByOrderIds(List.of(500L))).thenReturn(List.of(
+                line(500L, "190.00", "Mastering Java", 2, "75.00"),
+                line(500L, "190.00", "Clean Code", 1, "40.00")
+        ));
 
         // Act: Call service method
-        List<OrderResponse> result = orderService.getOrdersForUser(testUser);
+        List<OrderResponse> result = orderService.getOrdersForUser(testUser, null, 10);
 
         // Assert: Verify DTO mapping accuracy
         assertNotNull(result);
@@ -75,26 +64,67 @@ public class OrderServiceTest {
         OrderResponse response = result.getFirst();
         assertEquals(500L, response.getOrderId());
         assertEquals("PLACED", response.getStatus());
-        assertEquals(new BigDecimal("150.00"), response.getTotalAmount());
+        assertEquals(new BigDecimal("190.00"), response.getTotalAmount());
 
-        // Verify nested item mapping (Nested Loop check)
-        assertEquals(1, response.getItems().size());
+        // Verify nested item mapping (rows grouped under their order)
+        assertEquals(2, response.getItems().size());
         assertEquals("Mastering Java", response.getItems().getFirst().getBookTitle());
+        assertEquals(2, response.getItems().getFirst().getQuantity());
+        assertEquals("Clean Code", response.getItems().get(1).getBookTitle());
+    }
+
+    @Test
+    @DisplayName("Should seek below the given order id and keep newest-first order")
+    void testGetUserOrders_NextPage() {
+        // Arrange
+        when(orderRepository.findIdsByUserBefore(testUser, 300L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(250L, 120L));
+        when(orderRepository.findLinesByOrderIds(List.of(250L, 120L))).thenReturn(List.of(
+                line(250L, "10.00", "Book A", 1, "10.00"),
+                line(120L, "20.00", "Book B", 1, "20.00")
+        ));
 
-        verify(orderRepository, times(1)).findByUser(testUser);
+        // Act
+        List<OrderResponse> result = orderService.getOrdersForUser(testUser, 300L, 2);
+
+        // Assert: Exactly two queries, whatever the number of items
+        assertEquals(List.of(250L, 120L), result.stream().map(OrderResponse::getOrderId).toList());
+        verify(orderRepository, times(1)).findIdsByUserBefore(any(), any(), any());
+        verify(orderRepository, times(1)).findLinesByOrderIds(any());
+        verifyNoMoreInteractions(orderRepository);
     }
 
     @Test
     @DisplayName("Should return an empty list when user has no orders")
     void testGetUserOrdersEmpty() {
         // Arrange
-        when(orderRepository.findByUser(testUser)).thenReturn(new ArrayList<>());
+        when(orderRepository.findIdsByUserBefore(testUser, Long.MAX_VALUE, PageRequest.of(0, 10)))
+                .thenReturn(new ArrayList<>());
 
         // Act
-        List<OrderResponse> result = orderService.getOrdersForUser(testUser);
+        List<OrderResponse> result = orderService.getOrdersForUser(testUser, null, 10);
+
+        // Assert: The item query is skipped entirely
+        assertTrue(result.isEmpty());
+        verify(orderRepository, never()).findLinesByOrderIds(any());
+    }
+
+    @Test
+    @DisplayName("Should cap the page size and reject sizes below one")
+    void testGetUserOrders_PageSizeBounds() {
+        // Arrange
+        when(orderRepository.findIdsByUserBefore(testUser, Long.MAX_VALUE, PageRequest.of(0, OrderService.MAX_PAGE_SIZE)))
+                .thenReturn(new ArrayList<>());
+
+        // Act
+        List<OrderResponse> result = orderService.getOrdersForUser(testUser, null, 1_000_000);
 
         // Assert
         assertTrue(result.isEmpty());
-        verify(orderRepository, times(1)).findByUser(testUser);
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrdersForUser(testUser, null, 0));
+    }
+
+    private OrderLine line(Long orderId, String total, String title, int quantity, String price) {
+        return new OrderLine(orderId, OrderStatus.PLACED, new BigDecimal(total), title, quantity, new BigDecimal(price));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.BookStock;
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+import com.pinawin.bookstore.repositories.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PessimisticStockReservation.
+ * Verifies that rows are locked in id order and that no line is decremented
+ * unless every line can be satisfied.
+ */
+@ExtendWith(MockitoExtension.class)
+public class PessimisticStockReservationTest {
+
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private Session session;
+
+    private PessimisticStockReservation stockReservation;
+
+    @BeforeEach
+    void setUp() {
+        // Built by hand: a Session mock would also match the EntityManager parameter
+        stockReservation = new PessimisticStockReservation(bookRepository, entityManager);
+        lenient().when(entityManager.unwrap(Session.class)).thenReturn(session);
+    }
+
+    @Test
+    @DisplayName("Should lock the books in id order, then decrement every line")
+    void testReserve_Success() {
+        // Arrange: The cart lists the books out of id order, one of them twice
+        List<CartItem> cart = List.of(line(7L, 1), line(3L, 2), line(7L, 2));
+        when(bookRepository.lockStock(anyCollection()))
+                .thenReturn(List.of(new BookStock(3L, 5), new BookStock(7L, 3)));
+
+        // Act
+        List<Book> updated = stockReservation.reserve(cart);
+
+        // Assert
+        verify(bookRepository).lockStock(argThat(ids -> List.copyOf(ids).equals(List.of(3L, 7L))));
+        InOrder writes = inOrder(bookRepository);
+        writes.verify(bookRepository).decrementStock(3L, 2);
+        writes.verify(bookRepository).decrementStock(7L, 3);
+        assertEquals(List.of(3, 0), updated.stream().map(Book::getStock).toList());
+    }
+
+    @Test
+    @DisplayName("Should decrement nothing if any line lacks stock")
+    void testReserve_InsufficientStock() {
+        // Arrange
+        when(bookRepository.lockStock(anyCollection()))
+                .thenReturn(List.of(new BookStock(3L, 5), new BookStock(7L, 1)));
+
+        // Act & Assert
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> stockReservation.reserve(List.of(line(3L, 2), line(7L, 2))));
+
+        assertEquals("Not enough stock for book: Book 7", ex.getMessage());
+        verify(bookRepository, never()).decrementStock(anyLong(), anyInt());
+    }
+
+    private CartItem line(Long bookId, int quantity) {
+        Book book = new Book();
+        book.setId(bookId);
+        book.setTitle("Book " + bookId);
+
+        CartItem item = new CartItem();
+        item.setBook(book);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
@@ -0,0 +1,234 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.DTO.BookSales;
+import com.pinawin.bookstore.DTO.CategorySales;
+import com.pinawin.bookstore.DTO.DailySales;
+import com.pinawin.bookstore.events.OrderPlacedEvent;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SalesRollup.
+ * Verifies the bestseller, category and daily aggregates as orders are placed over several
+ * days, and their persistence to an in-memory H2 daily_book_sales table.
+ */
+public class SalesRollupTest {
+
+    private static final int RETENTION_DAYS = 30;
+
+    private final MovableClock clock = new MovableClock(Instant.parse("2026-03-01T12:00:00Z"));
+    private JdbcTemplate jdbcTemplate;
+    private SalesRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:rollup-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        createTable();
+
+        rollup = new SalesRollup(jdbcTemplate, RETENTION_DAYS, clock);
+        rollup.load();
+    }
+
+    @Test
+    @DisplayName("Should rank bestsellers by units over the requested period")
+    void testBestsellers_RanksByPeriod() {
+        // Arrange: Book 1 sold well a week ago, book 2 sells today
+        rollup.onOrderPlaced(order(line(1L, "Fiction", 5, "10.00")));
+        clock.plusDays(7);
+        rollup.onOrderPlaced(order(line(2L, "Science", 2, "30.00"), line(3L, null, 1, "5.50")));
+        rollup.onOrderPlaced(order(line(2L, "Science", 1, "30.00")));
+
+        // Act
+        List<BookSales> thisWeek = rollup.bestsellers(7, 20);
+        List<BookSales> allTime = rollup.bestsellers(null, 2);
+
+        // Assert
+        assertEquals(List.of(
+                new BookSales(2L, "Science", 3, new BigDecimal("90.00")),
+                new BookSales(3L, SalesRollup.UNCATEGORIZED, 1, new BigDecimal("5.50"))), thisWeek);
+        assertEquals(List.of(
+                new BookSales(1L, "Fiction", 5, new BigDecimal("50.00")),
+                new BookSales(2L, "Science", 3, new BigDecimal("90.00"))), allTime);
+    }
+
+    @Test
+    @DisplayName("Should pick the top books correctly from a large table")
+    void testBestsellers_ManyBooks() {
+        // Arrange: Book i sells i units, so the top ten are the ten highest ids
+        for (long bookId = 1; bookId <= 2_000; bookId++) {
+            rollup.onOrderPlaced(order(line(bookId, "Fiction", (int) bookId, "1.00")));
+        }
+
+        // Act
+        List<BookSales> top = rollup.bestsellers(1, 10);
+
+        // Assert
+        assertEquals(10, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(2_000L - i, top.get(i).bookId());
+        }
+    }
+
+    @Test
+    @DisplayName("Should break revenue down by category and report every day of the period")
+    void testCategoriesAndDaily() {
+        // Arrange
+        rollup.onOrderPlaced(order(line(1L, "Fiction", 2, "10.00"), line(2L, "Science", 1, "15.00")));
+        clock.plusDays(2);
+        rollup.onOrderPlaced(order(line(3L, "Science", 1, "12.00")));
+
+        // Act
+        List<CategorySales> lastDay = rollup.categories(1);
+        List<CategorySales> allTime = rollup.categories(null);
+        List<DailySales> daily = rollup.daily(3);
+
+        // Assert
+        assertEquals(List.of(new CategorySales("Science", 1, new BigDecimal("12.00"))), lastDay);
+        assertEquals(List.of(
+                new CategorySales("Science", 2, new BigDecimal("27.00")),
+                new CategorySales("Fiction", 2, new BigDecimal("20.00"))), allTime);
+        assertEquals(List.of(
+                new DailySales(LocalDate.of(2026, 3, 1), 3, new BigDecimal("35.00")),
+                new DailySales(LocalDate.of(2026, 3, 2), 0, new BigDecimal("0.00")),
+                new DailySales(LocalDate.of(2026, 3, 3), 1, new BigDecimal("12.00"))), daily);
+    }
+
+    @Test
+    @DisplayName("Should keep queried periods current as orders arrive and days pass")
+    void testPeriods_FollowOrdersAndDays() {
+        // Arrange: Both periods are merged before the next orders arrive
+        rollup.onOrderPlaced(order(line(1L, "Fiction", 2, "10.00")));
+        rollup.bestsellers(1, 10);
+        rollup.categories(2);
+
+        // Act
+        rollup.onOrderPlaced(order(line(1L, "Fiction", 1, "10.00"), line(2L, "Science", 1, "15.00")));
+        List<BookSales> today = rollup.bestsellers(1, 10);
+        List<CategorySales> twoDays = rollup.categories(2);
+        clock.plusDays(1);
+        rollup.onOrderPlaced(order(line(2L, "Science", 3, "15.00")));
+        List<BookSales> nextDay = rollup.bestsellers(1, 10);
+        List<CategorySales> nextTwoDays = rollup.categories(2);
+
+        // Assert
+        assertEquals(List.of(
+                new BookSales(1L, "Fiction", 3, new BigDecimal("30.00")),
+                new BookSales(2L, "Science", 1, new BigDecimal("15.00"))), today);
+        assertEquals(List.of(
+                new CategorySales("Fiction", 3, new BigDecimal("30.00")),
+                new CategorySales("Science", 1, new BigDecimal("15.00"))), twoDays);
+        assertEquals(List.of(new BookSales(2L, "Science", 3, new BigDecimal("45.00"))), nextDay);
+        assertEquals(List.of(
+                new CategorySales("Science", 4, new BigDecimal("60.00")),
+                new CategorySales("Fiction", 3, new BigDecimal("30.00"))), nextTwoDays);
+    }
+
+    @Test
+    @DisplayName("Should persist sales and rebuild the same aggregates on startup")
+    void testFlush_RoundTrip() {
+        // Arrange: Two flushes of the same book and day add up in one row
+        rollup.onOrderPlaced(order(line(1L, "Fiction", 2, "10.00")));
+        rollup.flush();
+        rollup.onOrderPlaced(order(line(1L, "Fiction", 1, "10.00")));
+        clock.plusDays(1);
+        rollup.onOrderPlaced(order(line(2L, "Science", 4, "7.25")));
+        rollup.flush();
+
+        // Act
+        SalesRollup restarted = new SalesRollup(jdbcTemplate, RETENTION_DAYS, clock);
+        restarted.load();
+
+        // Assert
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT units FROM daily_book_sales WHERE book_id = 1", Long.class));
+        assertEquals(rollup.bestsellers(null, 10), restarted.bestsellers(null, 10));
+        assertEquals(rollup.bestsellers(1, 10), restarted.bestsellers(1, 10));
+        assertEquals(rollup.categories(null), restarted.categories(null));
+        assertEquals(rollup.daily(2), restarted.daily(2));
+    }
+
+    @Test
+    @DisplayName("Should keep sales for the next flush when writing fails")
+    void testFlush_RetriesAfterFailure() {
+        // Arrange
+        rollup.onOrderPlaced(order(line(1L, "Fiction", 2, "10.00")));
+        jdbcTemplate.execute("DROP TABLE daily_book_sales");
+
+        // Act
+        rollup.flush();
+        createTable();
+        rollup.flush();
+
+        // Assert
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT units FROM daily_book_sales WHERE book_id = 1", Long.class));
+    }
+
+    @Test
+    @DisplayName("Should reject periods beyond the retention and invalid limits")
+    void testQueries_Validation() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> rollup.bestsellers(RETENTION_DAYS + 1, 20));
+        assertThrows(IllegalArgumentException.class, () -> rollup.bestsellers(7, 0));
+        assertThrows(IllegalArgumentException.class, () -> rollup.categories(0));
+        assertThrows(IllegalArgumentException.class, () -> rollup.daily(RETENTION_DAYS + 1));
+    }
+
+    private void createTable() {
+        jdbcTemplate.execute("CREATE TABLE daily_book_sales (sales_date DATE, book_id BIGINT, category VARCHAR(255), "
+                + "units BIGINT, revenue DECIMAL(14, 2), PRIMARY KEY (sales_date, book_id))");
+    }
+
+    private static OrderPlacedEvent order(OrderPlacedEvent.Line... lines) {
+        return new OrderPlacedEvent(1L, List.of(lines));
+    }
+
+    private static OrderPlacedEvent.Line line(Long bookId, String category, int quantity, String price) {
+        return new OrderPlacedEvent.Line(bookId, category, quantity, new BigDecimal(price));
+    }
+
+    /**
+     * Clock that tests can move forward.
+     */
+    private static final class MovableClock extends Clock {
+
+        private Instant now;
+
+        MovableClock(Instant now) {
+            this.now = now;
+        }
+
+        void plusDays(int days) {
+            now = now.plusSeconds(days * 86_400L);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.events.BookChangedEvent;
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+import com.pinawin.bookstore.repositories.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StockLedger.
+ * Verifies all-or-nothing reservations, oversell protection under contention
+ * and batched write-back of stock decrements.
+ */
+@ExtendWith(MockitoExtension.class)
+public class StockLedgerTest {
+
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private StockLedger stockLedger;
+
+    @Test
+    @DisplayName("Should reserve every line when stock is available")
+    void testReserve_Success() {
+        // Arrange
+        when(bookRepository.findStockById(1L)).thenReturn(Optional.of(10));
+        when(bookRepository.findStockById(2L)).thenReturn(Optional.of(3));
+
+        // Act
+        List<Book> updated = stockLedger.reserve(List.of(line(1L, 4), line(2L, 3)));
+
+        // Assert: Nothing is written inside the checkout transaction
+        assertTrue(updated.isEmpty());
+        assertEquals(6, stockLedger.available(1L));
+        assertEquals(0, stockLedger.available(2L));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should release earlier lines when a later line cannot be satisfied")
+    void testReserve_AllOrNothing() {
+        // Arrange
+        when(bookRepository.findStockById(1L)).thenReturn(Optional.of(10));
+        when(bookRepository.findStockById(2L)).thenReturn(Optional.of(1));
+
+        // Act & Assert
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> stockLedger.reserve(List.of(line(1L, 4), line(2L, 2))));
+
+        assertTrue(ex.getMessage().contains("Not enough stock"));
+        assertEquals(10, stockLedger.available(1L));
+        assertEquals(1, stockLedger.available(2L));
+
+        // Nothing is pending, so a flush writes nothing
+        stockLedger.flush();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should never oversell when many checkouts compete for the same book")
+    void testReserve_ConcurrentCheckoutsDoNotOversell() throws Exception {
+        // Arrange: 50 units, 200 concurrent single-unit checkouts
+        when(bookRepository.findStockById(1L)).thenReturn(Optional.of(50));
+        int attempts = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < attempts; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    stockLedger.reserve(List.of(line(1L, 1)));
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(10, TimeUnit.SECONDS)) {
+                succeeded++;
+            }
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(50, succeeded);
+        assertEquals(0, stockLedger.available(1L));
+    }
+
+    @Test
+    @DisplayName("Should not hold up other books while a counter is seeded from the database")
+    void testReserve_SeedingDoesNotBlockOtherBooks() throws Exception {
+        // Arrange: Books 1 and 17 share a bin of the counter map; seeding book 1 stalls until released
+        CountDownLatch seeding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookRepository.findStockById(1L)).thenAnswer(invocation -> {
+            seeding.countDown();
+            release.await();
+            return Optional.of(5);
+        });
+        when(bookRepository.findStockById(17L)).thenReturn(Optional.of(5));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<?> slow = executor.submit(() -> stockLedger.reserve(List.of(line(1L, 1))));
+            assertTrue(seeding.await(5, TimeUnit.SECONDS));
+
+            // Act: Book 17 is reserved while book 1 is still being seeded
+            Future<?> other = executor.submit(() -> stockLedger.reserve(List.of(line(17L, 1))));
+
+            // Assert
+            other.get(5, TimeUnit.SECONDS);
+            assertEquals(4, stockLedger.available(17L));
+            release.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+            assertEquals(4, stockLedger.available(1L));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should write accumulated decrements in one batch and announce them")
+    void testFlush_BatchesDecrements() {
+        // Arrange
+        when(bookRepository.findStockById(1L)).thenReturn(Optional.of(10));
+        when(bookRepository.findStockById(2L)).thenReturn(Optional.of(10));
+        stockLedger.reserve(List.of(line(1L, 2)));
+        stockLedger.reserve(List.of(line(1L, 1), line(2L, 5)));
+
+        // Act
+        stockLedger.flush();
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture());
+        assertEquals(2, batch.getValue().size());
+        assertArrayEquals(new Object[]{3, 1L}, batch.getValue().get(0));
+        assertArrayEquals(new Object[]{5, 2L}, batch.getValue().get(1));
+        verify(eventPublisher, times(1)).publishEvent(any(BookChangedEvent.class));
+
+        // A second flush has nothing left to write
+        stockLedger.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should keep decrements pending when the batch write fails")
+    void testFlush_RetriesAfterFailure() {
+        // Arrange
+        when(bookRepository.findStockById(1L)).thenReturn(Optional.of(10));
+        stockLedger.reserve(List.of(line(1L, 2)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Connection lost"))
+                .thenReturn(new int[]{1});
+
+        // Act
+        stockLedger.flush();
+        stockLedger.flush();
+
+        // Assert: The same decrement is written on the retry, and announced only once
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        verify(eventPublisher, times(1)).publishEvent(any(BookChangedEvent.class));
+        assertEquals(8, stockLedger.available(1L));
+    }
+
+    private CartItem line(Long bookId, int quantity) {
+        Book book = new Book();
+        book.setId(bookId);
+        book.setTitle("Book " + bookId);
+
+        CartItem item = new CartItem();
+        item.setBook(book);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
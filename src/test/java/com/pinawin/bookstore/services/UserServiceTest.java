@@ -8,12 +8,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.Optional;
+import java.sql.SQLException;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 /**
@@ -39,14 +43,13 @@ public class UserServiceTest {
         String rawPassword = "password123";
         String hashed = "hashed_pw";
 
-        // Mock both checks to return empty (meaning neither email nor username is taken)
-        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.empty());
-        when(userRepository.findByuserName("timothy")).thenReturn(Optional.empty());
+        // Mock the duplicate check to return nothing (meaning neither email nor username is taken)
+        when(userRepository.findConflictingEmails("test@example.com", "timothy")).thenReturn(List.of());
 
         when(passwordEncoder.encode(rawPassword)).thenReturn(hashed);
 
         // Simulate the save operation returning the object passed to it
-        when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(i -> i.getArguments()[0]);
 
         // Act
         User result = userService.register("timothy", "test@example.com", rawPassword, "ROLE_USER");
@@ -58,9 +61,8 @@ public class UserServiceTest {
         assertEquals(hashed, result.getPassword());
 
         // Verify all critical interactions occurred exactly once
-        verify(userRepository, times(1)).findByEmail("test@example.com");
-        verify(userRepository, times(1)).findByuserName("timothy");
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, times(1)).findConflictingEmails("test@example.com", "timothy");
+        verify(userRepository, times(1)).saveAndFlush(any(User.class));
         verify(passwordEncoder, times(1)).encode(rawPassword);
     }
 
@@ -68,9 +70,7 @@ public class UserServiceTest {
     @DisplayName("Should throw exception when email is already in use")
     void register_duplicateEmail_throwsException() {
         // Arrange
-        User existingUser = new User();
-        existingUser.setEmail("test@example.com");
-        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(existingUser));
+        when(userRepository.findConflictingEmails("test@example.com", "timothy")).thenReturn(List.of("test@example.com"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -79,18 +79,16 @@ public class UserServiceTest {
 
         assertEquals("Email already registered", exception.getMessage());
         // Verify that the save method was NEVER called due to the exception
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+        verify(passwordEncoder, never()).encode(anyString());
     }
 
     @Test
     @DisplayName("Should throw exception when username is already taken")
     void register_duplicateUsername_throwsException() {
         // Arrange
-        User existingUser = new User();
-        existingUser.setUserName("timothy_p");
-
-        // Mock the repository to find the user by name
-        when(userRepository.findByuserName("timothy_p")).thenReturn(Optional.of(existingUser));
+        // Mock the repository to find another user (with another email) by name
+        when(userRepository.findConflictingEmails("new_email@example.com", "timothy_p")).thenReturn(List.of("other@example.com"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -98,18 +96,16 @@ public class UserServiceTest {
         });
 
         assertEquals("User Name already registered", exception.getMessage());
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+        verify(passwordEncoder, never()).encode(anyString());
     }
 
     @Test
     @DisplayName("Should throw exception when username exists with different casing")
     void register_duplicateUsernameCaseInsensitive_throwsException() {
         // Arrange
-        User existingUser = new User();
-        existingUser.setUserName("Timothy");
-
-        // Simulate finding the user even if searched with lowercase
-        when(userRepository.findByuserName("timothy")).thenReturn(Optional.of(existingUser));
+        // Simulate finding the user "Timothy" even if searched with lowercase
+        when(userRepository.findConflictingEmails("new@example.com", "timothy")).thenReturn(List.of("timothy@example.com"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -139,10 +135,9 @@ public class UserServiceTest {
         String rawPw = "secret123";
         String hashedPw = "encoded_hash_xyz";
 
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
-        when(userRepository.findByuserName(anyString())).thenReturn(Optional.empty());
+        when(userRepository.findConflictingEmails(anyString(), anyString())).thenReturn(List.of());
         when(passwordEncoder.encode(rawPw)).thenReturn(hashedPw);
-        when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(i -> i.getArguments()[0]);
 
         // Act
         User result = userService.register("timothy", "t@test.com", rawPw, "ROLE_USER");
@@ -157,10 +152,9 @@ public class UserServiceTest {
     @DisplayName("Should assign ROLE_USER by default when role parameter is null or empty")
     void register_defaultRoleAssignment() {
         // Arrange
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
-        when(userRepository.findByuserName(anyString())).thenReturn(Optional.empty());
+        when(userRepository.findConflictingEmails(anyString(), anyString())).thenReturn(List.of());
         when(passwordEncoder.encode(anyString())).thenReturn("hashed_pw");
-        when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(i -> i.getArguments()[0]);
 
         // Act: Test with null role and empty string role
         User userWithNull = userService.register("timothy", "t1@test.com", "pw", null);
@@ -176,10 +170,9 @@ public class UserServiceTest {
     void register_explicitRoleAssignment() {
         // Arrange
         String customRole = "ROLE_ADMIN";
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
-        when(userRepository.findByuserName(anyString())).thenReturn(Optional.empty());
+        when(userRepository.findConflictingEmails(anyString(), anyString())).thenReturn(List.of());
         when(passwordEncoder.encode(anyString())).thenReturn("hashed_pw");
-        when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(i -> i.getArguments()[0]);
 
         // Act
         User adminUser = userService.register("adminUser", "admin@test.com", "pw", customRole);
@@ -187,4 +180,39 @@ public class UserServiceTest {
         // Assert
         assertEquals("ROLE_ADMIN", adminUser.getRole());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should map a unique constraint violation from a concurrent registration to the duplicate message")
+    void register_concurrentDuplicate_mapsConstraintViolation() {
+        // Arrange: The check passes, but another request inserts the same user name before this one
+        when(userRepository.findConflictingEmails(anyString(), anyString())).thenReturn(List.of());
+        when(passwordEncoder.encode(anyString())).thenReturn("hashed_pw");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException("Duplicate",
+                new ConstraintViolationException("Duplicate entry", new SQLException(), "uk_users_user_name")));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            userService.register("timothy", "t@test.com", "pw", "ROLE_USER");
+        });
+
+        assertEquals("User Name already registered", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should map a duplicate reported under a legacy auto-named unique index to the duplicate message")
+    void register_concurrentDuplicate_legacyIndex() {
+        // Arrange: An upgraded database reports the duplicate email under the old index name
+        when(userRepository.findConflictingEmails(anyString(), anyString())).thenReturn(List.of());
+        when(passwordEncoder.encode(anyString())).thenReturn("hashed_pw");
+        String message = "Duplicate entry 'T@test.com' for key 'users.UK6dotkott2kjsp8vw4d0m25fb7'";
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException("Duplicate",
+                new ConstraintViolationException(message, new SQLException(message), "UK6dotkott2kjsp8vw4d0m25fb7")));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            userService.register("timothy", "t@test.com", "pw", "ROLE_USER");
+        });
+
+        assertEquals("Email already registered", exception.getMessage());
+    }
+}
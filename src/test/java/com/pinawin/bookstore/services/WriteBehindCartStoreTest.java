@@ -0,0 +1,282 @@
+package com.pinawin.bookstore.services;
+
+import com.pinawin.bookstore.models.Book;
+import com.pinawin.bookstore.models.CartItem;
+import com.pinawin.bookstore.models.User;
+import com.pinawin.bookstore.repositories.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for WriteBehindCartStore.
+ * Verifies that cart operations are absorbed in memory, coalesced into batched
+ * writes, flushed before checkout and replayed from the journal after a restart.
+ */
+@ExtendWith(MockitoExtension.class)
+public class WriteBehindCartStoreTest {
+
+    private static final String UPDATE_SQL = "UPDATE cart_items SET quantity = ? WHERE user_id = ? AND book_id = ?";
+    private static final String INSERT_SQL = "INSERT INTO cart_items (user_id, book_id, quantity) VALUES (?, ?, ?)";
+    private static final String DELETE_CART_SQL = "DELETE FROM cart_items WHERE user_id = ?";
+    private static final String DELETE_LINE_SQL = "DELETE FROM cart_items WHERE user_id = ? AND book_id = ?";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private BookRepository bookRepository;
+
+    @TempDir
+    private Path dataDir;
+
+    private WriteBehindCartStore cartStore;
+    private User testUser;
+    private Book javaBook;
+    private Book springBook;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setId(1L);
+
+        javaBook = book(101L, "Java Basics");
+        springBook = book(102L, "Spring Boot Guide");
+
+        cartStore = newStore();
+    }
+
+    @Test
+    @DisplayName("Should absorb repeated adds in memory without touching the database")
+    void testAdd_StaysInMemory() {
+        // Act
+        cartStore.add(testUser, javaBook);
+        cartStore.add(testUser, javaBook);
+        CartItem line = cartStore.add(testUser, javaBook);
+
+        // Assert: Only the initial cart load reached the database
+        assertEquals(3, line.getQuantity());
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), eq(1L));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("Should apply batch deltas in memory and write the net change on flush")
+    void testApply_CoalescesDeltas() {
+        // Arrange
+        cartStore.add(testUser, javaBook);
+        when(bookRepository.findById(102L)).thenReturn(Optional.of(springBook));
+
+        // Act: Add copies of both books, then remove more copies of the first than the cart holds
+        cartStore.apply(testUser, Map.of(101L, 3, 102L, 2));
+        cartStore.apply(testUser, Map.of(101L, -10));
+        List<CartItem> items = cartStore.items(testUser);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+        cartStore.flush();
+
+        // Assert: The first line is gone and only its removal and the second line are written
+        assertEquals(1, items.size());
+        assertEquals(2, items.getFirst().getQuantity());
+        assertArrayEquals(new Object[]{1L, 101L}, captureBatch(DELETE_LINE_SQL).getFirst());
+        assertArrayEquals(new Object[]{2, 1L, 102L}, captureBatch(UPDATE_SQL).getFirst());
+    }
+
+    @Test
+    @DisplayName("Should coalesce changes into one batch per statement on flush")
+    void testFlush_CoalescesChanges() {
+        // Arrange
+        cartStore.add(testUser, javaBook);
+        cartStore.add(testUser, javaBook);
+        cartStore.add(testUser, javaBook);
+        cartStore.add(testUser, springBook);
+        when(jdbcTemplate.batchUpdate(eq(UPDATE_SQL), anyList())).thenReturn(new int[]{0, 1});
+
+        // Act
+        cartStore.flush();
+
+        // Assert: Two coalesced updates, and an insert for the line that had no row yet
+        List<Object[]> updates = captureBatch(UPDATE_SQL);
+        assertEquals(2, updates.size());
+        assertArrayEquals(new Object[]{3, 1L, 101L}, updates.get(0));
+        assertArrayEquals(new Object[]{1, 1L, 102L}, updates.get(1));
+
+        List<Object[]> inserts = captureBatch(INSERT_SQL);
+        assertEquals(1, inserts.size());
+        assertArrayEquals(new Object[]{1L, 101L, 3}, inserts.getFirst());
+
+        // Nothing left to write
+        cartStore.flush();
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(UPDATE_SQL), anyList());
+    }
+
+    @Test
+    @DisplayName("Should delete the stored rows of a cleared cart before writing new lines")
+    void testClear_DeletesThenWrites() {
+        // Arrange
+        cartStore.add(testUser, javaBook);
+        cartStore.clear(testUser);
+        cartStore.add(testUser, springBook);
+        lenient().when(jdbcTemplate.batchUpdate(eq(UPDATE_SQL), anyList())).thenReturn(new int[]{0});
+
+        // Act
+        cartStore.flush();
+
+        // Assert
+        var order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).batchUpdate(eq(DELETE_CART_SQL), anyList());
+        order.verify(jdbcTemplate).batchUpdate(eq(UPDATE_SQL), anyList());
+        order.verify(jdbcTemplate).batchUpdate(eq(INSERT_SQL), anyList());
+        assertEquals(List.of(102L), cartStore.items(testUser).stream().map(item -> item.getBook().getId()).toList());
+    }
+
+    @Test
+    @DisplayName("Should write a user's cart and reload it from the database after a checkout flush")
+    void testFlushUser_WritesAndDropsCart() {
+        // Arrange
+        cartStore.add(testUser, javaBook);
+        when(jdbcTemplate.batchUpdate(eq(UPDATE_SQL), anyList())).thenReturn(new int[]{0});
+
+        // Act
+        cartStore.flush(testUser);
+        cartStore.items(testUser);
+
+        // Assert: Written once, then read back from the table on the next access
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(INSERT_SQL), anyList());
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), eq(1L));
+    }
+
+    @Test
+    @DisplayName("Should let other users change and check out their carts while one user's flush is writing")
+    void testFlushUser_DoesNotBlockOtherCarts() throws Exception {
+        // Arrange: The checkout flush of the first user stalls inside its database write
+        User otherUser = new User();
+        otherUser.setId(2L);
+        cartStore.add(testUser, javaBook);
+
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(eq(UPDATE_SQL), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            if (rows.getFirst()[1].equals(1L)) {
+                writing.countDown();
+                release.await();
+            }
+            return new int[rows.size()];
+        });
+
+        try (ExecutorService shoppers = Executors.newFixedThreadPool(2)) {
+            Future<?> stalled = shoppers.submit(() -> cartStore.flush(testUser));
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+            // Act: Another user changes their cart and checks out while the write is still in progress
+            Future<CartItem> other = shoppers.submit(() -> {
+                CartItem line = cartStore.add(otherUser, springBook);
+                cartStore.apply(otherUser, Map.of(101L, 1));
+                cartStore.flush(otherUser);
+                return line;
+            });
+
+            // Assert
+            try {
+                assertEquals(1, other.get(5, TimeUnit.SECONDS).getQuantity());
+                assertFalse(stalled.isDone());
+            } finally {
+                release.countDown();
+            }
+            stalled.get(5, TimeUnit.SECONDS);
+        }
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(INSERT_SQL), anyList());
+    }
+
+    @Test
+    @DisplayName("Should keep changes and retry them when a flush fails")
+    void testFlush_RetriesAfterFailure() {
+        // Arrange
+        cartStore.add(testUser, javaBook);
+        when(jdbcTemplate.batchUpdate(eq(UPDATE_SQL), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Connection lost"))
+                .thenReturn(new int[]{1});
+
+        // Act
+        cartStore.flush();
+        cartStore.flush();
+
+        // Assert
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(UPDATE_SQL), anyList());
+        assertEquals(1, cartStore.items(testUser).getFirst().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should replay unflushed changes from the journal on startup")
+    void testRecover_ReplaysJournal() {
+        // Arrange: Changes that were never flushed before the "crash"
+        cartStore.add(testUser, javaBook);
+        cartStore.add(testUser, javaBook);
+        cartStore.add(testUser, springBook);
+        when(jdbcTemplate.batchUpdate(eq(UPDATE_SQL), anyList())).thenReturn(new int[]{0, 0});
+
+        // Act
+        WriteBehindCartStore restarted = newStore();
+        restarted.recover();
+
+        // Assert
+        List<Object[]> inserts = captureBatch(INSERT_SQL);
+        assertEquals(2, inserts.size());
+        assertArrayEquals(new Object[]{1L, 101L, 2}, inserts.get(0));
+        assertArrayEquals(new Object[]{1L, 102L, 1}, inserts.get(1));
+
+        // The journal is empty afterwards, so a second restart replays nothing
+        newStore().recover();
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(INSERT_SQL), anyList());
+    }
+
+    private WriteBehindCartStore newStore() {
+        BookCatalogCache cache = new BookCatalogCache(100, Duration.ofMinutes(1), 100, Duration.ofMinutes(1), 1_000_000);
+        lenient().when(bookRepository.findById(101L)).thenReturn(Optional.of(javaBook));
+        lenient().when(bookRepository.findById(102L)).thenReturn(Optional.of(springBook));
+        return new WriteBehindCartStore(jdbcTemplate, transactionManager, bookRepository, cache,
+                dataDir.resolve("cart-journal.log").toString(), Duration.ofMinutes(30));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> captureBatch(String sql) {
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(eq(sql), batch.capture());
+        return batch.getValue();
+    }
+
+    private Book book(Long id, String title) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setPrice(new BigDecimal("20.00"));
+        book.setStock(10);
+        return book;
+    }
+}